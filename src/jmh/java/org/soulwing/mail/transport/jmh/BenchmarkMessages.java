@@ -0,0 +1,187 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport.jmh;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeBodyPart;
+import javax.mail.internet.MimeMessage;
+import javax.mail.internet.MimeMultipart;
+
+/**
+ * A factory for the messages sent by the benchmarks.
+ * <p>
+ * A message has a shape and a size.  The shapes are
+ * <ul>
+ * <li>{@code plain} -- a single text part of the given size</li>
+ * <li>{@code alternative} -- text and HTML alternatives, each half of the
+ *     given size</li>
+ * <li>{@code mixed} -- a short text part and a binary attachment of the
+ *     given size</li>
+ * <li>{@code nested} -- short text and HTML alternatives, followed by two
+ *     binary attachments, each half of the given size</li>
+ * </ul>
+ * The size is that of the content before it is encoded for transfer, so
+ * the encoded message is somewhat larger, especially for the shapes that
+ * have binary attachments.
+ *
+ * @author Carl Harris
+ */
+final class BenchmarkMessages {
+
+  private static final int SHORT_PART = 1024;
+  private static final int LINE_LENGTH = 72;
+
+  private BenchmarkMessages() {
+  }
+
+  /**
+   * Creates a new message.
+   * @param session session for the message
+   * @param shape name of the message shape
+   * @param size size of the message content in bytes
+   * @return message, on which {@link MimeMessage#saveChanges()} has been
+   *    called
+   * @throws MessagingException if the message cannot be created
+   */
+  static MimeMessage newMessage(Session session, String shape, int size)
+      throws MessagingException {
+    final MimeMessage message = new MimeMessage(session);
+    message.setFrom(new InternetAddress("nobody@nowhere.net"));
+    message.setRecipient(Message.RecipientType.TO,
+        new InternetAddress("somebody@somewhere.net"));
+    message.setSubject("Benchmark message (" + shape + ", " + size + ")");
+    switch (shape) {
+      case "plain":
+        message.setText(text(size));
+        break;
+      case "alternative":
+        message.setContent(alternative(size / 2));
+        break;
+      case "mixed":
+        message.setContent(multipart("mixed", textPart(SHORT_PART),
+            attachment("attachment.bin", size)));
+        break;
+      case "nested":
+        final MimeBodyPart body = new MimeBodyPart();
+        body.setContent(alternative(SHORT_PART));
+        message.setContent(multipart("mixed", body,
+            attachment("attachment1.bin", size / 2),
+            attachment("attachment2.bin", size - size / 2)));
+        break;
+      default:
+        throw new IllegalArgumentException("unrecognized shape: " + shape);
+    }
+    message.saveChanges();
+    return message;
+  }
+
+  /**
+   * Creates a new message in its encoded form, as a message parsed from its
+   * encoding.
+   * <p>
+   * Writing a parsed message copies its encoded content rather than
+   * encoding it again, and does not modify the message, so a parsed message
+   * can be sent by many threads at once.
+   * @param session session for the message
+   * @param shape name of the message shape
+   * @param size size of the message content in bytes
+   * @return message
+   * @throws MessagingException if the message cannot be created
+   */
+  static MimeMessage newEncodedMessage(Session session, String shape,
+      int size) throws MessagingException {
+    return encode(session, newMessage(session, shape, size));
+  }
+
+  /**
+   * Creates a copy of a message, parsed from the message's encoding.
+   * @param session session for the copy
+   * @param message the message to copy
+   * @return copy of {@code message}
+   * @throws MessagingException if the message cannot be encoded
+   * @see #newEncodedMessage(Session, String, int)
+   */
+  static MimeMessage encode(Session session, MimeMessage message)
+      throws MessagingException {
+    try {
+      final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      message.writeTo(outputStream);
+      return new MimeMessage(session,
+          new ByteArrayInputStream(outputStream.toByteArray()));
+    }
+    catch (IOException ex) {
+      throw new MessagingException("error encoding message", ex);
+    }
+  }
+
+  private static MimeMultipart alternative(int size)
+      throws MessagingException {
+    final MimeBodyPart html = new MimeBodyPart();
+    html.setContent("<html><body><pre>" + text(size) + "</pre></body></html>",
+        "text/html; charset=us-ascii");
+    return multipart("alternative", textPart(size), html);
+  }
+
+  private static MimeMultipart multipart(String subtype,
+      MimeBodyPart... parts) throws MessagingException {
+    final MimeMultipart multipart = new MimeMultipart(subtype);
+    for (final MimeBodyPart part : parts) {
+      multipart.addBodyPart(part);
+    }
+    return multipart;
+  }
+
+  private static MimeBodyPart textPart(int size) throws MessagingException {
+    final MimeBodyPart part = new MimeBodyPart();
+    part.setText(text(size));
+    return part;
+  }
+
+  private static MimeBodyPart attachment(String name, int size)
+      throws MessagingException {
+    final MimeBodyPart part = new MimeBodyPart();
+    part.setContent(bytes(size), "application/octet-stream");
+    part.setFileName(name);
+    return part;
+  }
+
+  private static String text(int size) {
+    final char[] chars = new char[size];
+    for (int i = 0; i < size; i++) {
+      chars[i] = (i + 1) % (LINE_LENGTH + 1) == 0 ?
+          '\n' : (char) ('a' + i % 26);
+    }
+    return new String(chars);
+  }
+
+  private static byte[] bytes(int size) {
+    final byte[] bytes = new byte[size];
+    for (int i = 0; i < size; i++) {
+      bytes[i] = (byte) (i * 31 + (i >>> 8));
+    }
+    return bytes;
+  }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport.jmh;
+
+import java.io.File;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks once for each of a list of thread counts, writing
+ * the results for each thread count to a JSON file.
+ * <p>
+ * The runner is configured by system properties; a property that is not
+ * set, or is empty, takes its default value:
+ * <ul>
+ * <li>{@code jmh.threads} -- comma-separated thread counts (default
+ *     {@code 1,4,16})</li>
+ * <li>{@code jmh.include} -- regular expression that selects the benchmarks
+ *     to run (default all)</li>
+ * <li>{@code jmh.resultDir} -- directory for the result files, which are
+ *     named {@code results-t<threads>.json} (default {@code target/jmh})</li>
+ * <li>{@code jmh.args} -- other JMH command line options, separated by
+ *     spaces; e.g. {@code -p size=1024 -f 2}</li>
+ * </ul>
+ *
+ * @author Carl Harris
+ */
+public class BenchmarkRunner {
+
+  public static void main(String[] args) throws Exception {
+    final String threads = property("jmh.threads", "1,4,16");
+    final String include = property("jmh.include", ".*");
+    final File resultDir = new File(property("jmh.resultDir", "target/jmh"));
+    final String extra = property("jmh.args", "");
+    final CommandLineOptions commandLine = new CommandLineOptions(
+        extra.isEmpty() ? args : concat(extra.split("\\s+"), args));
+
+    if (!resultDir.isDirectory() && !resultDir.mkdirs()) {
+      throw new IllegalStateException("cannot create directory " + resultDir);
+    }
+    for (final String count : threads.split(",")) {
+      final int n = Integer.parseInt(count.trim());
+      final Options options = new OptionsBuilder()
+          .parent(commandLine)
+          .include(include)
+          .threads(n)
+          .resultFormat(ResultFormatType.JSON)
+          .result(new File(resultDir, "results-t" + n + ".json").getPath())
+          .build();
+      new Runner(options).run();
+    }
+  }
+
+  private static String property(String name, String defaultValue) {
+    final String value = System.getProperty(name, "").trim();
+    return value.isEmpty() ? defaultValue : value;
+  }
+
+  private static String[] concat(String[] a, String[] b) {
+    final String[] result = new String[a.length + b.length];
+    System.arraycopy(a, 0, result, 0, a.length);
+    System.arraycopy(b, 0, result, a.length, b.length);
+    return result;
+  }
+
+}
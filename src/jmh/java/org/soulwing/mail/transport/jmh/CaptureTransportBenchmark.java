@@ -0,0 +1,96 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport.jmh;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import javax.mail.Address;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.soulwing.mail.transport.MemoryMailbox;
+import org.soulwing.mail.transport.MemoryTransport;
+import org.soulwing.mail.transport.NullTransport;
+
+/**
+ * Measures the throughput and latency of the transports that keep no
+ * durable record of a message: the {@link MemoryTransport}, which captures
+ * each message in a mailbox, and the {@link NullTransport} in blackhole
+ * mode, which encodes each message and discards it.
+ * <p>
+ * Each thread sends its own message, which is built anew for each trial
+ * rather than parsed from its encoding, so that the blackhole measures the
+ * full cost of encoding the message.  The message shapes and sizes are
+ * given by {@link MessageParams}.
+ *
+ * @author Carl Harris
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CaptureTransportBenchmark {
+
+  private static final String NAME = "benchmark";
+
+  @Param({ "memory", "null" })
+  public String protocol;
+
+  private Transport transport;
+  private MimeMessage message;
+  private Address[] recipients;
+
+  @Setup(Level.Trial)
+  public void setUp(MessageParams params) throws Exception {
+    final Properties properties = new Properties();
+    properties.setProperty("mail.transport.protocol", protocol);
+    properties.setProperty(MemoryTransport.NAME, NAME);
+    properties.setProperty(MemoryTransport.CAPACITY, "64");
+    properties.setProperty(NullTransport.MODE, "blackhole");
+    properties.setProperty(NullTransport.NAME, NAME);
+    final Session session = Session.getInstance(properties);
+    message = params.newMessage(session);
+    recipients = message.getAllRecipients();
+    transport = session.getTransport();
+    transport.connect();
+    MemoryMailbox.named(NAME).clear();
+  }
+
+  @Benchmark
+  public void sendMessage() throws MessagingException {
+    transport.sendMessage(message, recipients);
+  }
+
+}
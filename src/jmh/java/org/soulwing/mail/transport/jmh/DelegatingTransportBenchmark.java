@@ -0,0 +1,103 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport.jmh;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import javax.mail.Address;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.soulwing.mail.transport.ThrottlingTransport;
+import org.soulwing.mail.transport.TimeoutThrowingTransport;
+
+/**
+ * Measures the throughput and latency of sending messages through the
+ * transports that delegate to another session's transport: the error,
+ * timeout, and throttling transports.  Each is configured so that it
+ * passes every message to a delegate that discards it, and is measured
+ * both connected (sending through the delegate transport pool) and
+ * unconnected (sending through a new delegate transport for each message).
+ *
+ * @author Carl Harris
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DelegatingTransportBenchmark {
+
+  @Param({ "error", "timeout", "throttle" })
+  public String protocol;
+
+  @Param({ "false", "true" })
+  public boolean connected;
+
+  @Param({ "1024", "1048576" })
+  public int size;
+
+  private Transport transport;
+  private MimeMessage message;
+  private Address[] recipients;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    final Properties properties = new Properties();
+    properties.setProperty("mail.transport.protocol", protocol);
+    properties.setProperty("mail." + protocol + ".delegate.transport.protocol",
+        "null");
+    properties.setProperty(TimeoutThrowingTransport.OUTCOME, "succeed");
+    properties.setProperty(ThrottlingTransport.MESSAGES_PER_SECOND, "1e9");
+    final Session session = Session.getInstance(properties);
+    message = BenchmarkMessages.newEncodedMessage(session, "plain", size);
+    recipients = message.getAllRecipients();
+    transport = session.getTransport();
+    if (connected) {
+      transport.connect();
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    transport.close();
+  }
+
+  @Benchmark
+  public void sendMessage() throws MessagingException {
+    transport.sendMessage(message, recipients);
+  }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport.jmh;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import javax.mail.Address;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.soulwing.mail.transport.FileTransport;
+
+/**
+ * Measures the throughput and latency of sending messages through a
+ * connected {@link FileTransport}, writing either directly or through the
+ * asynchronous writer.
+ * <p>
+ * Messages are written to segment files in a temporary directory, and only
+ * the most recent segments are kept, so that a long run does not fill the
+ * file system.  The message shapes and sizes are given by
+ * {@link MessageParams}.
+ *
+ * @author Carl Harris
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileTransportBenchmark {
+
+  private static final long SEGMENT_BYTES = 256L * 1024 * 1024;
+
+  @Param({ "false", "true" })
+  public boolean async;
+
+  private File directory;
+  private Transport transport;
+  private MimeMessage message;
+  private Address[] recipients;
+
+  @Setup(Level.Trial)
+  public void setUp(MessageParams params) throws Exception {
+    directory = Files.createTempDirectory("file-transport").toFile();
+    final Properties properties = new Properties();
+    properties.setProperty("mail.transport.protocol", "file");
+    properties.setProperty(FileTransport.FILE_PATH,
+        new File(directory, "mail.txt").getPath());
+    properties.setProperty(FileTransport.ASYNC, Boolean.toString(async));
+    properties.setProperty(FileTransport.SEGMENT_BYTES,
+        Long.toString(SEGMENT_BYTES));
+    properties.setProperty(FileTransport.MAX_SEGMENTS, "2");
+    final Session session = Session.getInstance(properties);
+    message = params.newEncodedMessage(session);
+    recipients = message.getAllRecipients();
+    transport = session.getTransport();
+    transport.connect();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    try {
+      transport.close();
+    }
+    finally {
+      delete(directory);
+    }
+  }
+
+  @Benchmark
+  public void sendMessage() throws MessagingException {
+    transport.sendMessage(message, recipients);
+  }
+
+  static void delete(File file) throws IOException {
+    final File[] files = file.listFiles();
+    if (files != null) {
+      for (final File child : files) {
+        delete(child);
+      }
+    }
+    Files.deleteIfExists(file.toPath());
+  }
+
+}
@@ -0,0 +1,213 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport.jmh;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.activation.DataHandler;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeBodyPart;
+import javax.mail.internet.MimeMessage;
+import javax.mail.internet.MimeMultipart;
+import javax.mail.util.ByteArrayDataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.soulwing.mail.transport.FileTransport;
+
+/**
+ * Compares the throughput of a connected {@link FileTransport} under each
+ * {@link FileTransport#COMPRESSION} codec and block mode, for messages with
+ * an HTML body and a base64-encoded attachment that is partly repetitive,
+ * like a typical document.
+ * <p>
+ * Each thread cycles through a set of similar messages.  Before each trial,
+ * the set is written once to a separate file, and the size of the file and
+ * its compression ratio are printed, so that the ratio can be weighed
+ * against the throughput.
+ *
+ * @author Carl Harris
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileTransportCompressionBenchmark {
+
+  private static final int SAMPLES = 16;
+  private static final int ROWS = 40;
+  private static final int ATTACHMENT_SIZE = 16 * 1024;
+  private static final long SEGMENT_BYTES = 64L * 1024 * 1024;
+
+  @Param({ "none", "deflate", "gzip" })
+  public String codec;
+
+  @Param({ "message", "batch" })
+  public String block;
+
+  private File directory;
+  private Transport transport;
+  private MimeMessage[] samples;
+
+  /**
+   * The position of a thread in the set of messages.
+   */
+  @State(Scope.Thread)
+  public static class Cursor {
+
+    private int index;
+
+    MimeMessage next(MimeMessage[] samples) {
+      return samples[index++ % samples.length];
+    }
+
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    directory = Files.createTempDirectory("file-transport-compression")
+        .toFile();
+    final Properties properties =
+        newProperties(new File(directory, "mail.txt"));
+    properties.setProperty(FileTransport.SEGMENT_BYTES,
+        Long.toString(SEGMENT_BYTES));
+    properties.setProperty(FileTransport.MAX_SEGMENTS, "2");
+    final Session session = Session.getInstance(properties);
+    final Random random = new Random(0);
+    samples = new MimeMessage[SAMPLES];
+    for (int i = 0; i < samples.length; i++) {
+      samples[i] = BenchmarkMessages.encode(session,
+          newMessage(session, random, i));
+    }
+    printRatio();
+    transport = session.getTransport();
+    transport.connect();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    try {
+      transport.close();
+    }
+    finally {
+      FileTransportBenchmark.delete(directory);
+    }
+  }
+
+  @Benchmark
+  public void sendMessage(Cursor cursor) throws MessagingException {
+    final MimeMessage message = cursor.next(samples);
+    transport.sendMessage(message, message.getAllRecipients());
+  }
+
+  private Properties newProperties(File file) {
+    final Properties properties = new Properties();
+    properties.setProperty("mail.transport.protocol", "file");
+    properties.setProperty(FileTransport.FILE_PATH, file.getPath());
+    properties.setProperty(FileTransport.FLUSH, "buffer");
+    properties.setProperty(FileTransport.COMPRESSION, codec);
+    properties.setProperty(FileTransport.COMPRESSION_BLOCK, block);
+    return properties;
+  }
+
+  private void printRatio() throws Exception {
+    final File file = new File(directory, "ratio.txt");
+    final Transport scratch = Session.getInstance(newProperties(file))
+        .getTransport();
+    long encoded = 0;
+    scratch.connect();
+    try {
+      for (final MimeMessage message : samples) {
+        final ByteArrayOutputStream outputStream =
+            new ByteArrayOutputStream();
+        message.writeTo(outputStream);
+        encoded += outputStream.size();
+        scratch.sendMessage(message, message.getAllRecipients());
+      }
+    }
+    finally {
+      scratch.close();
+    }
+    final long written = file.length();
+    System.out.format("%s/%s: %d messages, %d bytes encoded, "
+        + "%d bytes written, ratio %.2f%n", codec, block, samples.length,
+        encoded, written, (double) encoded / written);
+    Files.delete(file.toPath());
+  }
+
+  private static MimeMessage newMessage(Session session, Random random,
+      int index) throws MessagingException {
+    final StringBuilder html = new StringBuilder();
+    html.append("<html><body><h1>Statement ").append(index)
+        .append("</h1><table>");
+    for (int row = 0; row < ROWS; row++) {
+      html.append("<tr><td>Item ").append(row)
+          .append("</td><td>").append(random.nextInt(100000))
+          .append("</td></tr>");
+    }
+    html.append("</table></body></html>");
+
+    final byte[] attachment = new byte[ATTACHMENT_SIZE];
+    for (int i = 0; i < attachment.length; i++) {
+      attachment[i] = (byte) (i % 64 < 48 ? 'a' + i % 26 : random.nextInt());
+    }
+
+    final MimeBodyPart body = new MimeBodyPart();
+    body.setContent(html.toString(), "text/html; charset=UTF-8");
+    final MimeBodyPart attached = new MimeBodyPart();
+    attached.setDataHandler(new DataHandler(
+        new ByteArrayDataSource(attachment, "application/octet-stream")));
+    attached.setFileName("statement-" + index + ".bin");
+    attached.setHeader("Content-Transfer-Encoding", "base64");
+    final MimeMultipart multipart = new MimeMultipart();
+    multipart.addBodyPart(body);
+    multipart.addBodyPart(attached);
+
+    final MimeMessage message = new MimeMessage(session);
+    message.setFrom(new InternetAddress("nobody@nowhere.net"));
+    message.addRecipient(Message.RecipientType.TO,
+        new InternetAddress("somebody@somewhere.net"));
+    message.setSubject("Statement " + index);
+    message.setContent(multipart);
+    message.saveChanges();
+    return message;
+  }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport.jmh;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import javax.mail.Address;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.soulwing.mail.transport.FileTransport;
+
+/**
+ * Compares the throughput of a connected {@link FileTransport} under each
+ * of its {@link FileTransport#SYNC} policies, writing either directly or
+ * through the asynchronous writer.
+ * <p>
+ * The cost of forcing a file depends on the storage device, so the
+ * {@code directory} parameter names the directory in which the files are
+ * written; when it is empty, the files are written in a temporary directory
+ * under {@code java.io.tmpdir}.  For example, to test a particular disk:
+ * <pre>
+ * -Djmh.include=FileTransportSyncBenchmark -Djmh.args="-p directory=/data"
+ * </pre>
+ * Each message is a 1 KB plain text message, so that the time measured is
+ * mostly that of forcing the file.
+ *
+ * @author Carl Harris
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileTransportSyncBenchmark {
+
+  private static final int SIZE = 1024;
+  private static final long SEGMENT_BYTES = 64L * 1024 * 1024;
+
+  @Param({ "none", "always", "interval:10", "interval:100", "batch:10",
+      "batch:100" })
+  public String sync;
+
+  @Param({ "false", "true" })
+  public boolean async;
+
+  @Param({ "" })
+  public String directory;
+
+  private File workDirectory;
+  private Transport transport;
+  private MimeMessage message;
+  private Address[] recipients;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    workDirectory = directory.isEmpty() ?
+        Files.createTempDirectory("file-transport-sync").toFile() :
+        Files.createTempDirectory(new File(directory).toPath(),
+            "file-transport-sync").toFile();
+    final Properties properties = new Properties();
+    properties.setProperty("mail.transport.protocol", "file");
+    properties.setProperty(FileTransport.FILE_PATH,
+        new File(workDirectory, "mail.txt").getPath());
+    properties.setProperty(FileTransport.SYNC, sync);
+    properties.setProperty(FileTransport.ASYNC, Boolean.toString(async));
+    properties.setProperty(FileTransport.SEGMENT_BYTES,
+        Long.toString(SEGMENT_BYTES));
+    properties.setProperty(FileTransport.MAX_SEGMENTS, "2");
+    final Session session = Session.getInstance(properties);
+    message = BenchmarkMessages.newEncodedMessage(session, "plain", SIZE);
+    recipients = message.getAllRecipients();
+    transport = session.getTransport();
+    transport.connect();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    try {
+      transport.close();
+    }
+    finally {
+      FileTransportBenchmark.delete(workDirectory);
+    }
+  }
+
+  @Benchmark
+  public void sendMessage() throws MessagingException {
+    transport.sendMessage(message, recipients);
+  }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport.jmh;
+
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.internet.MimeMessage;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The shape and size of the message sent by a benchmark, declared once for
+ * every benchmark that sends messages of each shape and size.
+ * <p>
+ * A benchmark uses these parameters by accepting an instance of this class
+ * in its setup method.  See {@link BenchmarkMessages} for a description of
+ * the shapes.
+ *
+ * @author Carl Harris
+ */
+@State(Scope.Benchmark)
+public class MessageParams {
+
+  @Param({ "1024", "65536", "1048576", "20971520" })
+  public int size;
+
+  @Param({ "plain", "alternative", "mixed", "nested" })
+  public String shape;
+
+  /**
+   * Creates a new message of this shape and size.
+   * @param session session for the message
+   * @return message
+   * @throws MessagingException if the message cannot be created
+   * @see BenchmarkMessages#newMessage(Session, String, int)
+   */
+  MimeMessage newMessage(Session session) throws MessagingException {
+    return BenchmarkMessages.newMessage(session, shape, size);
+  }
+
+  /**
+   * Creates a message of this shape and size, parsed from its encoding.
+   * @param session session for the message
+   * @return message
+   * @throws MessagingException if the message cannot be created
+   * @see BenchmarkMessages#newEncodedMessage(Session, String, int)
+   */
+  MimeMessage newEncodedMessage(Session session) throws MessagingException {
+    return BenchmarkMessages.newEncodedMessage(session, shape, size);
+  }
+
+}
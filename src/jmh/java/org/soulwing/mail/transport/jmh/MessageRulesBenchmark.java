@@ -0,0 +1,121 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport.jmh;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import javax.mail.Address;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.soulwing.mail.transport.MemoryMailbox;
+import org.soulwing.mail.transport.MemoryTransport;
+
+/**
+ * Measures the cost of evaluating message rules as the number of rules
+ * grows, by sending through a {@link MemoryTransport} configured with
+ * rules that match none of the message's recipients, so that every rule
+ * is considered for every recipient.
+ * <p>
+ * Half of the rules match recipient domains, and half match recipient
+ * addresses by regular expression.  With no rules, the result is the cost
+ * of the transport alone.  To see the memory allocated for each message,
+ * run with the JMH {@code gc} profiler; e.g.
+ * {@code -Djmh.include=MessageRulesBenchmark -Djmh.args="-prof gc"}.
+ *
+ * @author Carl Harris
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageRulesBenchmark {
+
+  private static final String NAME = "rules-benchmark";
+
+  @Param({ "0", "10", "100", "1000" })
+  public int rules;
+
+  private Transport transport;
+  private MimeMessage message;
+  private Address[] recipients;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    final Session session = Session.getInstance(newProperties(rules));
+    message = BenchmarkMessages.newEncodedMessage(session, "plain", 1024);
+    recipients = new Address[] {
+        new InternetAddress("someone@nowhere.net"),
+        new InternetAddress("someone.else@elsewhere.net"),
+        new InternetAddress("nobody@somewhere.net")
+    };
+    message.setRecipients(Message.RecipientType.TO, recipients);
+    transport = session.getTransport();
+    transport.connect();
+    MemoryMailbox.named(NAME).clear();
+  }
+
+  @Benchmark
+  public void sendMessage() throws MessagingException {
+    transport.sendMessage(message, recipients);
+  }
+
+  private static Properties newProperties(int count) {
+    final Properties properties = new Properties();
+    properties.setProperty("mail.transport.protocol", "memory");
+    properties.setProperty(MemoryTransport.NAME, NAME);
+    properties.setProperty(MemoryTransport.CAPACITY, "64");
+    final StringBuilder names = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      final String rule = "mail.memory.rule.r" + i;
+      if (i % 2 == 0) {
+        properties.setProperty(rule + ".domains",
+            "domain" + i + ".example.com");
+      }
+      else {
+        properties.setProperty(rule + ".recipient", "user" + i + "\\+.*@.*");
+      }
+      properties.setProperty(rule + ".action", "drop");
+      names.append(names.length() > 0 ? "," : "").append("r").append(i);
+    }
+    if (count > 0) {
+      properties.setProperty("mail.memory.rules", names.toString());
+    }
+    return properties;
+  }
+
+}
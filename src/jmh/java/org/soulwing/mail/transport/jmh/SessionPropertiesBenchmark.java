@@ -0,0 +1,90 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport.jmh;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import javax.mail.MessagingException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.soulwing.mail.transport.SessionProperties;
+
+/**
+ * Measures the cost of the {@link SessionProperties} lookups made when a
+ * transport is created or configured, for sessions with realistic numbers
+ * of properties.
+ *
+ * @author Carl Harris
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SessionPropertiesBenchmark {
+
+  private static final String PROTOCOL = "error";
+
+  @Param({ "20", "500" })
+  public int count;
+
+  private SessionProperties properties;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    final Properties properties = new Properties();
+    properties.setProperty("mail.transport.protocol", PROTOCOL);
+    properties.setProperty("mail.error.pool.maxSize", "8");
+    properties.setProperty("mail.error.delegate.transport.protocol", "smtp");
+    properties.setProperty("mail.error.delegate.smtp.host", "localhost");
+    properties.setProperty("mail.error.delegate.smtp.port", "25");
+    for (int i = properties.size(); i < count; i++) {
+      properties.setProperty("mail.smtp.option" + i, "value" + i);
+    }
+    this.properties = new SessionProperties(properties);
+  }
+
+  @Benchmark
+  public String getProperty() {
+    return properties.getProperty("mail.transport.protocol");
+  }
+
+  @Benchmark
+  public int getIntProperty() throws MessagingException {
+    return properties.getIntProperty("mail.error.pool.maxSize", 0);
+  }
+
+  @Benchmark
+  public Properties getDelegateProperties() {
+    return properties.getDelegateProperties(PROTOCOL);
+  }
+
+}
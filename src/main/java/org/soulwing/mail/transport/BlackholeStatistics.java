@@ -0,0 +1,192 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics for the messages encoded by a {@link NullTransport} in
+ * blackhole mode.
+ * <p>
+ * Statistics are named, so that any number of transport instances (such
+ * as those created by {@link javax.mail.Transport#send(javax.mail.Message)})
+ * can accumulate into the same statistics, and so that independent tests
+ * or benchmarks can keep their statistics separate.  Each statistic is
+ * updated atomically, but the statistics as a whole are not; a reader that
+ * runs concurrently with senders may see, for example, a byte count that
+ * includes a message that the message count does not yet include.
+ *
+ * @author Carl Harris
+ */
+public final class BlackholeStatistics {
+
+  /** Name of the statistics used when none is specified */
+  public static final String DEFAULT_NAME = "default";
+
+  private static final ConcurrentMap<String, BlackholeStatistics> statistics =
+      new ConcurrentHashMap<>();
+
+  private final AtomicLong messageCount = new AtomicLong();
+  private final AtomicLong byteCount = new AtomicLong();
+  private final AtomicLong errorCount = new AtomicLong();
+  private final AtomicLong encodeTime = new AtomicLong();
+  private final AtomicLong maxEncodeTime = new AtomicLong();
+  private final AtomicLong maxMessageSize = new AtomicLong();
+
+  private final String name;
+
+  private BlackholeStatistics(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Gets the statistics with the given name, creating them if necessary.
+   * @param name name of the statistics
+   * @return statistics
+   */
+  public static BlackholeStatistics named(String name) {
+    BlackholeStatistics instance = statistics.get(name);
+    if (instance == null) {
+      instance = new BlackholeStatistics(name);
+      final BlackholeStatistics existing =
+          statistics.putIfAbsent(name, instance);
+      if (existing != null) {
+        instance = existing;
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * Gets the statistics with the default name.
+   * @return statistics
+   */
+  public static BlackholeStatistics getDefault() {
+    return named(DEFAULT_NAME);
+  }
+
+  /**
+   * Gets the name of these statistics.
+   * @return name
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Gets the number of messages that were encoded successfully.
+   * @return message count
+   */
+  public long getMessageCount() {
+    return messageCount.get();
+  }
+
+  /**
+   * Gets the total size of the messages that were encoded successfully.
+   * @return size in bytes
+   */
+  public long getByteCount() {
+    return byteCount.get();
+  }
+
+  /**
+   * Gets the size of the largest message that was encoded.
+   * @return size in bytes
+   */
+  public long getMaxMessageSize() {
+    return maxMessageSize.get();
+  }
+
+  /**
+   * Gets the number of messages that could not be encoded.
+   * @return error count
+   */
+  public long getErrorCount() {
+    return errorCount.get();
+  }
+
+  /**
+   * Gets the total time spent encoding messages that were encoded
+   * successfully.
+   * @param unit unit of the returned time
+   * @return encoding time
+   */
+  public long getEncodeTime(TimeUnit unit) {
+    return unit.convert(encodeTime.get(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Gets the longest time spent encoding a single message.
+   * @param unit unit of the returned time
+   * @return encoding time
+   */
+  public long getMaxEncodeTime(TimeUnit unit) {
+    return unit.convert(maxEncodeTime.get(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Resets all statistics to zero.
+   */
+  public void reset() {
+    messageCount.set(0);
+    byteCount.set(0);
+    errorCount.set(0);
+    encodeTime.set(0);
+    maxEncodeTime.set(0);
+    maxMessageSize.set(0);
+  }
+
+  /**
+   * Records a message that was encoded successfully.
+   * @param bytes size of the encoded message
+   * @param nanos time spent encoding the message
+   */
+  void record(long bytes, long nanos) {
+    messageCount.incrementAndGet();
+    byteCount.addAndGet(bytes);
+    encodeTime.addAndGet(nanos);
+    max(maxMessageSize, bytes);
+    max(maxEncodeTime, nanos);
+  }
+
+  /**
+   * Records a message that could not be encoded.
+   */
+  void recordError() {
+    errorCount.incrementAndGet();
+  }
+
+  private static void max(AtomicLong max, long value) {
+    long current = max.get();
+    while (value > current && !max.compareAndSet(current, value)) {
+      current = max.get();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s: %d messages, %d bytes, %d errors, %d ms",
+        name, getMessageCount(), getByteCount(), getErrorCount(),
+        getEncodeTime(TimeUnit.MILLISECONDS));
+  }
+
+}
@@ -0,0 +1,214 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * An output stream that compresses data written to it as a series of
+ * independently decodable blocks.
+ * <p>
+ * A block begins with the first byte written after the stream is created or
+ * the previous block is ended, and ends when {@link #endBlock()} is invoked.
+ * Each block is a complete GZIP member or ZLIB stream, so a reader that knows
+ * the offset of a block can decode it without reading anything that precedes
+ * it.  Concatenated GZIP members form a valid GZIP file, so a file of GZIP
+ * blocks can also be decoded from start to end by ordinary tools.
+ * <p>
+ * The stream reuses a single {@link Deflater} and buffer for every block.
+ * Flushing or closing the stream does not end the current block, and
+ * closing does not close the underlying stream.
+ * <p>
+ * Data written after a call to {@link #mark()} can be discarded using
+ * {@link #discard()}, provided that the owner of the underlying stream also
+ * discards everything written to it since the mark.
+ *
+ * @author Carl Harris
+ */
+class BlockCompressingOutputStream extends OutputStream {
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private static final byte[] GZIP_HEADER = {
+      0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+  };
+
+  /** an empty, final deflate block using the fixed Huffman codes */
+  private static final byte[] FINAL_BLOCK = { 0x03, 0x00 };
+
+  private final byte[] buffer = new byte[BUFFER_SIZE];
+  private final byte[] single = new byte[1];
+  private final CRC32 crc = new CRC32();
+
+  private final OutputStream out;
+  private final Compression compression;
+  private final Deflater deflater;
+
+  private boolean inBlock;
+  private boolean markedInBlock;
+  private long markedCrc;
+  private long markedAdler;
+  private long markedBytesRead;
+
+  /**
+   * Constructs a new instance.
+   * @param out the underlying stream
+   * @param compression compression format; must not be
+   *    {@link Compression#NONE}
+   * @param level compression level (0-9) or
+   *    {@link Deflater#DEFAULT_COMPRESSION}
+   */
+  BlockCompressingOutputStream(OutputStream out, Compression compression,
+      int level) {
+    if (compression == Compression.NONE) {
+      throw new IllegalArgumentException("compression format is required");
+    }
+    this.out = out;
+    this.compression = compression;
+    this.deflater = new Deflater(level, compression == Compression.GZIP);
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    single[0] = (byte) b;
+    write(single, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    if (len == 0) return;
+    if (!inBlock) {
+      beginBlock();
+    }
+    if (compression == Compression.GZIP) {
+      crc.update(b, off, len);
+    }
+    deflater.setInput(b, off, len);
+    while (!deflater.needsInput()) {
+      deflate();
+    }
+  }
+
+  /**
+   * Ends the current block, if any data has been written since the last
+   * block was ended.
+   * @throws IOException if an error occurs in writing to the underlying stream
+   */
+  void endBlock() throws IOException {
+    if (!inBlock) return;
+    deflater.finish();
+    while (!deflater.finished()) {
+      deflate();
+    }
+    if (compression == Compression.GZIP) {
+      writeInt((int) crc.getValue());
+      writeInt((int) deflater.getBytesRead());
+    }
+    deflater.reset();
+    inBlock = false;
+  }
+
+  /**
+   * Marks the current position in the uncompressed data.
+   * <p>
+   * If a block is in progress, the compressed data for everything written so
+   * far is flushed to the underlying stream, so that the block can later be
+   * ended at the mark.
+   * @throws IOException if an error occurs in writing to the underlying stream
+   */
+  void mark() throws IOException {
+    markedInBlock = inBlock;
+    if (!inBlock) return;
+    int count;
+    do {
+      count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+      if (count > 0) {
+        out.write(buffer, 0, count);
+      }
+    }
+    while (count == buffer.length);
+    markedCrc = crc.getValue();
+    markedAdler = deflater.getAdler();
+    markedBytesRead = deflater.getBytesRead();
+  }
+
+  /**
+   * Discards the data written since the last mark.
+   * <p>
+   * The caller must first discard everything written to the underlying
+   * stream since the mark.  If a block was in progress at the mark, it is
+   * then ended so that it contains only the data written before the mark;
+   * otherwise the block begun after the mark (if any) is abandoned.
+   * @throws IOException if an error occurs in writing to the underlying stream
+   */
+  void discard() throws IOException {
+    if (markedInBlock) {
+      out.write(FINAL_BLOCK);
+      if (compression == Compression.GZIP) {
+        writeInt((int) markedCrc);
+        writeInt((int) markedBytesRead);
+      }
+      else {
+        out.write((int) (markedAdler >>> 24) & 0xff);
+        out.write((int) (markedAdler >>> 16) & 0xff);
+        out.write((int) (markedAdler >>> 8) & 0xff);
+        out.write((int) markedAdler & 0xff);
+      }
+    }
+    deflater.reset();
+    inBlock = false;
+    markedInBlock = false;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      endBlock();
+    }
+    finally {
+      deflater.end();
+    }
+  }
+
+  private void beginBlock() throws IOException {
+    if (compression == Compression.GZIP) {
+      out.write(GZIP_HEADER);
+      crc.reset();
+    }
+    inBlock = true;
+  }
+
+  private void deflate() throws IOException {
+    final int count = deflater.deflate(buffer, 0, buffer.length);
+    if (count > 0) {
+      out.write(buffer, 0, count);
+    }
+  }
+
+  private void writeInt(int value) throws IOException {
+    out.write(value & 0xff);
+    out.write((value >>> 8) & 0xff);
+    out.write((value >>> 16) & 0xff);
+    out.write((value >>> 24) & 0xff);
+  }
+
+}
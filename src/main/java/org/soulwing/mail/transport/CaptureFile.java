@@ -0,0 +1,503 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import javax.mail.internet.ContentType;
+import javax.mail.internet.ParseException;
+import javax.mail.util.SharedByteArrayInputStream;
+
+/**
+ * A read-only view of a file written by {@link FileTransport}.
+ * <p>
+ * The file is memory-mapped, and messages are located only as they are
+ * needed.  When the file has a {@link MessageIndex}, the index gives the
+ * location of each message.  Otherwise, the file is scanned for the blank
+ * line that follows each message: a blank line ends a message when the lines
+ * that follow it form a header block containing a {@code MIME-Version}
+ * field, and blank lines within the body of a multipart message are ignored.
+ * A compressed file can be read only with an index.
+ * <p>
+ * When the file grows, messages that were appended are found the next time
+ * the view needs more messages than it has already located.
+ * <p>
+ * An instance of this class is not safe for concurrent use by multiple
+ * threads.
+ *
+ * @author Carl Harris
+ */
+class CaptureFile implements Closeable {
+
+  private static final int CHUNK_SHIFT = 30;
+  private static final long CHUNK_SIZE = 1L << CHUNK_SHIFT;
+  private static final long CHUNK_MASK = CHUNK_SIZE - 1;
+
+  private static final int MAX_HEADER_LINES = 500;
+  private static final byte[] MIME_VERSION = "mime-version:".getBytes(
+      Charset.forName("US-ASCII"));
+
+  private static final int CR = '\r';
+  private static final int LF = '\n';
+
+  private final File file;
+  private final FileChannel channel;
+  private final MessageIndex index;
+  private final Compression compression;
+
+  private MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+  private long size;
+
+  private long[] offsets = new long[64];
+  private long[] lengths = new long[64];
+  private int count;
+  private long scanPosition;
+  private boolean tail;
+
+  private long blockOffset = -1;
+  private SoftReference<byte[]> block;
+
+  private CaptureFile(File file, FileChannel channel, MessageIndex index)
+      throws IOException {
+    this.file = file;
+    this.channel = channel;
+    this.index = index;
+    this.compression = index != null ?
+        Compression.valueOf(index.getCompression().toUpperCase(Locale.ENGLISH))
+        : Compression.NONE;
+    refresh();
+    if (index == null && isCompressed()) {
+      throw new IOException("compressed file " + file
+          + " can be read only with an index");
+    }
+  }
+
+  /**
+   * Opens a view of a file, using the file's index if it has one.
+   * @param file the file to open
+   * @return view of the file
+   * @throws IOException if the file cannot be opened or mapped, or if it is
+   *    compressed and has no index
+   */
+  static CaptureFile open(File file) throws IOException {
+    final FileChannel channel = FileChannel.open(file.toPath(),
+        StandardOpenOption.READ);
+    MessageIndex index = null;
+    try {
+      if (MessageIndex.indexFile(file).exists()) {
+        index = MessageIndex.open(file);
+      }
+      return new CaptureFile(file, channel, index);
+    }
+    catch (IOException ex) {
+      if (index != null) {
+        index.close();
+      }
+      channel.close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Gets the file that is the subject of this view.
+   * @return file
+   */
+  File getFile() {
+    return file;
+  }
+
+  /**
+   * Tests whether this view locates messages using an index.
+   * @return {@code true} if the file has an index
+   */
+  boolean isIndexed() {
+    return index != null;
+  }
+
+  /**
+   * Locates messages until at least the given number are known, or until no
+   * more messages can be found.
+   * @param n number of messages needed
+   * @return number of messages located, which may be less than or greater
+   *    than {@code n}
+   * @throws IOException if an error occurs in reading the file or its index
+   */
+  int ensure(int n) throws IOException {
+    if (index != null) {
+      int size = index.size();
+      if (size < n) {
+        refresh();
+        size = index.size();
+      }
+      return size;
+    }
+    if (count < n) {
+      refresh();
+      while (count < n && scanPosition < size) {
+        scan();
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Locates all of the messages in the file.
+   * @return number of messages
+   * @throws IOException if an error occurs in reading the file or its index
+   */
+  int count() throws IOException {
+    return ensure(Integer.MAX_VALUE);
+  }
+
+  /**
+   * Gets the index entry for a message.
+   * @param message zero-based message number
+   * @return index entry or {@code null} if the file has no index
+   * @throws IOException if an error occurs in reading the index
+   */
+  MessageIndex.Entry getEntry(int message) throws IOException {
+    return index != null ? index.get(message) : null;
+  }
+
+  /**
+   * Opens a stream for the content of a message.
+   * @param message zero-based message number, which must be less than the
+   *    number returned by {@link #ensure(int)}
+   * @return a {@link javax.mail.internet.SharedInputStream} whose content is
+   *    the message
+   * @throws IOException if an error occurs in reading the file or its index
+   */
+  InputStream newStream(int message) throws IOException {
+    if (index == null) {
+      if (message < 0 || message >= count) {
+        throw new IndexOutOfBoundsException("message " + message);
+      }
+      return region(offsets[message], lengths[message]);
+    }
+    final MessageIndex.Entry entry = index.get(message);
+    if (compression == Compression.NONE) {
+      return region(entry.getOffset(), entry.getLength());
+    }
+    final byte[] data = decompress(entry.getOffset());
+    if (entry.getOffsetInBlock() + entry.getLength() > data.length) {
+      throw new IOException("index entry " + message
+          + " is outside of its block in " + file);
+    }
+    return new SharedByteArrayInputStream(data,
+        (int) entry.getOffsetInBlock(), (int) entry.getLength());
+  }
+
+  @Override
+  public void close() throws IOException {
+    chunks = new MappedByteBuffer[0];
+    block = null;
+    try {
+      if (index != null) {
+        index.close();
+      }
+    }
+    finally {
+      channel.close();
+    }
+  }
+
+  /**
+   * Maps any part of the file that has been written since it was last
+   * mapped.
+   */
+  private void refresh() throws IOException {
+    final long newSize = channel.size();
+    if (newSize <= size) return;
+    final int first = (int) (size >>> CHUNK_SHIFT);
+    final int last = (int) ((newSize - 1) >>> CHUNK_SHIFT);
+    final MappedByteBuffer[] newChunks = Arrays.copyOf(chunks, last + 1);
+    for (int i = first; i <= last; i++) {
+      final long position = (long) i << CHUNK_SHIFT;
+      newChunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, position,
+          Math.min(CHUNK_SIZE, newSize - position));
+    }
+    chunks = newChunks;
+    size = newSize;
+    if (tail) {
+      // the last message was ended by the end of the file; it may continue
+      count--;
+      scanPosition = offsets[count];
+      tail = false;
+    }
+  }
+
+  private boolean isCompressed() {
+    if (size < 2) return false;
+    final int b0 = byteAt(0);
+    final int b1 = byteAt(1);
+    if (b0 == 0x1f && b1 == 0x8b) return true;
+    return (b0 & 0x0f) == 8 && ((b0 << 8) | b1) % 31 == 0;
+  }
+
+  private int byteAt(long position) {
+    return chunks[(int) (position >>> CHUNK_SHIFT)]
+        .get((int) (position & CHUNK_MASK)) & 0xff;
+  }
+
+  private InputStream region(long offset, long length) throws IOException {
+    if (offset < 0 || length < 0 || offset + length > size) {
+      throw new IOException("message region is outside of " + file);
+    }
+    if (length > Integer.MAX_VALUE) {
+      throw new IOException("message at offset " + offset
+          + " is too large to map");
+    }
+    final int chunk = (int) (offset >>> CHUNK_SHIFT);
+    if (offset + length <= ((long) chunk + 1) << CHUNK_SHIFT) {
+      final ByteBuffer buffer = chunks[chunk].duplicate();
+      buffer.position((int) (offset & CHUNK_MASK));
+      buffer.limit((int) ((offset & CHUNK_MASK) + length));
+      return new MappedInputStream(buffer);
+    }
+    // message spans two chunks; map it on its own
+    return new MappedInputStream(channel.map(FileChannel.MapMode.READ_ONLY,
+        offset, length));
+  }
+
+  /**
+   * Decompresses the block at the given offset, reusing the most recently
+   * decompressed block if it is the same block.
+   */
+  private byte[] decompress(long offset) throws IOException {
+    final byte[] cached = block != null ? block.get() : null;
+    if (cached != null && blockOffset == offset) return cached;
+    long position = offset;
+    final boolean gzip = compression == Compression.GZIP;
+    if (gzip) {
+      if (position + 10 > size || byteAt(position) != 0x1f
+          || byteAt(position + 1) != 0x8b || byteAt(position + 3) != 0) {
+        throw new IOException("no GZIP block at offset " + offset
+            + " in " + file);
+      }
+      position += 10;
+    }
+    final Inflater inflater = new Inflater(gzip);
+    try {
+      final byte[] input = new byte[8192];
+      final byte[] output = new byte[65536];
+      final ByteArrayOutputStream data = new ByteArrayOutputStream();
+      while (!inflater.finished()) {
+        if (inflater.needsInput()) {
+          if (position >= size) {
+            throw new IOException("truncated block at offset " + offset
+                + " in " + file);
+          }
+          final int length = (int) Math.min(input.length, size - position);
+          for (int i = 0; i < length; i++) {
+            input[i] = (byte) byteAt(position + i);
+          }
+          position += length;
+          inflater.setInput(input, 0, length);
+        }
+        data.write(output, 0, inflater.inflate(output));
+      }
+      final byte[] result = data.toByteArray();
+      blockOffset = offset;
+      block = new SoftReference<>(result);
+      return result;
+    }
+    catch (DataFormatException ex) {
+      throw new IOException("corrupt block at offset " + offset
+          + " in " + file, ex);
+    }
+    finally {
+      inflater.end();
+    }
+  }
+
+  /**
+   * Locates the message that begins at the current scan position.
+   */
+  private void scan() {
+    final long start = scanPosition;
+    long position = start;
+
+    // find the end of the header block, noting any multipart boundary
+    final StringBuilder headers = new StringBuilder();
+    while (position < size) {
+      final long next = nextLine(position);
+      if (isBlankLine(position, next)) {
+        position = next;
+        break;
+      }
+      appendLine(headers, position, next);
+      position = next;
+    }
+
+    // skip the body of a multipart message, which may contain blank lines
+    final String boundary = boundary(headers.toString());
+    if (boundary != null) {
+      final String delimiter = "--" + boundary + "--";
+      while (position < size) {
+        final long next = nextLine(position);
+        final boolean last = isLine(position, next, delimiter);
+        position = next;
+        if (last) break;
+      }
+    }
+
+    // the message ends at the blank line that precedes the next message
+    while (position < size) {
+      final long next = nextLine(position);
+      if (isBlankLine(position, next) && isMessageStart(next)) {
+        add(start, position - start, next, false);
+        return;
+      }
+      position = next;
+    }
+    long end = size;
+    if (end - 2 >= start && byteAt(end - 1) == LF && byteAt(end - 2) == CR
+        && end - 4 >= start && byteAt(end - 3) == LF) {
+      end -= 2;
+    }
+    add(start, end - start, size, true);
+  }
+
+  private void add(long offset, long length, long next, boolean tail) {
+    if (count == offsets.length) {
+      offsets = Arrays.copyOf(offsets, count * 2);
+      lengths = Arrays.copyOf(lengths, count * 2);
+    }
+    offsets[count] = offset;
+    lengths[count] = length;
+    count++;
+    scanPosition = next;
+    this.tail = tail;
+  }
+
+  /**
+   * Tests whether the lines starting at the given position form a message
+   * header block.
+   */
+  private boolean isMessageStart(long position) {
+    if (position >= size) return false;
+    boolean mimeVersion = false;
+    for (int lines = 0; lines < MAX_HEADER_LINES && position < size;
+        lines++) {
+      final long next = nextLine(position);
+      if (isBlankLine(position, next)) {
+        return mimeVersion && lines > 0;
+      }
+      final int first = byteAt(position);
+      if (first == ' ' || first == '\t') {
+        if (lines == 0) return false;
+      }
+      else if (!isField(position, next)) {
+        return false;
+      }
+      else if (!mimeVersion) {
+        mimeVersion = startsWithIgnoreCase(position, next, MIME_VERSION);
+      }
+      position = next;
+    }
+    return mimeVersion;
+  }
+
+  private boolean isField(long position, long end) {
+    for (long i = position; i < end; i++) {
+      final int c = byteAt(i);
+      if (c == ':') return i > position;
+      if (c < 33 || c > 126) return false;
+    }
+    return false;
+  }
+
+  private boolean startsWithIgnoreCase(long position, long end,
+      byte[] prefix) {
+    if (end - position < prefix.length) return false;
+    for (int i = 0; i < prefix.length; i++) {
+      if (Character.toLowerCase(byteAt(position + i)) != prefix[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private long nextLine(long position) {
+    while (position < size) {
+      if (byteAt(position++) == LF) break;
+    }
+    return position;
+  }
+
+  private boolean isBlankLine(long position, long next) {
+    final long length = next - position;
+    if (length == 1) return byteAt(position) == LF;
+    return length == 2 && byteAt(position) == CR
+        && byteAt(position + 1) == LF;
+  }
+
+  private boolean isLine(long position, long next, String text) {
+    long end = next;
+    while (end > position && byteAt(end - 1) <= ' ') {
+      end--;
+    }
+    if (end - position != text.length()) return false;
+    for (int i = 0; i < text.length(); i++) {
+      if (byteAt(position + i) != text.charAt(i)) return false;
+    }
+    return true;
+  }
+
+  private void appendLine(StringBuilder sb, long position, long next) {
+    for (long i = position; i < next; i++) {
+      sb.append((char) byteAt(i));
+    }
+  }
+
+  private static String boundary(String headers) {
+    final String[] lines = headers.split("\r?\n(?![ \t])");
+    for (final String line : lines) {
+      final int colon = line.indexOf(':');
+      if (colon == -1) continue;
+      if (!line.substring(0, colon).trim().equalsIgnoreCase("Content-Type")) {
+        continue;
+      }
+      try {
+        final ContentType contentType = new ContentType(
+            line.substring(colon + 1).replaceAll("\r?\n", "").trim());
+        if (!contentType.match("multipart/*")) return null;
+        return contentType.getParameter("boundary");
+      }
+      catch (ParseException ex) {
+        return null;
+      }
+    }
+    return null;
+  }
+
+}
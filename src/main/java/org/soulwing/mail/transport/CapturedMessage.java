@@ -0,0 +1,72 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Date;
+import javax.mail.Folder;
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+
+/**
+ * A message read from a capture file by a {@link FileFolder}.
+ * <p>
+ * The message is parsed from a shared stream over the capture file, so its
+ * content is read from the file only when it is accessed.
+ *
+ * @author Carl Harris
+ */
+class CapturedMessage extends MimeMessage {
+
+  private final Date receivedDate;
+
+  /**
+   * Constructs a new instance.
+   * @param folder the folder that contains the message
+   * @param inputStream stream containing the message
+   * @param msgnum message number (starting at 1)
+   * @param receivedDate the time at which the message was captured, or
+   *    {@code null} if not known
+   * @throws MessagingException if the message cannot be parsed
+   */
+  CapturedMessage(Folder folder, InputStream inputStream, int msgnum,
+      Date receivedDate) throws MessagingException {
+    super(folder, inputStream, msgnum);
+    this.receivedDate = receivedDate;
+    try {
+      inputStream.close();
+    }
+    catch (IOException ex) {
+      throw new MessagingException("error closing message stream", ex);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * This implementation returns the time at which the message was written
+   * to the capture file, when the file has an index.
+   */
+  @Override
+  public Date getReceivedDate() throws MessagingException {
+    return receivedDate != null ? new Date(receivedDate.getTime()) : null;
+  }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import java.util.Locale;
+import javax.mail.MessagingException;
+
+/**
+ * Compression formats for captured messages.
+ *
+ * @author Carl Harris
+ */
+enum Compression {
+
+  /** message data is written as is */
+  NONE,
+
+  /** each block is written as a GZIP member (RFC 1952) */
+  GZIP,
+
+  /** each block is written as a ZLIB stream (RFC 1950) */
+  DEFLATE;
+
+  /**
+   * Gets the compression format with the given name.
+   * @param property name of the property that specified the format
+   * @param name name of the format; if {@code null}, {@link #NONE} is
+   *    returned
+   * @return compression format
+   * @throws MessagingException if {@code name} is not a supported format
+   */
+  static Compression forName(String property, String name)
+      throws MessagingException {
+    if (name == null) return NONE;
+    try {
+      return valueOf(name.trim().toUpperCase(Locale.ENGLISH));
+    }
+    catch (IllegalArgumentException ex) {
+      throw new MessagingException("property " + property
+          + " allows 'none', 'gzip', or 'deflate'");
+    }
+  }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An output stream that counts the bytes written through it to an
+ * underlying stream.
+ *
+ * @author Carl Harris
+ */
+class CountingOutputStream extends FilterOutputStream {
+
+  private static final OutputStream NULL_OUTPUT = new OutputStream() {
+    @Override
+    public void write(int b) {
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+    }
+  };
+
+  private long count;
+
+  /**
+   * Constructs a new instance.
+   * @param out the underlying stream
+   * @param count initial value for the count
+   */
+  CountingOutputStream(OutputStream out, long count) {
+    super(out);
+    this.count = count;
+  }
+
+  /**
+   * Creates a stream that counts the bytes written to it and discards them.
+   * @return stream with an initial count of zero
+   */
+  static CountingOutputStream discarding() {
+    return new CountingOutputStream(NULL_OUTPUT, 0);
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    out.write(b);
+    count++;
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    out.write(b, off, len);
+    count += len;
+  }
+
+  /**
+   * Gets the number of bytes written.
+   * @return byte count, including the initial count given at construction
+   */
+  long getCount() {
+    return count;
+  }
+
+  /**
+   * Resets the count, after bytes counted by this stream have been discarded
+   * from the underlying stream.
+   * @param count the new value for the count
+   */
+  void reset(long count) {
+    this.count = count;
+  }
+
+}
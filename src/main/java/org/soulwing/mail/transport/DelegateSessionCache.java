@@ -0,0 +1,124 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.mail.Session;
+
+/**
+ * A process-wide cache of delegate sessions, keyed by their properties.
+ * <p>
+ * Delegating transports that are configured with the same delegate
+ * properties share a single {@link Session}, along with the provider
+ * registry that the session loads when it is created.  The cache refers to
+ * each session weakly, so a session is discarded once no transport is using
+ * it.
+ *
+ * @author Carl Harris
+ */
+class DelegateSessionCache {
+
+  private static final ConcurrentMap<SortedMap<String, String>, SessionRef>
+      sessions = new ConcurrentHashMap<>();
+
+  private static final ReferenceQueue<Session> queue = new ReferenceQueue<>();
+
+  private DelegateSessionCache() {
+  }
+
+  /**
+   * Gets a session for the given properties, creating it if there is no
+   * cached session for an equal set of properties.
+   * @param properties session properties; only the properties themselves
+   *    (not any defaults) are considered, and the properties are copied, so
+   *    that subsequent changes to them do not affect the session
+   * @return session
+   */
+  static Session getSession(Properties properties) {
+    expungeStaleEntries();
+    final SortedMap<String, String> key = canonicalize(properties);
+    while (true) {
+      final SessionRef ref = sessions.get(key);
+      final Session session = ref != null ? ref.get() : null;
+      if (session != null) return session;
+      final Session newSession = Session.getInstance(toProperties(key));
+      final SessionRef newRef = new SessionRef(key, newSession, queue);
+      if (ref == null ? sessions.putIfAbsent(key, newRef) == null
+          : sessions.replace(key, ref, newRef)) {
+        return newSession;
+      }
+    }
+  }
+
+  /**
+   * Gets the number of sessions in the cache.
+   * @return number of sessions, including any that have been discarded but
+   *    not yet removed from the cache
+   */
+  static int size() {
+    expungeStaleEntries();
+    return sessions.size();
+  }
+
+  private static SortedMap<String, String> canonicalize(
+      Properties properties) {
+    final SortedMap<String, String> map = new TreeMap<>();
+    for (final Map.Entry<Object, Object> entry : properties.entrySet()) {
+      map.put(entry.getKey().toString(), entry.getValue().toString());
+    }
+    return Collections.unmodifiableSortedMap(map);
+  }
+
+  private static Properties toProperties(Map<String, String> map) {
+    final Properties properties = new Properties();
+    properties.putAll(map);
+    return properties;
+  }
+
+  private static void expungeStaleEntries() {
+    SessionRef ref;
+    while ((ref = (SessionRef) queue.poll()) != null) {
+      sessions.remove(ref.key, ref);
+    }
+  }
+
+  /**
+   * A weak reference to a cached session that remembers its key.
+   */
+  private static class SessionRef extends WeakReference<Session> {
+
+    final SortedMap<String, String> key;
+
+    SessionRef(SortedMap<String, String> key, Session session,
+        ReferenceQueue<Session> queue) {
+      super(session, queue);
+      this.key = key;
+    }
+
+  }
+
+}
@@ -19,47 +19,103 @@
 package org.soulwing.mail.transport;
 
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 import javax.mail.Address;
 import javax.mail.Message;
 import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
 import javax.mail.Session;
 import javax.mail.Transport;
 import javax.mail.URLName;
 
 /**
  * A {@link Transport} that delegates to the transport for another session.
+ * <p>
+ * While this transport is connected, messages are sent using a bounded pool
+ * of connected delegate transports, so that a connection to the delegate
+ * is made once and reused rather than made for each message.  The pool is
+ * configured using properties named for the protocol of this transport;
+ * e.g. {@code mail.error.pool.maxSize}.  When a message is sent without
+ * first connecting this transport, it is sent using a new, unconnected
+ * delegate transport.
+ * <p>
+ * Before a message is passed to the delegate, it may be failed, delayed,
+ * dropped, or rerouted by rules configured with properties named for the
+ * protocol of this transport; e.g. {@code mail.error.rules}.  See
+ * {@link MessageRules}.
+ * <p>
+ * The delegate session is shared by every delegating transport that is
+ * configured with the same delegate properties.
  *
  * @author Carl Harris
  */
 abstract class DelegatingTransport extends Transport {
 
+  static final String POOL_MAX_SIZE = "pool.maxSize";
+  static final String POOL_MAX_WAIT = "pool.maxWait";
+  static final String POOL_MAX_IDLE = "pool.maxIdle";
+  static final String POOL_MAX_LIFETIME = "pool.maxLifetime";
+
+  static final int DEFAULT_POOL_MAX_SIZE = 8;
+  static final long DEFAULT_POOL_MAX_WAIT = TimeUnit.SECONDS.toMillis(30);
+  static final long DEFAULT_POOL_MAX_IDLE = TimeUnit.MINUTES.toMillis(1);
+  static final long DEFAULT_POOL_MAX_LIFETIME = 0;
+
   private final Session delegate;
+  private final TransportPool pool;
+  private final MessageRules rules;
 
   protected DelegatingTransport(Session session, URLName urlname) {
     super(session, urlname);
     final SessionProperties properties = new SessionProperties(session);
-    final Properties delegateProperties = properties.getDelegateProperties(
-        urlname.getProtocol());
+    final Properties delegateProperties =
+        properties.getDelegateProperties(urlname.getProtocol());
     if (delegateProperties.isEmpty()) {
       throw new IllegalArgumentException("must include delegate session properties");
     }
     delegate = session(delegateProperties);
-  }
-
-  protected static Session session(Properties properties) {
+    final String prefix = "mail." + urlname.getProtocol() + ".";
     try {
-      return Session.getDefaultInstance(properties);
+      pool = new TransportPool(delegate,
+          properties.getIntProperty(prefix + POOL_MAX_SIZE,
+              DEFAULT_POOL_MAX_SIZE),
+          properties.getLongProperty(prefix + POOL_MAX_WAIT,
+              DEFAULT_POOL_MAX_WAIT),
+          properties.getLongProperty(prefix + POOL_MAX_IDLE,
+              DEFAULT_POOL_MAX_IDLE),
+          properties.getLongProperty(prefix + POOL_MAX_LIFETIME,
+              DEFAULT_POOL_MAX_LIFETIME));
     }
-    catch (SecurityException ex) {
-      return Session.getInstance(properties);
+    catch (MessagingException ex) {
+      throw new IllegalArgumentException(ex.getMessage(), ex);
     }
+    rules = MessageRules.newInstance(properties, urlname.getProtocol());
+  }
+
+  protected static Session session(Properties properties) {
+    return DelegateSessionCache.getSession(properties);
+  }
+
+  /**
+   * Gets metrics for the pool of connected delegate transports.
+   * @return pool metrics
+   */
+  public TransportPoolMetrics getPoolMetrics() {
+    return pool;
   }
 
   @Override
   public void connect(String host, int port, String user, String password)
       throws MessagingException {
     super.connect("delegating transport", -1, null, null);
-    delegate.getTransport().connect();
+    pool.open();
+    try {
+      pool.release(pool.borrow(), true);
+    }
+    catch (MessagingException ex) {
+      close();
+      throw ex;
+    }
   }
 
   @Override
@@ -67,10 +123,38 @@ abstract class DelegatingTransport extends Transport {
     return true;
   }
 
+  @Override
+  public synchronized void close() throws MessagingException {
+    try {
+      pool.close();
+    }
+    finally {
+      super.close();
+    }
+  }
+
   @Override
   public void sendMessage(Message message, Address[] addresses)
       throws MessagingException {
-    delegate.getTransport().sendMessage(message, addresses);
+    addresses = MessageRules.apply(rules, message, addresses);
+    if (addresses == null) return;
+    if (!pool.isOpen()) {
+      delegate.getTransport().sendMessage(message, addresses);
+      return;
+    }
+    final TransportPool.Entry entry = pool.borrow();
+    boolean reusable = false;
+    try {
+      entry.getTransport().sendMessage(message, addresses);
+      reusable = true;
+    }
+    catch (SendFailedException ex) {
+      reusable = true;
+      throw ex;
+    }
+    finally {
+      pool.release(entry, reusable);
+    }
   }
 
 }
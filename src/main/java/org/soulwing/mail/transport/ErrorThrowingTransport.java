@@ -18,16 +18,28 @@
  */
 package org.soulwing.mail.transport;
 
-import java.util.Properties;
+import java.util.ArrayList;
+import java.util.List;
 import javax.mail.Address;
 import javax.mail.Message;
 import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
 import javax.mail.Session;
 import javax.mail.URLName;
+import javax.mail.event.TransportEvent;
 
 /**
  * A JavaMail {@link javax.mail.Transport} that throws an exception on an
  * attempt to send a message.
+ * <p>
+ * In addition to failing every message (using the {@value #DEFAULT_ERROR}
+ * property) or messages that carry an error header, the transport can
+ * inject faults at random or in patterns, as described for
+ * {@link FaultInjector}.  When one or more recipients of a message are
+ * rejected, the transport throws a {@link SendFailedException} whose
+ * address arrays describe the outcome, as an SMTP transport would.  If the
+ * {@value #SEND_PARTIAL} property is {@code true}, the message is delivered
+ * to the remaining recipients; otherwise it is not delivered at all.
  *
  * @author Carl Harris
  */
@@ -35,23 +47,85 @@ public class ErrorThrowingTransport extends DelegatingTransport {
 
   private static final String ERROR_PROVIDER = "mail.error";
   public static final String DEFAULT_ERROR = ERROR_PROVIDER + ".message";
+  public static final String SEED = ERROR_PROVIDER + ".seed";
+  public static final String FAILURE_RATE = ERROR_PROVIDER + ".failureRate";
+  public static final String BURST_LENGTH = ERROR_PROVIDER + ".burstLength";
+  public static final String RECIPIENT_FAILURE_RATE =
+      ERROR_PROVIDER + ".recipientFailureRate";
+  public static final String RECIPIENT_PATTERN =
+      ERROR_PROVIDER + ".recipientPattern";
+  public static final String OUTAGE_PERIOD = ERROR_PROVIDER + ".outagePeriod";
+  public static final String OUTAGE_DURATION =
+      ERROR_PROVIDER + ".outageDuration";
+  public static final String SEND_PARTIAL = ERROR_PROVIDER + ".sendPartial";
 
-  private final SessionProperties properties;
+  private static final Address[] NO_ADDRESSES = new Address[0];
+
+  private final String defaultError;
+  private final FaultInjector faults;
+  private final boolean sendPartial;
 
   public ErrorThrowingTransport(Session session, URLName urlname) {
+    this(session, urlname, Ticker.SYSTEM);
+  }
+
+  ErrorThrowingTransport(Session session, URLName urlname, Ticker ticker) {
     super(session, urlname);
-    properties = new SessionProperties(session);
+    final SessionProperties properties = new SessionProperties(session);
+    defaultError = properties.getProperty(DEFAULT_ERROR);
+    faults = FaultInjector.forSession(session, ticker);
+    try {
+      sendPartial = properties.getBooleanProperty(SEND_PARTIAL, false);
+    }
+    catch (MessagingException ex) {
+      throw new IllegalArgumentException(ex.getMessage(), ex);
+    }
   }
 
   @Override
   public void sendMessage(Message message, Address[] addresses)
       throws MessagingException {
     MessagingException mex = ErrorHeader.getErrorToThrow(message);
-    if (mex == null && properties.getProperty(DEFAULT_ERROR) != null) {
-      mex = new MessagingException(properties.getProperty(DEFAULT_ERROR));
+    if (mex == null && defaultError != null) {
+      mex = new MessagingException(defaultError);
+    }
+    if (mex == null && faults != null) {
+      mex = faults.nextMessageFault();
     }
     if (mex != null) throw mex;
-    super.sendMessage(message, addresses);
+    if (faults == null) {
+      super.sendMessage(message, addresses);
+      return;
+    }
+
+    final List<Address> valid = new ArrayList<>(addresses.length);
+    final List<Address> invalid = new ArrayList<>();
+    for (final Address address : addresses) {
+      if (faults.isRejected(address)) {
+        invalid.add(address);
+      }
+      else {
+        valid.add(address);
+      }
+    }
+    if (invalid.isEmpty()) {
+      super.sendMessage(message, addresses);
+      return;
+    }
+
+    final Address[] validAddresses = valid.toArray(NO_ADDRESSES);
+    final Address[] invalidAddresses = invalid.toArray(NO_ADDRESSES);
+    if (sendPartial && validAddresses.length > 0) {
+      super.sendMessage(message, validAddresses);
+      notifyTransportListeners(TransportEvent.MESSAGE_PARTIALLY_DELIVERED,
+          validAddresses, NO_ADDRESSES, invalidAddresses, message);
+      throw new SendFailedException("Invalid Addresses", null,
+          validAddresses, NO_ADDRESSES, invalidAddresses);
+    }
+    notifyTransportListeners(TransportEvent.MESSAGE_NOT_DELIVERED,
+        NO_ADDRESSES, validAddresses, invalidAddresses, message);
+    throw new SendFailedException("Invalid Addresses", null,
+        NO_ADDRESSES, validAddresses, invalidAddresses);
   }
 
 }
@@ -0,0 +1,253 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import javax.mail.Address;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.internet.InternetAddress;
+
+/**
+ * Decides which messages and recipients an {@link ErrorThrowingTransport}
+ * should fail.
+ * <p>
+ * Faults are injected in three ways, any of which may be combined:
+ * <ul>
+ * <li>Outages: the transport fails every message for {@code outageDuration}
+ *     milliseconds at the start of each {@code outagePeriod} milliseconds,
+ *     measured from the creation of the transport.</li>
+ * <li>Message failures: each message fails with probability
+ *     {@code failureRate}; when a message fails, the following
+ *     {@code burstLength - 1} messages fail as well.</li>
+ * <li>Recipient failures: a recipient is rejected if its address matches
+ *     {@code recipientPattern}, or otherwise with probability
+ *     {@code recipientFailureRate}.</li>
+ * </ul>
+ * Random choices are made using a generator that may be seeded, so that a
+ * sequence of faults can be reproduced.
+ * <p>
+ * Since {@link javax.mail.Transport#send(javax.mail.Message)} creates a new
+ * transport for each message, the state of an injector -- its random
+ * generator, the remainder of a burst, and the start of the outage schedule
+ * -- is shared by every error transport created for the same session with
+ * the same configuration.  Each session has its own injectors, so a new
+ * session starts a seeded sequence of faults and its outage schedule
+ * afresh.
+ *
+ * @author Carl Harris
+ */
+class FaultInjector {
+
+  private static final SessionLocal<ConcurrentMap<String, FaultInjector>>
+      sessionInjectors =
+          new SessionLocal<ConcurrentMap<String, FaultInjector>>() {
+            @Override
+            protected ConcurrentMap<String, FaultInjector> initialValue(
+                Session session) {
+              return new ConcurrentHashMap<>();
+            }
+          };
+
+  private final Random random;
+  private final double failureRate;
+  private final int burstLength;
+  private final double recipientFailureRate;
+  private final Pattern recipientPattern;
+  private final long outagePeriod;
+  private final long outageDuration;
+  private final Ticker clock;
+  private final long epoch;
+
+  private final AtomicInteger burstRemaining = new AtomicInteger();
+
+  /**
+   * Constructs a new instance.
+   * @param seed seed for random choices or {@code null} to use an
+   *    unpredictable seed
+   * @param failureRate probability that a message fails
+   * @param burstLength number of consecutive messages that fail when a
+   *    message fails at random
+   * @param recipientFailureRate probability that a recipient is rejected
+   * @param recipientPattern pattern for addresses of recipients that are
+   *    always rejected, or {@code null} if none
+   * @param outagePeriod interval in milliseconds between the starts of
+   *    successive outages, or 0 if there are no outages
+   * @param outageDuration length of each outage in milliseconds
+   * @param clock ticker used to time outages
+   */
+  FaultInjector(Long seed, double failureRate, int burstLength,
+      double recipientFailureRate, Pattern recipientPattern,
+      long outagePeriod, long outageDuration, Ticker clock) {
+    this.random = seed != null ? new Random(seed) : new Random();
+    this.failureRate = failureRate;
+    this.burstLength = burstLength;
+    this.recipientFailureRate = recipientFailureRate;
+    this.recipientPattern = recipientPattern;
+    this.outagePeriod = TimeUnit.MILLISECONDS.toNanos(outagePeriod);
+    this.outageDuration = TimeUnit.MILLISECONDS.toNanos(outageDuration);
+    this.clock = clock;
+    this.epoch = clock.read();
+  }
+
+  /**
+   * Gets the instance configured by the properties of a session, creating
+   * it if no transport for the session with the same configuration has done
+   * so.
+   * @param session the session of an error transport
+   * @param clock ticker used to time outages, if the instance is created
+   * @return fault injector or {@code null} if no faults are configured
+   * @throws IllegalArgumentException if a property value is not valid
+   */
+  static FaultInjector forSession(Session session, Ticker clock) {
+    try {
+      return forSession(session, new SessionProperties(session), clock);
+    }
+    catch (MessagingException ex) {
+      throw new IllegalArgumentException(ex.getMessage(), ex);
+    }
+  }
+
+  private static FaultInjector forSession(Session session,
+      SessionProperties properties, Ticker clock) throws MessagingException {
+    final String seed = properties.getProperty(ErrorThrowingTransport.SEED);
+    final double failureRate =
+        rate(properties, ErrorThrowingTransport.FAILURE_RATE);
+    final int burstLength = properties.getIntProperty(
+        ErrorThrowingTransport.BURST_LENGTH, 1);
+    final double recipientFailureRate =
+        rate(properties, ErrorThrowingTransport.RECIPIENT_FAILURE_RATE);
+    final Pattern recipientPattern = pattern(properties,
+        ErrorThrowingTransport.RECIPIENT_PATTERN);
+    final long outagePeriod = properties.getLongProperty(
+        ErrorThrowingTransport.OUTAGE_PERIOD, 0);
+    final long outageDuration = properties.getLongProperty(
+        ErrorThrowingTransport.OUTAGE_DURATION, 0);
+    if (burstLength < 1) {
+      throw new IllegalArgumentException("property "
+          + ErrorThrowingTransport.BURST_LENGTH + " must be at least one");
+    }
+    if (outagePeriod < 0 || outageDuration < 0) {
+      throw new IllegalArgumentException("outage period and duration"
+          + " must not be negative");
+    }
+    if (failureRate == 0 && recipientFailureRate == 0
+        && recipientPattern == null
+        && (outagePeriod == 0 || outageDuration == 0)) {
+      return null;
+    }
+    final Long seedValue = seed != null ?
+        properties.getLongProperty(ErrorThrowingTransport.SEED, 0) : null;
+    final String key = seedValue + "," + failureRate + "," + burstLength
+        + "," + recipientFailureRate + "," + recipientPattern
+        + "," + outagePeriod + "," + outageDuration;
+    final ConcurrentMap<String, FaultInjector> injectors =
+        sessionInjectors.get(session);
+    FaultInjector injector = injectors.get(key);
+    if (injector == null) {
+      injector = new FaultInjector(seedValue, failureRate, burstLength,
+          recipientFailureRate, recipientPattern, outagePeriod,
+          outageDuration, clock);
+      final FaultInjector existing = injectors.putIfAbsent(key, injector);
+      if (existing != null) {
+        injector = existing;
+      }
+    }
+    return injector;
+  }
+
+  private static double rate(SessionProperties properties, String name)
+      throws MessagingException {
+    final double rate = properties.getDoubleProperty(name, 0);
+    if (!(rate >= 0 && rate <= 1)) {
+      throw new IllegalArgumentException("property " + name
+          + " must be between 0 and 1");
+    }
+    return rate;
+  }
+
+  private static Pattern pattern(SessionProperties properties, String name) {
+    final String value = properties.getProperty(name);
+    if (value == null) return null;
+    try {
+      return Pattern.compile(value, Pattern.CASE_INSENSITIVE);
+    }
+    catch (PatternSyntaxException ex) {
+      throw new IllegalArgumentException("property " + name
+          + " is not a valid regular expression: " + ex.getDescription());
+    }
+  }
+
+  /**
+   * Decides whether the next message should fail.
+   * @return exception to throw for the message, or {@code null} if the
+   *    message should not fail
+   */
+  MessagingException nextMessageFault() {
+    if (isInOutage()) {
+      return new MessagingException("simulated outage");
+    }
+    if (takeBurst()) {
+      return new MessagingException("simulated failure");
+    }
+    if (failureRate > 0 && random.nextDouble() < failureRate) {
+      if (burstLength > 1) {
+        burstRemaining.set(burstLength - 1);
+      }
+      return new MessagingException("simulated failure");
+    }
+    return null;
+  }
+
+  /**
+   * Decides whether a recipient should be rejected.
+   * @param recipient the subject recipient
+   * @return {@code true} if the recipient should be rejected
+   */
+  boolean isRejected(Address recipient) {
+    if (recipientPattern != null) {
+      final String address = recipient instanceof InternetAddress ?
+          ((InternetAddress) recipient).getAddress() : recipient.toString();
+      if (recipientPattern.matcher(address).matches()) return true;
+    }
+    return recipientFailureRate > 0
+        && random.nextDouble() < recipientFailureRate;
+  }
+
+  private boolean isInOutage() {
+    if (outagePeriod == 0 || outageDuration == 0) return false;
+    return (clock.read() - epoch) % outagePeriod < outageDuration;
+  }
+
+  private boolean takeBurst() {
+    int n = burstRemaining.get();
+    while (n > 0) {
+      if (burstRemaining.compareAndSet(n, n - 1)) return true;
+      n = burstRemaining.get();
+    }
+    return false;
+  }
+
+}
@@ -0,0 +1,356 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.mail.Flags;
+import javax.mail.Folder;
+import javax.mail.FolderNotFoundException;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.MethodNotSupportedException;
+import javax.mail.ReadOnlyFolderException;
+import javax.mail.event.ConnectionEvent;
+import javax.mail.search.MessageIDTerm;
+import javax.mail.search.SearchTerm;
+
+/**
+ * A read-only folder of the messages captured by a {@link FileTransport}.
+ * <p>
+ * The default folder of a {@link FileStore} contains only the {@code INBOX}
+ * folder, which holds the captured messages.  Messages are numbered in the
+ * order in which they were written, across all of the capture's segment
+ * files.  Messages written after the folder is opened are visible when the
+ * folder next needs to count or locate messages beyond those it has already
+ * found.
+ *
+ * @author Carl Harris
+ */
+class FileFolder extends Folder {
+
+  private static final char SEPARATOR = '/';
+
+  private final String name;
+
+  private final List<CaptureFile> files = new ArrayList<>();
+  private final Map<Integer, WeakReference<Message>> messages =
+      new HashMap<>();
+
+  private boolean open;
+
+  /**
+   * Constructs a new instance.
+   * @param store the store that contains this folder
+   * @param name name of the folder, or {@code null} for the default folder
+   */
+  FileFolder(FileStore store, String name) {
+    super(store);
+    this.name = name != null && name.equalsIgnoreCase(FileStore.INBOX) ?
+        FileStore.INBOX : name;
+  }
+
+  @Override
+  public String getName() {
+    return name != null ? name : "";
+  }
+
+  @Override
+  public String getFullName() {
+    return getName();
+  }
+
+  @Override
+  public Folder getParent() throws MessagingException {
+    return name != null ? store.getDefaultFolder() : null;
+  }
+
+  @Override
+  public boolean exists() throws MessagingException {
+    if (name == null) return true;
+    return isInbox() && getFiles().length > 0;
+  }
+
+  @Override
+  public Folder[] list(String pattern) throws MessagingException {
+    if (name != null) {
+      throw new MessagingException("folder cannot contain folders");
+    }
+    return new Folder[] { store.getFolder(FileStore.INBOX) };
+  }
+
+  @Override
+  public char getSeparator() throws MessagingException {
+    return SEPARATOR;
+  }
+
+  @Override
+  public int getType() throws MessagingException {
+    return name == null ? HOLDS_FOLDERS : HOLDS_MESSAGES;
+  }
+
+  @Override
+  public boolean create(int type) throws MessagingException {
+    return false;
+  }
+
+  @Override
+  public boolean hasNewMessages() throws MessagingException {
+    return false;
+  }
+
+  @Override
+  public Folder getFolder(String name) throws MessagingException {
+    if (this.name != null) {
+      throw new MessagingException("folder cannot contain folders");
+    }
+    return store.getFolder(name);
+  }
+
+  @Override
+  public boolean delete(boolean recurse) throws MessagingException {
+    throw new MethodNotSupportedException("folder is read-only");
+  }
+
+  @Override
+  public boolean renameTo(Folder f) throws MessagingException {
+    throw new MethodNotSupportedException("folder is read-only");
+  }
+
+  @Override
+  public synchronized void open(int mode) throws MessagingException {
+    if (open) {
+      throw new IllegalStateException("folder is open");
+    }
+    if (!exists()) {
+      throw new FolderNotFoundException(this, getFullName()
+          + " does not exist");
+    }
+    if (mode != READ_ONLY) {
+      throw new ReadOnlyFolderException(this, "folder is read-only");
+    }
+    try {
+      for (final File file : getFiles()) {
+        files.add(CaptureFile.open(file));
+      }
+    }
+    catch (IOException ex) {
+      closeFiles();
+      throw new MessagingException("cannot open capture file", ex);
+    }
+    this.mode = mode;
+    this.open = true;
+    notifyConnectionListeners(ConnectionEvent.OPENED);
+  }
+
+  @Override
+  public synchronized void close(boolean expunge) throws MessagingException {
+    checkOpen();
+    closeFiles();
+    open = false;
+    notifyConnectionListeners(ConnectionEvent.CLOSED);
+  }
+
+  @Override
+  public synchronized boolean isOpen() {
+    return open;
+  }
+
+  @Override
+  public Flags getPermanentFlags() {
+    return new Flags();
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * When every capture file has an index, the count is determined from the
+   * indexes alone.  Otherwise, capture files without an index are scanned
+   * for messages that have not yet been located.
+   */
+  @Override
+  public synchronized int getMessageCount() throws MessagingException {
+    if (!open) return -1;
+    try {
+      refreshFiles();
+      int count = 0;
+      for (final CaptureFile file : files) {
+        count += file.count();
+      }
+      return count;
+    }
+    catch (IOException ex) {
+      throw new MessagingException("error reading capture file", ex);
+    }
+  }
+
+  @Override
+  public synchronized Message getMessage(int msgnum)
+      throws MessagingException {
+    checkOpen();
+    if (msgnum < 1) {
+      throw new IndexOutOfBoundsException("message " + msgnum);
+    }
+    final WeakReference<Message> ref = messages.get(msgnum);
+    Message message = ref != null ? ref.get() : null;
+    if (message == null) {
+      message = readMessage(msgnum);
+      messages.put(msgnum, new WeakReference<>(message));
+    }
+    return message;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * When the search term is a {@link MessageIDTerm} and every capture file
+   * has an index, only messages whose indexed {@code Message-ID} matches are
+   * read from the capture.
+   */
+  @Override
+  public synchronized Message[] search(SearchTerm term)
+      throws MessagingException {
+    checkOpen();
+    if (!(term instanceof MessageIDTerm) || !isIndexed()) {
+      return super.search(term);
+    }
+    final String pattern = ((MessageIDTerm) term).getPattern();
+    final List<Message> matches = new ArrayList<>();
+    try {
+      int msgnum = 0;
+      for (final CaptureFile file : files) {
+        final int count = file.count();
+        for (int i = 0; i < count; i++) {
+          msgnum++;
+          final String messageId = file.getEntry(i).getMessageId();
+          if (messageId == null) continue;
+          final boolean truncated = messageId.getBytes(MessageIndex.UTF8)
+              .length >= MessageIndex.MAX_STRING_SIZE - 3;
+          if (!messageId.contains(pattern) && !truncated) continue;
+          final Message message = getMessage(msgnum);
+          if (term.match(message)) {
+            matches.add(message);
+          }
+        }
+      }
+    }
+    catch (IOException ex) {
+      throw new MessagingException("error reading capture file", ex);
+    }
+    return matches.toArray(new Message[matches.size()]);
+  }
+
+  @Override
+  public void appendMessages(Message[] msgs) throws MessagingException {
+    throw new MethodNotSupportedException("folder is read-only");
+  }
+
+  @Override
+  public Message[] expunge() throws MessagingException {
+    throw new MethodNotSupportedException("folder is read-only");
+  }
+
+  private Message readMessage(int msgnum) throws MessagingException {
+    try {
+      int base = 0;
+      for (final CaptureFile file : files) {
+        final int index = msgnum - 1 - base;
+        final int count = file.ensure(index + 1);
+        if (index < count) {
+          final MessageIndex.Entry entry = file.getEntry(index);
+          return new CapturedMessage(this, file.newStream(index), msgnum,
+              entry != null ? new Date(entry.getTimestamp()) : null);
+        }
+        base += count;
+      }
+      if (refreshFiles()) {
+        return readMessage(msgnum);
+      }
+    }
+    catch (IOException ex) {
+      throw new MessagingException("error reading capture file", ex);
+    }
+    throw new IndexOutOfBoundsException("message " + msgnum);
+  }
+
+  /**
+   * Opens any segment files that have been started since the folder was
+   * opened.
+   * @return {@code true} if any files were opened
+   */
+  private boolean refreshFiles() throws MessagingException, IOException {
+    final File[] current = getFiles();
+    boolean added = false;
+    for (final File file : current) {
+      if (!isOpen(file)) {
+        files.add(CaptureFile.open(file));
+        added = true;
+      }
+    }
+    return added;
+  }
+
+  private boolean isOpen(File file) {
+    for (final CaptureFile captureFile : files) {
+      if (captureFile.getFile().equals(file)) return true;
+    }
+    return false;
+  }
+
+  private boolean isIndexed() {
+    for (final CaptureFile file : files) {
+      if (!file.isIndexed()) return false;
+    }
+    return true;
+  }
+
+  private boolean isInbox() {
+    return FileStore.INBOX.equals(name);
+  }
+
+  private File[] getFiles() throws MessagingException {
+    return ((FileStore) store).getFiles();
+  }
+
+  private void checkOpen() {
+    if (!open) {
+      throw new IllegalStateException("folder is not open");
+    }
+  }
+
+  private void closeFiles() {
+    for (final CaptureFile file : files) {
+      try {
+        file.close();
+      }
+      catch (IOException ex) {
+        ex.printStackTrace(System.err);
+      }
+    }
+    files.clear();
+    messages.clear();
+  }
+
+}
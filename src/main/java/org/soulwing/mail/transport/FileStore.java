@@ -0,0 +1,129 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import java.io.File;
+import javax.mail.Folder;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Store;
+import javax.mail.URLName;
+
+/**
+ * A read-only {@link Store} for the messages captured by a
+ * {@link FileTransport}.
+ * <p>
+ * The store is registered for the {@code filestore} protocol, since JavaMail
+ * associates each protocol name with a single provider and the {@code file}
+ * protocol names the transport.
+ * <p>
+ * The store is configured using the same {@value FileTransport#FILE_PATH}
+ * property as the transport, so a single session can both send messages
+ * and read them back.  The captured messages are presented in the
+ * {@code INBOX} folder, in the order in which they were written; when the
+ * transport writes segment files, the folder presents the messages in all of
+ * the segments.
+ * <p>
+ * Capture files are memory-mapped, and a {@code MimeMessage} is constructed
+ * only when a message is retrieved from the folder; its content remains in
+ * the mapped file rather than on the heap.  When a capture file has a
+ * {@link MessageIndex}, the folder uses it to locate messages and to count
+ * them without reading the file.  The maildir layout is not supported.
+ *
+ * @author Carl Harris
+ */
+public class FileStore extends Store {
+
+  static final String INBOX = "INBOX";
+
+  private final SessionProperties properties;
+
+  /**
+   * Constructs a new instance.
+   * @param session session to associate with this store
+   * @param urlname url name to associate with this store
+   */
+  public FileStore(Session session, URLName urlname) {
+    super(session, urlname);
+    this.properties = new SessionProperties(session);
+  }
+
+  @Override
+  public synchronized void connect(String host, int port, String user,
+      String password) throws MessagingException {
+    super.connect(properties.getRequiredProperty(
+        FileTransport.FILE_PATH), -1, null, null);
+  }
+
+  @Override
+  protected boolean protocolConnect(String host, int port, String user,
+      String password) throws MessagingException {
+    properties.getRequiredProperty(FileTransport.FILE_PATH);
+    final String layout = properties.getProperty(FileTransport.LAYOUT);
+    if (layout != null && layout.trim().equalsIgnoreCase("maildir")) {
+      throw new MessagingException("the maildir layout is not supported"
+          + " by the file store");
+    }
+    return true;
+  }
+
+  @Override
+  public Folder getDefaultFolder() throws MessagingException {
+    checkConnected();
+    return new FileFolder(this, null);
+  }
+
+  @Override
+  public Folder getFolder(String name) throws MessagingException {
+    checkConnected();
+    return new FileFolder(this, name);
+  }
+
+  @Override
+  public Folder getFolder(URLName url) throws MessagingException {
+    return getFolder(url.getFile());
+  }
+
+  /**
+   * Gets the capture files for this store.
+   * @return the file named by the configured path if it exists, otherwise
+   *    the segment files for the path in the order in which they were
+   *    written
+   * @throws MessagingException if the path is not configured
+   */
+  File[] getFiles() throws MessagingException {
+    final String path = properties.getRequiredProperty(
+        FileTransport.FILE_PATH);
+    final File file = new File(path);
+    if (file.isFile()) return new File[] { file };
+    return SegmentedMessageWriter.segments(path);
+  }
+
+  private void checkConnected() {
+    if (!isConnected()) {
+      throw new IllegalStateException("not connected");
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "file:" + properties.getProperty(FileTransport.FILE_PATH);
+  }
+
+}
@@ -18,11 +18,7 @@
  */
 package org.soulwing.mail.transport;
 
-import java.io.ByteArrayOutputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
 import javax.mail.Address;
 import javax.mail.Message;
 import javax.mail.MessagingException;
@@ -33,6 +29,55 @@ import javax.mail.event.TransportEvent;
 
 /**
  * A {@link Transport} that appends messages to a file.
+ * <p>
+ * While the transport is connected, it holds a single channel open on the
+ * target file, so that sending a message costs only the write itself.  When
+ * a message is sent without first connecting the transport, the file is
+ * opened and closed for each message.
+ * <p>
+ * When the {@value #ASYNC} property is set to {@code true}, a connected
+ * transport queues sent messages for a single writer thread, which writes
+ * all waiting messages and then flushes the file once for the whole batch.
+ * Sending threads do not contend with each other for the file, and each
+ * returns once its message has been flushed.
+ * <p>
+ * When either of the {@value #SEGMENT_BYTES} or {@value #SEGMENT_MILLIS}
+ * properties is set, messages are written to a series of segment files
+ * named for the configured path rather than to the path itself.  Each
+ * segment's name is the configured path, followed by the time at which the
+ * segment was started (in UTC) and a sequence number; e.g.
+ * {@code mail.txt.20261018T143000123Z.000001}.
+ * <p>
+ * When the {@value #LAYOUT} property is set to {@code maildir}, the
+ * configured path names a directory, and each message is written to its own
+ * file in Maildir style: first to a uniquely named file in the {@code tmp}
+ * subdirectory and then renamed atomically into the {@code new} subdirectory.
+ * A connected transport in this layout lets any number of threads send
+ * messages concurrently.
+ * <p>
+ * When the {@value #COMPRESSION} property is set to {@code gzip} or
+ * {@code deflate}, message data is compressed in independently decodable
+ * blocks.  By default each block holds a single message; when the
+ * {@value #COMPRESSION_BLOCK} property is set to {@code batch}, each block
+ * holds all of the messages that were committed together.  A file of GZIP
+ * blocks is itself a valid GZIP file.
+ * <p>
+ * When the {@value #INDEX} property is set to {@code true}, the transport
+ * maintains a {@link MessageIndex} alongside each file it writes, allowing
+ * tools to count the messages in a file or locate a particular message
+ * without reading the file itself.
+ * <p>
+ * Messages may be failed, delayed, or dropped by rules configured with
+ * {@code mail.file.rules} properties, as described for {@link MessageRules}.
+ * <p>
+ * The transport reads and validates its configuration properties when it
+ * connects, so that a misconfigured transport fails to connect rather than
+ * failing to send.  A transport that sends without connecting reads its
+ * configuration when it sends its first message.  In either case, the
+ * configuration is not consulted again until the transport next connects;
+ * to apply changes to the session properties, close and reconnect the
+ * transport.
+ *
  * @author Carl Harris
  */
 public class FileTransport extends Transport {
@@ -40,12 +85,31 @@ public class FileTransport extends Transport {
   private static final String FILE_PROVIDER = "mail.file";
   public static final String FILE_PATH = FILE_PROVIDER + ".path";
   public static final String APPEND = FILE_PROVIDER + ".append";
+  public static final String FLUSH = FILE_PROVIDER + ".flush";
+  public static final String SYNC = FILE_PROVIDER + ".sync";
+  public static final String ASYNC = FILE_PROVIDER + ".async";
+  public static final String QUEUE_CAPACITY = FILE_PROVIDER + ".queueCapacity";
+  public static final String SEGMENT_BYTES = FILE_PROVIDER + ".segmentBytes";
+  public static final String SEGMENT_MILLIS = FILE_PROVIDER + ".segmentMillis";
+  public static final String MAX_SEGMENTS = FILE_PROVIDER + ".maxSegments";
+  public static final String LAYOUT = FILE_PROVIDER + ".layout";
+  public static final String COMPRESSION = FILE_PROVIDER + ".compression";
+  public static final String COMPRESSION_LEVEL =
+      FILE_PROVIDER + ".compressionLevel";
+  public static final String COMPRESSION_BLOCK =
+      FILE_PROVIDER + ".compressionBlock";
+  public static final String INDEX = FILE_PROVIDER + ".index";
 
-  private final int CR = '\r';
-  private final int LF = '\n';
+  private static final Address[] NO_ADDRESSES = new Address[0];
 
   private final SessionProperties properties;
 
+  private MessageWriter writer;
+
+  private volatile FileTransportConfig config;
+  private volatile GroupCommitWriter groupWriter;
+  private volatile MessageWriter concurrentWriter;
+
   /**
    * Constructs a new instance.
    * @param session session to associate with this transport
@@ -66,47 +130,95 @@ public class FileTransport extends Transport {
   @Override
   protected boolean protocolConnect(String host, int port, String user,
       String password) throws MessagingException {
-    String path = properties.getRequiredProperty(FILE_PATH);
-    boolean append = properties.getBooleanProperty(APPEND, true);
-    try (OutputStream outputStream = new FileOutputStream(path, append)) {
-      outputStream.flush();
+    FileTransportConfig config = FileTransportConfig.newInstance(properties);
+    writer = openWriter(config);
+    this.config = config;
+    if (config.getLayout() == FileTransportConfig.Layout.MAILDIR) {
+      concurrentWriter = writer;
     }
-    catch (IOException ex) {
-      throw new MessagingException(
-          "cannot open or create file at path " + path, ex);
+    else if (config.isAsync()) {
+      groupWriter = new GroupCommitWriter(writer, config.getQueueCapacity(),
+          "file-transport-writer:" + config.getPath());
     }
     return true;
   }
 
   @Override
-  public synchronized void sendMessage(Message message, Address[] recipients)
+  public synchronized void close() throws MessagingException {
+    try {
+      closeWriter();
+    }
+    finally {
+      super.close();
+    }
+  }
+
+  @Override
+  public void sendMessage(Message message, Address[] recipients)
       throws MessagingException {
     MessagingException mex = ErrorHeader.getErrorToThrow(message);
     if (mex != null) throw mex;
 
-    String path = properties.getRequiredProperty(FILE_PATH);
-    boolean append = properties.getBooleanProperty(APPEND, true);
-    try {
-      writeMessage(message, path, append);
+    final Address[] routed = MessageRules.apply(getConfig().getRules(),
+        message, recipients);
+    if (routed == null) {
       notifyTransportListeners(TransportEvent.MESSAGE_DELIVERED,
-          recipients, new Address[0], new Address[0], message);
+          recipients, NO_ADDRESSES, NO_ADDRESSES, message);
+      return;
+    }
+
+    final GroupCommitWriter groupWriter = this.groupWriter;
+    final MessageWriter concurrentWriter = this.concurrentWriter;
+    if (groupWriter != null) {
+      groupWriter.write(message);
+    }
+    else if (concurrentWriter != null) {
+      writeMessage(message, concurrentWriter);
+    }
+    else {
+      writeMessage(message);
+    }
+    notifyTransportListeners(TransportEvent.MESSAGE_DELIVERED,
+        routed, NO_ADDRESSES, NO_ADDRESSES, message);
+  }
+
+  private synchronized void writeMessage(Message message)
+      throws MessagingException {
+    try {
+      if (writer != null) {
+        writer.write(message);
+        if (config.isCommitEachMessage()) {
+          writer.commit(1);
+        }
+      }
+      else {
+        writeAndClose(message, openWriter(getConfig()));
+      }
     }
     catch (IOException ex) {
       throw new MessagingException("error writing message to file", ex);
     }
   }
 
-  private void writeMessage(Message message, String path, boolean append)
-      throws MessagingException, IOException, FileNotFoundException {
+  private void writeMessage(Message message, MessageWriter writer)
+      throws MessagingException {
+    try {
+      writer.write(message);
+    }
+    catch (IOException ex) {
+      throw new MessagingException("error writing message to file", ex);
+    }
+  }
 
-    byte[] messageData = createMessageData(message);
-    OutputStream outputStream = new FileOutputStream(path, append);
+  private void writeAndClose(Message message, MessageWriter writer)
+      throws MessagingException, IOException {
     try {
-      writeMessageData(messageData, outputStream);
+      writer.write(message);
+      writer.commit(1);
     }
     finally {
       try {
-        outputStream.close();
+        writer.close();
       }
       catch (IOException ex) {
         ex.printStackTrace(System.err);
@@ -114,24 +226,62 @@ public class FileTransport extends Transport {
     }
   }
 
-  private byte[] createMessageData(Message message) throws MessagingException,
-      IOException {
-    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-    message.writeTo(outputStream);
-    outputStream.close();
-    return outputStream.toByteArray();
+  /**
+   * Gets the configuration snapshot, creating it if the transport has not
+   * yet been connected or used to send a message.
+   * @return configuration snapshot
+   * @throws MessagingException if the configuration is not valid
+   */
+  private FileTransportConfig getConfig() throws MessagingException {
+    FileTransportConfig config = this.config;
+    if (config == null) {
+      config = FileTransportConfig.newInstance(properties);
+      this.config = config;
+    }
+    return config;
+  }
+
+  private static MessageWriter openWriter(FileTransportConfig config)
+      throws MessagingException {
+    final String path = config.getPath();
+    try {
+      if (config.getLayout() == FileTransportConfig.Layout.MAILDIR) {
+        return MaildirMessageWriter.open(path, config.getOptions());
+      }
+      if (config.isSegmented()) {
+        return SegmentedMessageWriter.open(path, config.getSegmentBytes(),
+            config.getSegmentMillis(), config.getMaxSegments(),
+            config.getOptions());
+      }
+      return MessageFileWriter.open(path, config.isAppend(),
+          config.getOptions());
+    }
+    catch (IOException ex) {
+      throw new MessagingException(
+          "cannot open or create file at path " + path, ex);
+    }
   }
 
-  private void writeMessageData(byte[] messageData, OutputStream outputStream)
-      throws IOException {
-    if (messageData.length == 0) return;
-    outputStream.write(messageData);
-    if (messageData[messageData.length - 1] != LF) {
-      outputStream.write(CR);
-      outputStream.write(LF);
+  private void closeWriter() throws MessagingException {
+    if (writer == null) return;
+    try {
+      if (groupWriter != null) {
+        groupWriter.close();
+      }
+      writer.close();
+    }
+    catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new MessagingException("interrupted while closing file", ex);
+    }
+    catch (IOException ex) {
+      throw new MessagingException("error closing file", ex);
+    }
+    finally {
+      groupWriter = null;
+      concurrentWriter = null;
+      writer = null;
     }
-    outputStream.write(CR);
-    outputStream.write(LF);
   }
 
   @Override
@@ -0,0 +1,265 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import java.util.Locale;
+import java.util.zip.Deflater;
+import javax.mail.MessagingException;
+
+/**
+ * An immutable snapshot of the configuration of a {@link FileTransport}.
+ * <p>
+ * A snapshot is built from the session properties once, when the transport
+ * connects (or on the first send, for a transport that is not connected),
+ * and every property is parsed and validated as the snapshot is built.
+ * Sending a message consults only the snapshot.
+ *
+ * @author Carl Harris
+ */
+final class FileTransportConfig {
+
+  private static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+  /**
+   * Layouts for messages written by the transport.
+   */
+  enum Layout {
+
+    /** all messages are appended to a single file (or series of segments) */
+    FILE,
+
+    /** each message is written to its own file in a Maildir directory */
+    MAILDIR;
+
+    static Layout forName(String name) throws MessagingException {
+      if (name == null) return FILE;
+      try {
+        return valueOf(name.trim().toUpperCase(Locale.ENGLISH));
+      }
+      catch (IllegalArgumentException ex) {
+        throw new MessagingException("property " + FileTransport.LAYOUT
+            + " allows either 'file' or 'maildir'");
+      }
+    }
+
+  }
+
+  /**
+   * Policies for flushing buffered message data to the file while the
+   * transport is connected.
+   */
+  enum FlushPolicy {
+
+    /** flush after each message is written */
+    MESSAGE,
+
+    /** flush only when the buffer is full or the transport is closed */
+    BUFFER;
+
+    static FlushPolicy forName(String name) throws MessagingException {
+      if (name == null) return MESSAGE;
+      try {
+        return valueOf(name.trim().toUpperCase(Locale.ENGLISH));
+      }
+      catch (IllegalArgumentException ex) {
+        throw new MessagingException("property " + FileTransport.FLUSH
+            + " allows either 'message' or 'buffer'");
+      }
+    }
+
+  }
+
+  private final String path;
+  private final boolean append;
+  private final FlushPolicy flushPolicy;
+  private final Layout layout;
+  private final boolean async;
+  private final int queueCapacity;
+  private final long segmentBytes;
+  private final long segmentMillis;
+  private final int maxSegments;
+  private final MessageFileOptions options;
+  private final MessageRules rules;
+
+  private FileTransportConfig(String path, boolean append,
+      FlushPolicy flushPolicy, Layout layout, boolean async,
+      int queueCapacity, long segmentBytes, long segmentMillis,
+      int maxSegments, MessageFileOptions options, MessageRules rules) {
+    this.path = path;
+    this.append = append;
+    this.flushPolicy = flushPolicy;
+    this.layout = layout;
+    this.async = async;
+    this.queueCapacity = queueCapacity;
+    this.segmentBytes = segmentBytes;
+    this.segmentMillis = segmentMillis;
+    this.maxSegments = maxSegments;
+    this.options = options;
+    this.rules = rules;
+  }
+
+  /**
+   * Creates a snapshot of the configuration in the given properties.
+   * @param properties session properties
+   * @return configuration snapshot
+   * @throws MessagingException if a required property is missing, or if any
+   *    property has an invalid value or conflicts with another property
+   */
+  static FileTransportConfig newInstance(SessionProperties properties)
+      throws MessagingException {
+    String path = properties.getRequiredProperty(FileTransport.FILE_PATH);
+    boolean append = properties.getBooleanProperty(FileTransport.APPEND, true);
+    FlushPolicy flushPolicy = FlushPolicy.forName(
+        properties.getProperty(FileTransport.FLUSH));
+    Layout layout = Layout.forName(
+        properties.getProperty(FileTransport.LAYOUT));
+    boolean async = properties.getBooleanProperty(FileTransport.ASYNC, false);
+    int queueCapacity = properties.getIntProperty(
+        FileTransport.QUEUE_CAPACITY, DEFAULT_QUEUE_CAPACITY);
+    long segmentBytes = properties.getLongProperty(
+        FileTransport.SEGMENT_BYTES, 0);
+    long segmentMillis = properties.getLongProperty(
+        FileTransport.SEGMENT_MILLIS, 0);
+    int maxSegments = properties.getIntProperty(FileTransport.MAX_SEGMENTS, 0);
+    MessageFileOptions options = newOptions(properties);
+
+    if (queueCapacity <= 0) {
+      throw new MessagingException("property " + FileTransport.QUEUE_CAPACITY
+          + " must be greater than zero");
+    }
+    if (layout == Layout.MAILDIR) {
+      if (async) {
+        throw new MessagingException("property " + FileTransport.ASYNC
+            + " is not supported with the maildir layout");
+      }
+      if (segmentBytes > 0 || segmentMillis > 0) {
+        throw new MessagingException("segment properties are not supported "
+            + "with the maildir layout");
+      }
+      if (options.isIndexed()) {
+        throw new MessagingException("property " + FileTransport.INDEX
+            + " is not supported with the maildir layout");
+      }
+    }
+    final MessageRules rules;
+    try {
+      rules = MessageRules.newInstance(properties, "file");
+    }
+    catch (IllegalArgumentException ex) {
+      throw new MessagingException(ex.getMessage(), ex);
+    }
+    return new FileTransportConfig(path, append, flushPolicy, layout, async,
+        queueCapacity, segmentBytes, segmentMillis, maxSegments, options,
+        rules);
+  }
+
+  private static MessageFileOptions newOptions(SessionProperties properties)
+      throws MessagingException {
+    SyncPolicy syncPolicy = SyncPolicy.forName(FileTransport.SYNC,
+        properties.getProperty(FileTransport.SYNC));
+    Compression compression = Compression.forName(FileTransport.COMPRESSION,
+        properties.getProperty(FileTransport.COMPRESSION));
+    int compressionLevel = properties.getIntProperty(
+        FileTransport.COMPRESSION_LEVEL, Deflater.DEFAULT_COMPRESSION);
+    if (compressionLevel < Deflater.DEFAULT_COMPRESSION
+        || compressionLevel > Deflater.BEST_COMPRESSION) {
+      throw new MessagingException("property "
+          + FileTransport.COMPRESSION_LEVEL + " must be in the range 0 to 9");
+    }
+    String compressionBlock = properties.getProperty(
+        FileTransport.COMPRESSION_BLOCK);
+    if (compressionBlock != null) {
+      compressionBlock = compressionBlock.trim().toLowerCase(Locale.ENGLISH);
+      if (!"message".equals(compressionBlock)
+          && !"batch".equals(compressionBlock)) {
+        throw new MessagingException("property "
+            + FileTransport.COMPRESSION_BLOCK
+            + " allows either 'message' or 'batch'");
+      }
+    }
+    boolean indexed = properties.getBooleanProperty(FileTransport.INDEX,
+        false);
+    return new MessageFileOptions(syncPolicy, compression, compressionLevel,
+        "batch".equals(compressionBlock), indexed);
+  }
+
+  String getPath() {
+    return path;
+  }
+
+  boolean isAppend() {
+    return append;
+  }
+
+  FlushPolicy getFlushPolicy() {
+    return flushPolicy;
+  }
+
+  Layout getLayout() {
+    return layout;
+  }
+
+  boolean isAsync() {
+    return async;
+  }
+
+  int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  long getSegmentBytes() {
+    return segmentBytes;
+  }
+
+  long getSegmentMillis() {
+    return segmentMillis;
+  }
+
+  int getMaxSegments() {
+    return maxSegments;
+  }
+
+  boolean isSegmented() {
+    return segmentBytes > 0 || segmentMillis > 0;
+  }
+
+  MessageFileOptions getOptions() {
+    return options;
+  }
+
+  /**
+   * Gets the rules that decide what happens to each message.
+   * @return rules or {@code null} if none are configured
+   */
+  MessageRules getRules() {
+    return rules;
+  }
+
+  /**
+   * Tests whether a connected transport should commit each message as soon
+   * as it is written.
+   * @return {@code true} if either the flush policy or the sync policy
+   *    requires each message to be committed
+   */
+  boolean isCommitEachMessage() {
+    return flushPolicy == FlushPolicy.MESSAGE
+        || options.getSyncPolicy().getMode() != SyncPolicy.Mode.NONE;
+  }
+
+}
@@ -18,6 +18,15 @@
  */
 package org.soulwing.mail.transport;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
@@ -36,6 +45,35 @@ import javax.naming.NamingException;
  * A {@link Transport} that delivers mail to a configurable envelope
  * recipient, ignoring any other envelope recipients.  Delivery is delegated
  * to another {@link Transport}.
+ * <p>
+ * The recipient addresses are parsed from the {@value #ADDRESS} property
+ * once for each session, and the result is shared by every transport
+ * created for the session.  Before each message is sent, the property is
+ * compared with the value that was parsed, and it is parsed again only if
+ * it has changed.  The addresses are also checked when the transport
+ * connects, so that a transport without a valid recipient fails to connect
+ * rather than failing to send.  Each message is passed to the delegate with
+ * its own copy of the array of cached addresses, so that a delegate that
+ * modifies the array does not affect other messages.
+ * <p>
+ * The delegate transport is resolved when this transport is first used and
+ * is kept for the life of this transport; a change to the
+ * {@value #DELEGATE} property applies to transports created after it.
+ * <p>
+ * Every operation is passed directly to the delegate transport without
+ * synchronizing on this transport, so any number of threads may share an
+ * instance; the delegate is responsible for its own thread safety.
+ * <p>
+ * The delegate session is located using the {@link JndiObjectLocator} named
+ * by the {@value #LOCATOR_CLASS} property, or if it is not set, the first
+ * locator registered as a {@link ServiceLoader service provider}; e.g.
+ * {@link RegistryObjectLocator}.  If neither is available, the session is
+ * located using JNDI, and the result of each lookup is cached for all
+ * transports.  A session that was found is looked up again after
+ * {@value #LOOKUP_TTL} milliseconds; a name that was not found is looked up
+ * again after {@value #LOOKUP_MISS_TTL} milliseconds.  Use
+ * {@link #invalidateLookup(String)} or {@link #invalidateLookups()} to
+ * discard cached results immediately; e.g. after rebinding a session.
  *
  * @author Carl Harris
  */
@@ -51,8 +89,28 @@ public class FixedRecipientTransport extends Transport {
   public static final String DELEGATE = PREFIX + ".delegate";
   public static final String ADDRESS = PREFIX + ".address";
   public static final String LOCATOR_CLASS = PREFIX + ".locatorClass";
+  public static final String LOOKUP_TTL = PREFIX + ".lookupTtl";
+  public static final String LOOKUP_MISS_TTL = PREFIX + ".lookupMissTtl";
+
+  private static final JndiObjectLocator NO_LOCATOR =
+      new RegistryObjectLocator();
+
+  private static final ConcurrentMap<LoaderKey, Reference<JndiObjectLocator>>
+      discoveredLocators = new ConcurrentHashMap<>();
+
+  private static final ReferenceQueue<ClassLoader> collectedLoaders =
+      new ReferenceQueue<>();
+
+  private static final SessionLocal<AtomicReference<Recipients>>
+      sessionRecipients = new SessionLocal<AtomicReference<Recipients>>() {
+        @Override
+        protected AtomicReference<Recipients> initialValue(Session session) {
+          return new AtomicReference<>();
+        }
+      };
 
   private final SessionProperties properties;
+  private final AtomicReference<Recipients> recipients;
 
   private final Lock lock = new ReentrantLock();
   private final JndiObjectLocator locator;
@@ -67,13 +125,25 @@ public class FixedRecipientTransport extends Transport {
   public FixedRecipientTransport(Session session, URLName urlname) {
     super(session, urlname);
     this.properties = new SessionProperties(session);
+    this.recipients = sessionRecipients.get(session);
     this.locator = newLocator(properties);
   }
 
   private static JndiObjectLocator newLocator(SessionProperties properties) {
     String locatorClassName = properties.getProperty(LOCATOR_CLASS);
     if (locatorClassName == null) {
-      return JdkJndiObjectLocator.getInstance();
+      final JndiObjectLocator locator = discoverLocator(getClassLoader());
+      if (locator != null) return locator;
+      try {
+        return JdkJndiObjectLocator.getInstance(
+            properties.getLongProperty(LOOKUP_TTL,
+                JdkJndiObjectLocator.DEFAULT_TTL),
+            properties.getLongProperty(LOOKUP_MISS_TTL,
+                JdkJndiObjectLocator.DEFAULT_MISS_TTL));
+      }
+      catch (MessagingException ex) {
+        throw new IllegalArgumentException(ex.getMessage(), ex);
+      }
     }
     try {
       Class<?> locatorClass = getClassLoader().loadClass(locatorClassName);
@@ -93,6 +163,59 @@ public class FixedRecipientTransport extends Transport {
     }
   }
 
+  /**
+   * Finds the first {@link JndiObjectLocator} service provider visible to
+   * the given class loader.
+   * <p>
+   * The result for each class loader is remembered, so that the service
+   * configuration files are read only once rather than each time a transport
+   * is created.  Remembered results are read without locking; threads that
+   * discover the locator for the same class loader at the same time may
+   * each read the configuration files, and the last result is remembered.
+   * Neither a class loader nor its locator is kept reachable by this cache.
+   * @param classLoader the class loader to search
+   * @return locator or {@code null} if no provider is registered
+   */
+  static JndiObjectLocator discoverLocator(ClassLoader classLoader) {
+    removeCollectedLoaders();
+    final Reference<JndiObjectLocator> ref =
+        discoveredLocators.get(new LoaderKey(classLoader, null));
+    JndiObjectLocator locator = ref != null ? ref.get() : null;
+    if (locator == null) {
+      locator = NO_LOCATOR;
+      final Iterator<JndiObjectLocator> i =
+          ServiceLoader.load(JndiObjectLocator.class, classLoader).iterator();
+      if (i.hasNext()) {
+        locator = i.next();
+      }
+      discoveredLocators.put(new LoaderKey(classLoader, collectedLoaders),
+          new SoftReference<>(locator));
+    }
+    return locator != NO_LOCATOR ? locator : null;
+  }
+
+  private static void removeCollectedLoaders() {
+    Reference<? extends ClassLoader> ref;
+    while ((ref = collectedLoaders.poll()) != null) {
+      discoveredLocators.remove(ref);
+    }
+  }
+
+  /**
+   * Discards the cached result of a JNDI lookup for a delegate session.
+   * @param delegateName JNDI name of the delegate session
+   */
+  public static void invalidateLookup(String delegateName) {
+    JdkJndiObjectLocator.getInstance().invalidate(delegateName);
+  }
+
+  /**
+   * Discards the cached results of all JNDI lookups for delegate sessions.
+   */
+  public static void invalidateLookups() {
+    JdkJndiObjectLocator.getInstance().invalidateAll();
+  }
+
   private static ClassLoader getClassLoader() {
     ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
     if (classLoader == null) {
@@ -103,28 +226,32 @@ public class FixedRecipientTransport extends Transport {
 
   @Override
   public void connect() throws MessagingException {
+    getAddresses();
     getDelegate().connect();
   }
 
   @Override
   public void connect(String host, String user, String password)
       throws MessagingException {
+    getAddresses();
     getDelegate().connect(host, user, password);
   }
 
   @Override
   public void connect(String user, String password) throws MessagingException {
+    getAddresses();
     getDelegate().connect(user, password);
   }
 
   @Override
-  public synchronized void connect(String host, int port, String user,
+  public void connect(String host, int port, String user,
       String password) throws MessagingException {
+    getAddresses();
     getDelegate().connect(host, port, user, password);
   }
 
   @Override
-  public synchronized boolean isConnected() {
+  public boolean isConnected() {
     try {
       return getDelegate().isConnected();
     }
@@ -134,7 +261,7 @@ public class FixedRecipientTransport extends Transport {
   }
 
   @Override
-  public synchronized void close() throws MessagingException {
+  public void close() throws MessagingException {
     getDelegate().close();
   }
 
@@ -159,7 +286,7 @@ public class FixedRecipientTransport extends Transport {
   }
 
   @Override
-  public synchronized void addTransportListener(TransportListener l) {
+  public void addTransportListener(TransportListener l) {
     try {
       getDelegate().addTransportListener(l);
     }
@@ -169,7 +296,7 @@ public class FixedRecipientTransport extends Transport {
   }
 
   @Override
-  public synchronized void removeTransportListener(TransportListener l) {
+  public void removeTransportListener(TransportListener l) {
     try {
       getDelegate().removeTransportListener(l);
     }
@@ -181,11 +308,11 @@ public class FixedRecipientTransport extends Transport {
   @Override
   public void sendMessage(Message message, Address[] addresses)
       throws MessagingException {
-    getDelegate().sendMessage(message,
-        addresses(properties.getRequiredProperty(ADDRESS)));
+    getDelegate().sendMessage(message, getAddresses().clone());
   }
 
-  private Address[] addresses(String address) throws MessagingException {
+  private static Address[] addresses(String address)
+      throws MessagingException {
     Address[] addresses = new Address[0];
     if (address != null && !address.isEmpty()) {
       addresses = InternetAddress.parse(address, false);
@@ -196,28 +323,57 @@ public class FixedRecipientTransport extends Transport {
     }
     return addresses;
   }
- 
+
+  /**
+   * Gets the recipient addresses, parsing the {@value #ADDRESS} property if
+   * it has changed since it was last parsed for this session.
+   * @return recipient addresses; the returned array is shared and must not
+   *    be modified
+   * @throws MessagingException if the property does not specify at least
+   *    one valid address
+   */
+  private Address[] getAddresses() throws MessagingException {
+    final String address = properties.getRequiredProperty(ADDRESS);
+    Recipients recipients = this.recipients.get();
+    if (recipients == null || !recipients.address.equals(address)) {
+      recipients = new Recipients(address, addresses(address));
+      this.recipients.set(recipients);
+    }
+    return recipients.addresses;
+  }
+
+  /**
+   * Gets the delegate transport, resolving it on first use.
+   * <p>
+   * Once the delegate has been resolved, this method reads a single volatile
+   * field and takes no lock, so that threads sharing this transport do not
+   * contend with each other to reach the delegate.
+   * @return delegate transport
+   * @throws MessagingException if the delegate cannot be resolved
+   */
   private Transport getDelegate() throws MessagingException {
-    if (delegate == null) {
-      lock.lock();
-      try {
-        if (delegate == null) {
-          final String delegateName = properties.getRequiredProperty(DELEGATE);
-          try {
-            final Session session = locateSession(delegateName);
-            delegate = session.getTransport();
-          }
-          catch (NamingException ex) {
-            throw new MessagingException("lookup for " + delegateName
-                + " failed", ex);
-          }
+    Transport delegate = this.delegate;
+    if (delegate != null) return delegate;
+    lock.lock();
+    try {
+      delegate = this.delegate;
+      if (delegate == null) {
+        final String delegateName = properties.getRequiredProperty(DELEGATE);
+        try {
+          final Session session = locateSession(delegateName);
+          delegate = session.getTransport();
         }
+        catch (NamingException ex) {
+          throw new MessagingException("lookup for " + delegateName
+              + " failed", ex);
+        }
+        this.delegate = delegate;
       }
-      finally {
-        lock.unlock();
-      }
+      return delegate;
+    }
+    finally {
+      lock.unlock();
     }
-    return delegate;
   }
 
   private Session locateSession(String delegateName) throws NamingException,
@@ -230,4 +386,49 @@ public class FixedRecipientTransport extends Transport {
     return session;
   }
 
+  /**
+   * The recipient addresses parsed from a value of the {@value #ADDRESS}
+   * property.
+   */
+  private static final class Recipients {
+
+    final String address;
+    final Address[] addresses;
+
+    Recipients(String address, Address[] addresses) {
+      this.address = address;
+      this.addresses = addresses;
+    }
+
+  }
+
+  /**
+   * A key that refers weakly to a class loader, and compares class loaders
+   * by identity.
+   */
+  private static final class LoaderKey extends WeakReference<ClassLoader> {
+
+    private final int hashCode;
+
+    LoaderKey(ClassLoader classLoader,
+        ReferenceQueue<? super ClassLoader> queue) {
+      super(classLoader, queue);
+      this.hashCode = System.identityHashCode(classLoader);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == this) return true;
+      if (!(obj instanceof LoaderKey)) return false;
+      final ClassLoader classLoader = get();
+      return classLoader != null && classLoader == ((LoaderKey) obj).get();
+    }
+
+  }
+
 }
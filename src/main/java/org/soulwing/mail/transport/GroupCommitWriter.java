@@ -0,0 +1,218 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+
+/**
+ * A writer that accepts messages from any number of sending threads and
+ * writes them to a {@link MessageWriter} on a single writer thread.
+ * <p>
+ * The writer thread takes all of the messages that are waiting in the queue
+ * as a batch, writes them in the order in which they were submitted, and then
+ * commits the entire batch at once, so that the cost of flushing (and forcing)
+ * the file is shared by every message in the batch.  Each sender is released when
+ * the batch containing its message has been flushed.  When the queue is full,
+ * senders wait for space, until the writer is closed or its thread has
+ * stopped.
+ *
+ * @author Carl Harris
+ */
+class GroupCommitWriter implements Runnable {
+
+  private static final Logger logger = Logger.getLogger(
+      GroupCommitWriter.class.getName());
+
+  private static final long LIVENESS_CHECK_INTERVAL = 250;
+
+  private final PendingMessage endOfQueue = new PendingMessage(null);
+
+  private final MessageWriter writer;
+  private final BlockingQueue<PendingMessage> queue;
+  private final int capacity;
+  private final Thread thread;
+
+  private volatile boolean closed;
+
+  /**
+   * Constructs a new instance and starts its writer thread.
+   * @param writer the writer for the target file(s)
+   * @param capacity maximum number of messages that may be waiting to be
+   *    written
+   * @param name name for the writer thread
+   */
+  GroupCommitWriter(MessageWriter writer, int capacity, String name) {
+    this.writer = writer;
+    this.capacity = capacity;
+    this.queue = new ArrayBlockingQueue<>(capacity);
+    this.thread = new Thread(this, name);
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  /**
+   * Writes a message, waiting until the batch that contains it has been
+   * committed to the file.
+   * @param message the message to write
+   * @throws MessagingException if the message cannot be written
+   */
+  void write(Message message) throws MessagingException {
+    final PendingMessage pending = new PendingMessage(message);
+    try {
+      do {
+        if (closed || !thread.isAlive()) {
+          throw new MessagingException("transport is closed");
+        }
+      }
+      while (!queue.offer(pending, LIVENESS_CHECK_INTERVAL,
+          TimeUnit.MILLISECONDS));
+    }
+    catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new MessagingException("interrupted while waiting to queue message");
+    }
+    pending.await(thread);
+  }
+
+  /**
+   * Closes this writer, after writing any messages that are waiting in the
+   * queue.
+   * @throws InterruptedException if interrupted while waiting for the writer
+   *    thread to finish
+   */
+  synchronized void close() throws InterruptedException {
+    if (closed) return;
+    closed = true;
+    boolean queued = false;
+    while (!queued && thread.isAlive()) {
+      queued = queue.offer(endOfQueue, LIVENESS_CHECK_INTERVAL,
+          TimeUnit.MILLISECONDS);
+    }
+    thread.join();
+  }
+
+  @Override
+  public void run() {
+    final List<PendingMessage> batch = new ArrayList<>(capacity);
+    boolean done = false;
+    while (!done) {
+      try {
+        batch.add(queue.take());
+        queue.drainTo(batch, capacity - 1);
+        done = writeBatch(batch);
+      }
+      catch (InterruptedException ex) {
+        logger.log(Level.WARNING, "writer thread interrupted", ex);
+        done = true;
+      }
+      finally {
+        batch.clear();
+      }
+    }
+  }
+
+  private boolean writeBatch(List<PendingMessage> batch) {
+    boolean done = false;
+    for (final PendingMessage pending : batch) {
+      if (pending == endOfQueue) {
+        done = true;
+        continue;
+      }
+      try {
+        writer.write(pending.message);
+      }
+      catch (MessagingException ex) {
+        pending.exception = ex;
+      }
+      catch (IOException | RuntimeException ex) {
+        pending.exception = new MessagingException(
+            "error writing message to file", ex);
+      }
+    }
+    MessagingException flushException = null;
+    try {
+      writer.commit(done ? batch.size() - 1 : batch.size());
+    }
+    catch (IOException ex) {
+      flushException = new MessagingException(
+          "error writing message to file", ex);
+    }
+    for (final PendingMessage pending : batch) {
+      if (pending.exception == null) {
+        pending.exception = flushException;
+      }
+      pending.complete();
+    }
+    return done;
+  }
+
+  /**
+   * A message waiting to be written.
+   */
+  private static class PendingMessage {
+
+    final CountDownLatch latch = new CountDownLatch(1);
+    final Message message;
+
+    volatile MessagingException exception;
+
+    PendingMessage(Message message) {
+      this.message = message;
+    }
+
+    void complete() {
+      latch.countDown();
+    }
+
+    void await(Thread writerThread) throws MessagingException {
+      boolean interrupted = false;
+      try {
+        while (latch.getCount() > 0) {
+          try {
+            if (!latch.await(LIVENESS_CHECK_INTERVAL, TimeUnit.MILLISECONDS)
+                && !writerThread.isAlive() && latch.getCount() > 0) {
+              throw new MessagingException("transport is closed");
+            }
+          }
+          catch (InterruptedException ex) {
+            interrupted = true;
+          }
+        }
+      }
+      finally {
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      if (exception != null) throw exception;
+    }
+
+  }
+
+}
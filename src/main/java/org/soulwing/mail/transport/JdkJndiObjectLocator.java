@@ -18,8 +18,11 @@
  */
 package org.soulwing.mail.transport;
 
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 import javax.naming.Context;
@@ -30,6 +33,20 @@ import javax.naming.NoInitialContextException;
 
 /**
  * A singleton JNDI object locator utility based on the JDK JNDI facility.
+ * <p>
+ * The results of lookups are held in a bounded cache shared by all
+ * instances.  A name that was found is looked up again only after its
+ * entry is older than the positive time-to-live; a name that was not found
+ * (or a lookup that failed because there is no initial context) is
+ * remembered for the negative time-to-live, so that repeated lookups for
+ * a missing name do not repeatedly pay for a failed JNDI lookup.  A
+ * time-to-live of zero disables caching of the corresponding results.
+ * Cached entries can be discarded explicitly using {@link #invalidate(String)}
+ * and {@link #invalidateAll()}.
+ * <p>
+ * The singleton's initial context is created when it is first used for a
+ * lookup.  If it cannot be created, the lookup fails, and the next lookup
+ * tries again to create it.
  *
  * @author Carl Harris
  */
@@ -37,26 +54,47 @@ class JdkJndiObjectLocator implements JndiObjectLocator {
 
   private static final Logger logger = Logger.getLogger(
       JdkJndiObjectLocator.class.getName());
-  
-  private static final Lock lock = new ReentrantLock();  
-  private static JdkJndiObjectLocator instance;
-  
-  private Context ctx;
-  
+
+  static final long DEFAULT_TTL = TimeUnit.MINUTES.toMillis(1);
+  static final long DEFAULT_MISS_TTL = TimeUnit.SECONDS.toMillis(5);
+  static final int MAX_ENTRIES = 256;
+
+  private final ContextHolder contextHolder;
+  private final LookupCache cache;
+  private final long ttl;
+  private final long missTtl;
+  private final Ticker ticker;
+
   /**
    * Constructs a new instance.
+   * @param ctx context for lookups
+   * @param cache cache of lookup results
+   * @param ttl time-to-live in milliseconds for names that were found
+   * @param missTtl time-to-live in milliseconds for names that were not found
+   * @param ticker source of time readings for the age of cached results
    */
-  private JdkJndiObjectLocator() {
+  JdkJndiObjectLocator(Context ctx, LookupCache cache, long ttl,
+      long missTtl, Ticker ticker) {
+    this(new ContextHolder(ctx), cache, ttl, missTtl, ticker);
   }
-  
+
   /**
-   * Initializes this instance.
-   * @throws NamingException if an unrecoverable JNDI error occurs
+   * Constructs a new instance.
+   * @param contextHolder holder for the context for lookups
+   * @param cache cache of lookup results
+   * @param ttl time-to-live in milliseconds for names that were found
+   * @param missTtl time-to-live in milliseconds for names that were not found
+   * @param ticker source of time readings for the age of cached results
    */
-  private void init() throws NamingException {
-    ctx = new InitialContext();
+  JdkJndiObjectLocator(ContextHolder contextHolder, LookupCache cache,
+      long ttl, long missTtl, Ticker ticker) {
+    this.contextHolder = contextHolder;
+    this.cache = cache;
+    this.ttl = TimeUnit.MILLISECONDS.toNanos(ttl);
+    this.missTtl = TimeUnit.MILLISECONDS.toNanos(missTtl);
+    this.ticker = ticker;
   }
-  
+
   /**
    * Gets the JNDI object bound as {@code name} if it exists.
    * @param name the name to lookup
@@ -65,8 +103,22 @@ class JdkJndiObjectLocator implements JndiObjectLocator {
    *    could not be created (indicating that we're not running in a container)
    */
   public Object lookup(String name) throws NamingException {
+    final long now = ticker.read();
+    final LookupCache.Entry entry = cache.get(name);
+    if (entry != null
+        && now - entry.loadedAt < (entry.value != null ? ttl : missTtl)) {
+      return entry.value;
+    }
+    final Object value = doLookup(name);
+    if (value != null ? ttl > 0 : missTtl > 0) {
+      cache.put(name, new LookupCache.Entry(value, now));
+    }
+    return value;
+  }
+
+  private Object doLookup(String name) throws NamingException {
     try {
-      return ctx.lookup(name);
+      return contextHolder.get().lookup(name);
     }
     catch (NoInitialContextException ex) {
       logger.fine("no initial context; probably not running in a container");
@@ -78,27 +130,182 @@ class JdkJndiObjectLocator implements JndiObjectLocator {
     }
   }
 
+  /**
+   * Discards the cached result of looking up the given name, if any.
+   * @param name the name to invalidate
+   */
+  public void invalidate(String name) {
+    cache.remove(name);
+  }
+
+  /**
+   * Discards all cached lookup results.
+   */
+  public void invalidateAll() {
+    cache.clear();
+  }
+
   /**
    * Gets the singleton instance.
    * @return JNDI locator object
-   * @throws NamingException if an unrecoverable JNDI error occurs in 
-   *    creating the singleton instance
    */
   static JdkJndiObjectLocator getInstance() {
-    lock.lock();
-    try {
-      if (instance == null) {
-        instance = new JdkJndiObjectLocator();
-        instance.init();
-      }
+    return Holder.INSTANCE;
+  }
+
+  /**
+   * Gets an instance that shares the singleton's context and cache, but
+   * applies the given time-to-live values to cached results.
+   * @param ttl time-to-live in milliseconds for names that were found
+   * @param missTtl time-to-live in milliseconds for names that were not found
+   * @return JNDI locator object
+   */
+  static JdkJndiObjectLocator getInstance(long ttl, long missTtl) {
+    final JdkJndiObjectLocator instance = getInstance();
+    if (TimeUnit.MILLISECONDS.toNanos(ttl) == instance.ttl
+        && TimeUnit.MILLISECONDS.toNanos(missTtl) == instance.missTtl) {
       return instance;
     }
-    catch (NamingException ex) {
-      throw new RuntimeException(ex);
+    return new JdkJndiObjectLocator(instance.contextHolder, instance.cache,
+        ttl, missTtl, instance.ticker);
+  }
+
+  /**
+   * Holds the singleton instance, which is created when first requested.
+   */
+  private static class Holder {
+
+    static final JdkJndiObjectLocator INSTANCE = new JdkJndiObjectLocator(
+        new ContextHolder((Hashtable<?, ?>) null),
+        new LookupCache(MAX_ENTRIES), DEFAULT_TTL, DEFAULT_MISS_TTL,
+        Ticker.SYSTEM);
+
+  }
+
+  /**
+   * Holds a context, creating an initial context when it is first needed.
+   * <p>
+   * A failure to create the initial context is not remembered; the next
+   * request for the context tries again.
+   */
+  static class ContextHolder {
+
+    private final Hashtable<?, ?> environment;
+
+    private volatile Context context;
+
+    /**
+     * Constructs a holder that creates an initial context when first needed.
+     * @param environment environment for the initial context, or
+     *    {@code null} to use the default environment
+     */
+    ContextHolder(Hashtable<?, ?> environment) {
+      this.environment = environment;
+    }
+
+    /**
+     * Constructs a holder for an existing context.
+     * @param context the context to hold
+     */
+    ContextHolder(Context context) {
+      this.environment = null;
+      this.context = context;
     }
-    finally {
-      lock.unlock();
+
+    /**
+     * Gets the context, creating it if necessary.
+     * @return context
+     * @throws NamingException if the initial context cannot be created
+     */
+    Context get() throws NamingException {
+      Context context = this.context;
+      if (context == null) {
+        synchronized (this) {
+          context = this.context;
+          if (context == null) {
+            context = new InitialContext(environment);
+            this.context = context;
+          }
+        }
+      }
+      return context;
     }
+
   }
-  
+
+  /**
+   * A bounded cache of lookup results.
+   * <p>
+   * When the cache is full, the oldest entry is discarded to make room for
+   * a new one.  Since the number of distinct names looked up by an
+   * application is normally small, this should rarely happen.
+   */
+  static class LookupCache {
+
+    private final ConcurrentMap<String, Entry> entries =
+        new ConcurrentHashMap<>();
+
+    private final int maxEntries;
+
+    /**
+     * Constructs a new instance.
+     * @param maxEntries maximum number of entries to retain
+     */
+    LookupCache(int maxEntries) {
+      this.maxEntries = maxEntries;
+    }
+
+    Entry get(String name) {
+      return entries.get(name);
+    }
+
+    void put(String name, Entry entry) {
+      if (!entries.containsKey(name) && entries.size() >= maxEntries) {
+        evictOldest();
+      }
+      entries.put(name, entry);
+    }
+
+    void remove(String name) {
+      entries.remove(name);
+    }
+
+    void clear() {
+      entries.clear();
+    }
+
+    int size() {
+      return entries.size();
+    }
+
+    private void evictOldest() {
+      Map.Entry<String, Entry> oldest = null;
+      for (final Map.Entry<String, Entry> candidate : entries.entrySet()) {
+        if (oldest == null
+            || candidate.getValue().loadedAt - oldest.getValue().loadedAt < 0) {
+          oldest = candidate;
+        }
+      }
+      if (oldest != null) {
+        entries.remove(oldest.getKey(), oldest.getValue());
+      }
+    }
+
+    /**
+     * A cached lookup result.
+     */
+    static class Entry {
+
+      final Object value;
+      final long loadedAt;
+
+      Entry(Object value, long loadedAt) {
+        this.value = value;
+        this.loadedAt = loadedAt;
+      }
+
+    }
+
+  }
+
 }
@@ -22,10 +22,17 @@ import javax.naming.NamingException;
 
 /**
  * A JNDI lookup service provider.
+ * <p>
+ * {@link FixedRecipientTransport} uses a locator to find its delegate
+ * session.  An implementation must have a public no-argument constructor,
+ * so that it can be named by the {@value FixedRecipientTransport#LOCATOR_CLASS}
+ * property or registered as a {@link java.util.ServiceLoader service
+ * provider} for this interface.
  *
  * @author Carl Harris
+ * @see RegistryObjectLocator
  */
-interface JndiObjectLocator {
+public interface JndiObjectLocator {
 
   /**
    * Looks up the object associated with the given name relative to a
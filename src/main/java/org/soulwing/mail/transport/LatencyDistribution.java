@@ -0,0 +1,281 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * A distribution of simulated latencies.
+ * <p>
+ * A distribution is specified as a name, optionally followed by a colon and
+ * a comma-separated list of parameters, all in milliseconds except where
+ * noted:
+ * <ul>
+ * <li>{@code fixed:delay} -- always {@code delay}</li>
+ * <li>{@code uniform:min,max} -- uniformly distributed between {@code min}
+ *     and {@code max}</li>
+ * <li>{@code exponential:mean} -- exponentially distributed with the given
+ *     {@code mean}</li>
+ * <li>{@code lognormal:median,sigma} -- log-normally distributed with the
+ *     given {@code median} and shape {@code sigma} (dimensionless)</li>
+ * <li>{@code percentiles:p=delay,...} -- an empirical distribution given
+ *     as a table of percentiles; e.g. {@code percentiles:50=20,99=250,99.9=900}.
+ *     Latencies between the given percentiles are interpolated linearly;
+ *     the 0th percentile is taken to be zero unless it is given, and
+ *     latencies above the highest percentile are that percentile's
+ *     latency.</li>
+ * </ul>
+ *
+ * @author Carl Harris
+ */
+abstract class LatencyDistribution {
+
+  /**
+   * Gets the next simulated latency.
+   * @param random source of randomness
+   * @return latency in milliseconds (never negative)
+   */
+  abstract long nextDelay(Random random);
+
+  /**
+   * Creates a distribution that always produces the same latency.
+   * @param delay latency in milliseconds
+   * @return distribution
+   */
+  static LatencyDistribution fixed(long delay) {
+    return new Fixed(delay);
+  }
+
+  /**
+   * Creates a distribution from its specification.
+   * @param property name of the property that holds the specification
+   *    (used in error messages)
+   * @param spec the specification
+   * @return distribution
+   * @throws IllegalArgumentException if {@code spec} is not valid
+   */
+  static LatencyDistribution forSpec(String property, String spec) {
+    final int colon = spec.indexOf(':');
+    final String name = (colon != -1 ? spec.substring(0, colon) : spec)
+        .trim().toLowerCase(Locale.ENGLISH);
+    final String[] args = colon != -1 ?
+        spec.substring(colon + 1).split(",") : new String[0];
+    try {
+      switch (name) {
+        case "fixed":
+          requireArgs(property, name, args, 1);
+          return new Fixed(nonNegative(property, args[0]));
+        case "uniform":
+          requireArgs(property, name, args, 2);
+          final double min = nonNegative(property, args[0]);
+          final double max = nonNegative(property, args[1]);
+          if (max < min) {
+            throw new IllegalArgumentException("property " + property
+                + ": 'uniform' maximum must not be less than minimum");
+          }
+          return new Uniform(min, max);
+        case "exponential":
+          requireArgs(property, name, args, 1);
+          return new Exponential(nonNegative(property, args[0]));
+        case "lognormal":
+          requireArgs(property, name, args, 2);
+          return new LogNormal(nonNegative(property, args[0]),
+              nonNegative(property, args[1]));
+        case "percentiles":
+          return Percentiles.forArgs(property, args);
+        default:
+          throw new IllegalArgumentException("property " + property
+              + " allows 'fixed', 'uniform', 'exponential', 'lognormal',"
+              + " or 'percentiles'");
+      }
+    }
+    catch (NumberFormatException ex) {
+      throw new IllegalArgumentException("property " + property
+          + " has an invalid number: " + ex.getMessage());
+    }
+  }
+
+  private static void requireArgs(String property, String name,
+      String[] args, int count) {
+    if (args.length != count) {
+      throw new IllegalArgumentException("property " + property
+          + ": '" + name + "' requires " + count
+          + (count == 1 ? " parameter" : " parameters"));
+    }
+  }
+
+  private static double nonNegative(String property, String arg) {
+    final double value;
+    try {
+      value = Double.parseDouble(arg.trim());
+    }
+    catch (NumberFormatException ex) {
+      throw new IllegalArgumentException("property " + property
+          + ": '" + arg.trim() + "' is not a number", ex);
+    }
+    if (!(value >= 0)) {
+      throw new IllegalArgumentException("property " + property
+          + " does not allow negative values");
+    }
+    return value;
+  }
+
+  private static long toDelay(double delay) {
+    return Math.max(0, Math.round(delay));
+  }
+
+  private static class Fixed extends LatencyDistribution {
+
+    private final long delay;
+
+    Fixed(double delay) {
+      this.delay = toDelay(delay);
+    }
+
+    @Override
+    long nextDelay(Random random) {
+      return delay;
+    }
+
+  }
+
+  private static class Uniform extends LatencyDistribution {
+
+    private final double min;
+    private final double max;
+
+    Uniform(double min, double max) {
+      this.min = min;
+      this.max = max;
+    }
+
+    @Override
+    long nextDelay(Random random) {
+      return toDelay(min + (max - min) * random.nextDouble());
+    }
+
+  }
+
+  private static class Exponential extends LatencyDistribution {
+
+    private final double mean;
+
+    Exponential(double mean) {
+      this.mean = mean;
+    }
+
+    @Override
+    long nextDelay(Random random) {
+      return toDelay(-mean * Math.log(1.0 - random.nextDouble()));
+    }
+
+  }
+
+  private static class LogNormal extends LatencyDistribution {
+
+    private final double mu;
+    private final double sigma;
+
+    LogNormal(double median, double sigma) {
+      this.mu = Math.log(median);
+      this.sigma = sigma;
+    }
+
+    @Override
+    long nextDelay(Random random) {
+      return toDelay(Math.exp(mu + sigma * random.nextGaussian()));
+    }
+
+  }
+
+  private static class Percentiles extends LatencyDistribution {
+
+    private final double[] quantiles;
+    private final double[] delays;
+
+    Percentiles(double[] quantiles, double[] delays) {
+      this.quantiles = quantiles;
+      this.delays = delays;
+    }
+
+    static Percentiles forArgs(String property, String[] args) {
+      if (args.length == 0) {
+        throw new IllegalArgumentException("property " + property
+            + ": 'percentiles' requires at least one percentile");
+      }
+      final double[][] points = new double[args.length][];
+      for (int i = 0; i < args.length; i++) {
+        final String[] pair = args[i].split("=");
+        if (pair.length != 2) {
+          throw new IllegalArgumentException("property " + property
+              + ": percentiles must be given as percentile=delay");
+        }
+        final double percentile = nonNegative(property, pair[0]);
+        if (percentile > 100) {
+          throw new IllegalArgumentException("property " + property
+              + ": percentiles must not exceed 100");
+        }
+        points[i] = new double[] { percentile / 100,
+            nonNegative(property, pair[1]) };
+      }
+      Arrays.sort(points, new Comparator<double[]>() {
+        @Override
+        public int compare(double[] a, double[] b) {
+          return Double.compare(a[0], b[0]);
+        }
+      });
+      final boolean origin = points[0][0] == 0;
+      final int n = points.length + (origin ? 0 : 1);
+      final double[] quantiles = new double[n];
+      final double[] delays = new double[n];
+      int j = 0;
+      if (!origin) {
+        j++;
+      }
+      for (int i = 0; i < points.length; i++, j++) {
+        quantiles[j] = points[i][0];
+        delays[j] = points[i][1];
+        if (j > 0 && delays[j] < delays[j - 1]) {
+          throw new IllegalArgumentException("property " + property
+              + ": delays must not decrease as percentiles increase");
+        }
+      }
+      return new Percentiles(quantiles, delays);
+    }
+
+    @Override
+    long nextDelay(Random random) {
+      final double q = random.nextDouble();
+      int i = Arrays.binarySearch(quantiles, q);
+      if (i >= 0) return toDelay(delays[i]);
+      i = -i - 1;
+      if (i >= quantiles.length) return toDelay(delays[delays.length - 1]);
+      final double q0 = quantiles[i - 1];
+      final double q1 = quantiles[i];
+      final double d0 = delays[i - 1];
+      final double d1 = delays[i];
+      return toDelay(d0 + (d1 - d0) * (q - q0) / (q1 - q0));
+    }
+
+  }
+
+}
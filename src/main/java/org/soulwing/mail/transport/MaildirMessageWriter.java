@@ -0,0 +1,159 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+
+/**
+ * A writer that stores each message in its own file in a Maildir-style
+ * directory.
+ * <p>
+ * Each message is written to a uniquely named file in the {@code tmp}
+ * subdirectory, and then atomically renamed into the {@code new}
+ * subdirectory, so that readers never see a partially written message.
+ * Because no file is shared between messages, any number of threads may use
+ * the writer concurrently.  When the sync policy is anything other than
+ * {@code none}, each file is forced to the storage device before it is
+ * renamed.  When a {@link Compression} format is configured, each file is
+ * compressed as a single block.
+ *
+ * @author Carl Harris
+ */
+class MaildirMessageWriter implements MessageWriter {
+
+  static final String TMP = "tmp";
+  static final String NEW = "new";
+  static final String CUR = "cur";
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private static final AtomicLong deliveries = new AtomicLong();
+
+  private static final String PROCESS;
+  private static final String HOST;
+
+  static {
+    final String name = ManagementFactory.getRuntimeMXBean().getName();
+    final int index = name.indexOf('@');
+    PROCESS = index != -1 ? name.substring(0, index) : "0";
+    HOST = (index != -1 ? name.substring(index + 1) : "localhost")
+        .replace("/", "\\057").replace(":", "\\072");
+  }
+
+  private final Path tmp;
+  private final Path target;
+  private final boolean sync;
+  private final Compression compression;
+  private final int compressionLevel;
+
+  private MaildirMessageWriter(Path directory, MessageFileOptions options) {
+    this.tmp = directory.resolve(TMP);
+    this.target = directory.resolve(NEW);
+    this.sync = options.getSyncPolicy().getMode() != SyncPolicy.Mode.NONE;
+    this.compression = options.getCompression();
+    this.compressionLevel = options.getCompressionLevel();
+  }
+
+  /**
+   * Opens a writer for the given directory, creating the directory and its
+   * {@code tmp}, {@code new}, and {@code cur} subdirectories if necessary.
+   * @param path path to the directory
+   * @param options options for writing message files
+   * @return writer
+   * @throws IOException if the directories cannot be created
+   */
+  static MaildirMessageWriter open(String path, MessageFileOptions options)
+      throws IOException {
+    final Path directory = Paths.get(path);
+    Files.createDirectories(directory.resolve(TMP));
+    Files.createDirectories(directory.resolve(NEW));
+    Files.createDirectories(directory.resolve(CUR));
+    return new MaildirMessageWriter(directory, options);
+  }
+
+  @Override
+  public void write(Message message) throws MessagingException, IOException {
+    final String name = uniqueName();
+    final Path file = tmp.resolve(name);
+    try {
+      writeFile(message, file);
+      Files.move(file, target.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+    }
+    catch (MessagingException | IOException | RuntimeException ex) {
+      Files.deleteIfExists(file);
+      throw ex;
+    }
+  }
+
+  private void writeFile(Message message, Path file)
+      throws MessagingException, IOException {
+    try (FileChannel channel = FileChannel.open(file,
+        StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+      final OutputStream outputStream = new BufferedOutputStream(
+          Channels.newOutputStream(channel), BUFFER_SIZE);
+      if (compression != Compression.NONE) {
+        final BlockCompressingOutputStream compressingStream =
+            new BlockCompressingOutputStream(outputStream, compression,
+                compressionLevel);
+        message.writeTo(compressingStream);
+        compressingStream.close();
+      }
+      else {
+        message.writeTo(outputStream);
+      }
+      outputStream.flush();
+      if (sync) {
+        channel.force(false);
+      }
+    }
+  }
+
+  private static String uniqueName() {
+    return String.format("%d.P%sQ%d.%s", System.currentTimeMillis(),
+        PROCESS, deliveries.incrementAndGet(), HOST);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Each message is complete when written, so this implementation does
+   * nothing.
+   */
+  @Override
+  public void commit(int messages) throws IOException {
+  }
+
+  @Override
+  public void close() throws IOException {
+  }
+
+}
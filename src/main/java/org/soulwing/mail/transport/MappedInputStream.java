@@ -0,0 +1,107 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import javax.mail.internet.SharedInputStream;
+
+/**
+ * An input stream over a region of a (typically memory-mapped) buffer.
+ * <p>
+ * Because the stream is a {@link SharedInputStream}, a {@code MimeMessage}
+ * parsed from it refers to its content as a region of the same buffer,
+ * rather than copying the content onto the heap.
+ *
+ * @author Carl Harris
+ */
+class MappedInputStream extends InputStream implements SharedInputStream {
+
+  private final ByteBuffer buffer;
+
+  private int mark;
+
+  /**
+   * Constructs a new instance.
+   * @param buffer buffer whose remaining bytes are the content of the stream;
+   *    the stream uses a private view of the buffer, so the caller's position
+   *    and limit are unaffected by reading
+   */
+  MappedInputStream(ByteBuffer buffer) {
+    this.buffer = buffer.slice();
+  }
+
+  @Override
+  public int read() {
+    return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) {
+    if (len == 0) return 0;
+    if (!buffer.hasRemaining()) return -1;
+    final int count = Math.min(len, buffer.remaining());
+    buffer.get(b, off, count);
+    return count;
+  }
+
+  @Override
+  public long skip(long n) {
+    final int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+    buffer.position(buffer.position() + count);
+    return count;
+  }
+
+  @Override
+  public int available() {
+    return buffer.remaining();
+  }
+
+  @Override
+  public boolean markSupported() {
+    return true;
+  }
+
+  @Override
+  public synchronized void mark(int readLimit) {
+    mark = buffer.position();
+  }
+
+  @Override
+  public synchronized void reset() {
+    buffer.position(mark);
+  }
+
+  @Override
+  public long getPosition() {
+    return buffer.position();
+  }
+
+  @Override
+  public InputStream newStream(long start, long end) {
+    if (start < 0 || end > buffer.limit()) {
+      throw new IllegalArgumentException("region is outside of the stream");
+    }
+    final ByteBuffer region = buffer.duplicate();
+    region.limit(end == -1 ? buffer.limit() : (int) end);
+    region.position((int) start);
+    return new MappedInputStream(region);
+  }
+
+}
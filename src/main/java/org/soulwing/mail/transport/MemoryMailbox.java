@@ -0,0 +1,637 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.mail.Address;
+import javax.mail.MessagingException;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.InternetHeaders;
+import javax.mail.internet.MimeMessage;
+import javax.mail.util.SharedByteArrayInputStream;
+
+/**
+ * A named, bounded store of the messages sent through a
+ * {@link MemoryTransport}, with methods that allow tests to query and await
+ * captured messages.
+ * <p>
+ * Messages are captured in their serialized form in a fixed-size ring
+ * buffer.  The mailbox is limited both by the number of messages it holds
+ * and by their total size in bytes; when a new message would exceed either
+ * limit, the mailbox's eviction policy decides whether the oldest messages
+ * are evicted to make room, the new message is rejected with an error, or
+ * the new message is silently discarded.  Sending threads never block and
+ * never take a lock to capture a message.
+ * <p>
+ * Query methods return new {@link MimeMessage} objects parsed from the
+ * captured data, so a test can't disturb the captured messages, and
+ * changes made to a message after it was sent are not reflected in the
+ * mailbox.
+ *
+ * @author Carl Harris
+ */
+public final class MemoryMailbox {
+
+  /** name of the mailbox used when none is configured */
+  public static final String DEFAULT_NAME = "default";
+
+  static final int DEFAULT_CAPACITY = 1024;
+  static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+  /**
+   * Policies for making room for a new message in a full mailbox.
+   */
+  enum EvictionPolicy {
+
+    /** the oldest messages are evicted */
+    OLDEST,
+
+    /** the new message is rejected, and the sender receives an error */
+    REJECT,
+
+    /**
+     * the new message is discarded without an error; the sender's
+     * listeners are notified that it was not delivered
+     */
+    DISCARD;
+
+    static EvictionPolicy forName(String property, String name)
+        throws MessagingException {
+      if (name == null) return OLDEST;
+      try {
+        return valueOf(name.trim().toUpperCase(Locale.ENGLISH));
+      }
+      catch (IllegalArgumentException ex) {
+        throw new MessagingException("property " + property
+            + " allows 'oldest', 'reject', or 'discard'");
+      }
+    }
+
+  }
+
+  /**
+   * Outcomes of adding a message to a mailbox.
+   */
+  enum Outcome {
+
+    /** the message was captured */
+    CAPTURED,
+
+    /** the mailbox is full, and its policy is {@link EvictionPolicy#REJECT} */
+    REJECTED,
+
+    /** the mailbox is full, and its policy is {@link EvictionPolicy#DISCARD} */
+    DISCARDED
+
+  }
+
+  private static final ConcurrentMap<String, MemoryMailbox> mailboxes =
+      new ConcurrentHashMap<>();
+
+  private final AtomicReference<Ring> ring = new AtomicReference<>();
+  private final AtomicLong delivered = new AtomicLong();
+  private final AtomicInteger waiters = new AtomicInteger();
+  private final Object lock = new Object();
+
+  private final String name;
+
+  private MemoryMailbox(String name, Ring ring) {
+    this.name = name;
+    this.ring.set(ring);
+  }
+
+  /**
+   * Gets the mailbox with the given name, creating it with the default
+   * configuration if necessary.
+   * @param name name of the mailbox
+   * @return mailbox
+   */
+  public static MemoryMailbox named(String name) {
+    MemoryMailbox mailbox = mailboxes.get(name);
+    if (mailbox == null) {
+      mailbox = new MemoryMailbox(name, new Ring(DEFAULT_CAPACITY,
+          DEFAULT_MAX_BYTES, EvictionPolicy.OLDEST));
+      final MemoryMailbox existing = mailboxes.putIfAbsent(name, mailbox);
+      if (existing != null) {
+        mailbox = existing;
+      }
+    }
+    return mailbox;
+  }
+
+  /**
+   * Gets the mailbox with the default name.
+   * @return mailbox
+   */
+  public static MemoryMailbox getDefault() {
+    return named(DEFAULT_NAME);
+  }
+
+  /**
+   * Gets the mailbox with the given name, creating it or changing its
+   * configuration as necessary.
+   * <p>
+   * Changing the configuration of an existing mailbox discards the messages
+   * it holds.
+   * @param name name of the mailbox
+   * @param capacity maximum number of messages
+   * @param maxBytes maximum total size of messages
+   * @param policy eviction policy
+   * @return mailbox
+   */
+  static MemoryMailbox named(String name, int capacity, long maxBytes,
+      EvictionPolicy policy) {
+    final MemoryMailbox mailbox = named(name);
+    Ring current = mailbox.ring.get();
+    while (!current.isConfiguredAs(capacity, maxBytes, policy)) {
+      if (mailbox.ring.compareAndSet(current,
+          new Ring(capacity, maxBytes, policy))) break;
+      current = mailbox.ring.get();
+    }
+    return mailbox;
+  }
+
+  /**
+   * Gets the name of this mailbox.
+   * @return name
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Gets the number of messages held by this mailbox.
+   * @return message count
+   */
+  public int size() {
+    return ring.get().snapshot().size();
+  }
+
+  /**
+   * Gets the number of threads waiting for messages to arrive.
+   * @return waiter count
+   */
+  int getWaiterCount() {
+    return waiters.get();
+  }
+
+  /**
+   * Gets the total size of the messages held by this mailbox.
+   * @return size in bytes
+   */
+  public long getByteCount() {
+    return ring.get().bytes.get();
+  }
+
+  /**
+   * Gets the number of messages delivered to this mailbox since it was
+   * created or last cleared, including any that have since been evicted.
+   * @return message count
+   */
+  public long getDeliveredCount() {
+    return delivered.get();
+  }
+
+  /**
+   * Gets the number of messages that were evicted, rejected, or discarded
+   * because this mailbox was full.
+   * @return message count
+   */
+  public long getEvictedCount() {
+    return ring.get().evicted.get();
+  }
+
+  /**
+   * Discards all messages held by this mailbox and resets its counters.
+   */
+  public void clear() {
+    final Ring current = ring.get();
+    ring.compareAndSet(current, new Ring(current.slots.length(),
+        current.maxBytes, current.policy));
+    delivered.set(0);
+  }
+
+  /**
+   * Gets the messages held by this mailbox.
+   * @return messages in the order in which they were sent
+   * @throws MessagingException if a message cannot be parsed
+   */
+  public List<MimeMessage> getMessages() throws MessagingException {
+    final List<MimeMessage> messages = new ArrayList<>();
+    for (final Capture capture : ring.get().snapshot()) {
+      messages.add(capture.toMessage());
+    }
+    return messages;
+  }
+
+  /**
+   * Finds the messages that were sent to the given recipient.
+   * @param address address of the recipient (compared without regard to
+   *    case)
+   * @return messages in the order in which they were sent
+   * @throws MessagingException if a message cannot be parsed
+   */
+  public List<MimeMessage> findByRecipient(String address)
+      throws MessagingException {
+    final List<MimeMessage> messages = new ArrayList<>();
+    for (final Capture capture : ring.get().snapshot()) {
+      if (capture.isSentTo(address)) {
+        messages.add(capture.toMessage());
+      }
+    }
+    return messages;
+  }
+
+  /**
+   * Finds the messages that have the given header value.
+   * @param name header name
+   * @param value header value
+   * @return messages in the order in which they were sent
+   * @throws MessagingException if a message cannot be parsed
+   */
+  public List<MimeMessage> findByHeader(String name, String value)
+      throws MessagingException {
+    final List<MimeMessage> messages = new ArrayList<>();
+    for (final Capture capture : ring.get().snapshot()) {
+      if (capture.hasHeader(name, value)) {
+        messages.add(capture.toMessage());
+      }
+    }
+    return messages;
+  }
+
+  /**
+   * Waits until at least the given number of messages have been delivered
+   * to this mailbox since it was created or last cleared.
+   * @param count number of messages
+   * @param timeout maximum time to wait
+   * @param unit unit for {@code timeout}
+   * @return {@code true} if the messages were delivered, {@code false} if
+   *    the timeout expired first
+   * @throws InterruptedException if the calling thread is interrupted
+   */
+  public boolean awaitCount(final long count, long timeout, TimeUnit unit)
+      throws InterruptedException {
+    return await(new Condition() {
+      @Override
+      public boolean isSatisfied() {
+        return delivered.get() >= count;
+      }
+    }, timeout, unit);
+  }
+
+  /**
+   * Waits until this mailbox holds a message sent to the given recipient.
+   * @param address address of the recipient (compared without regard to
+   *    case)
+   * @param timeout maximum time to wait
+   * @param unit unit for {@code timeout}
+   * @return the earliest such message or {@code null} if the timeout expired
+   *    before one was delivered
+   * @throws MessagingException if a message cannot be parsed
+   * @throws InterruptedException if the calling thread is interrupted
+   */
+  public MimeMessage awaitRecipient(final String address, long timeout,
+      TimeUnit unit) throws MessagingException, InterruptedException {
+    final List<MimeMessage> messages = new ArrayList<>();
+    awaitMessage(new Matcher() {
+      @Override
+      public boolean matches(Capture capture) {
+        return capture.isSentTo(address);
+      }
+    }, messages, timeout, unit);
+    return messages.isEmpty() ? null : messages.get(0);
+  }
+
+  /**
+   * Waits until this mailbox holds a message with the given header value.
+   * @param name header name
+   * @param value header value
+   * @param timeout maximum time to wait
+   * @param unit unit for {@code timeout}
+   * @return the earliest such message or {@code null} if the timeout expired
+   *    before one was delivered
+   * @throws MessagingException if a message cannot be parsed
+   * @throws InterruptedException if the calling thread is interrupted
+   */
+  public MimeMessage awaitHeader(final String name, final String value,
+      long timeout, TimeUnit unit)
+      throws MessagingException, InterruptedException {
+    final List<MimeMessage> messages = new ArrayList<>();
+    awaitMessage(new Matcher() {
+      @Override
+      public boolean matches(Capture capture) throws MessagingException {
+        return capture.hasHeader(name, value);
+      }
+    }, messages, timeout, unit);
+    return messages.isEmpty() ? null : messages.get(0);
+  }
+
+  /**
+   * Captures a message.
+   * @param data the serialized message
+   * @param recipients envelope recipients
+   * @return outcome indicating whether the message was captured, or was
+   *    rejected or discarded because the mailbox is full
+   * @throws MessagingException if the message is larger than the mailbox
+   */
+  Outcome add(byte[] data, Address[] recipients) throws MessagingException {
+    final Ring ring = this.ring.get();
+    if (data.length > ring.maxBytes) {
+      throw new MessagingException("message size " + data.length
+          + " exceeds the limit of mailbox " + name);
+    }
+    final boolean added = ring.add(new Capture(data, recipients));
+    if (added) {
+      delivered.incrementAndGet();
+    }
+    if (waiters.get() > 0) {
+      synchronized (lock) {
+        lock.notifyAll();
+      }
+    }
+    if (added) return Outcome.CAPTURED;
+    return ring.policy == EvictionPolicy.REJECT ?
+        Outcome.REJECTED : Outcome.DISCARDED;
+  }
+
+  private void awaitMessage(final Matcher matcher,
+      final List<MimeMessage> result, long timeout, TimeUnit unit)
+      throws MessagingException, InterruptedException {
+    final MessagingException[] error = new MessagingException[1];
+    await(new Condition() {
+      @Override
+      public boolean isSatisfied() {
+        try {
+          for (final Capture capture : ring.get().snapshot()) {
+            if (matcher.matches(capture)) {
+              result.add(capture.toMessage());
+              return true;
+            }
+          }
+          return false;
+        }
+        catch (MessagingException ex) {
+          error[0] = ex;
+          return true;
+        }
+      }
+    }, timeout, unit);
+    if (error[0] != null) throw error[0];
+  }
+
+  private boolean await(Condition condition, long timeout, TimeUnit unit)
+      throws InterruptedException {
+    final long deadline = System.nanoTime() + unit.toNanos(timeout);
+    waiters.incrementAndGet();
+    try {
+      synchronized (lock) {
+        while (!condition.isSatisfied()) {
+          final long remaining = deadline - System.nanoTime();
+          if (remaining <= 0) return false;
+          TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+        }
+        return true;
+      }
+    }
+    finally {
+      waiters.decrementAndGet();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "memory:" + name;
+  }
+
+  private interface Condition {
+    boolean isSatisfied();
+  }
+
+  private interface Matcher {
+    boolean matches(Capture capture) throws MessagingException;
+  }
+
+  /**
+   * A captured message.
+   */
+  private static class Capture {
+
+    final byte[] data;
+    final Address[] recipients;
+    long sequence;
+
+    Capture(byte[] data, Address[] recipients) {
+      this.data = data;
+      this.recipients = recipients != null ?
+          recipients.clone() : new Address[0];
+    }
+
+    /**
+     * Creates a marker that takes the place of this capture in its slot
+     * when it is evicted.
+     */
+    Capture evict() {
+      final Capture marker = new Capture(null, null);
+      marker.sequence = sequence;
+      return marker;
+    }
+
+    boolean isEvicted() {
+      return data == null;
+    }
+
+    boolean isSentTo(String address) {
+      for (final Address recipient : recipients) {
+        final String candidate = recipient instanceof InternetAddress ?
+            ((InternetAddress) recipient).getAddress() : recipient.toString();
+        if (address.equalsIgnoreCase(candidate)) return true;
+      }
+      return false;
+    }
+
+    boolean hasHeader(String name, String value) throws MessagingException {
+      final InternetHeaders headers = new InternetHeaders(
+          new SharedByteArrayInputStream(data));
+      final String[] values = headers.getHeader(name);
+      if (values == null) return false;
+      for (final String candidate : values) {
+        if (candidate.trim().equals(value)) return true;
+      }
+      return false;
+    }
+
+    MimeMessage toMessage() throws MessagingException {
+      return new MimeMessage(null, new SharedByteArrayInputStream(data));
+    }
+
+  }
+
+  /**
+   * A bounded ring buffer of captured messages.
+   * <p>
+   * Each sender claims the next sequence number and stores its capture in
+   * the corresponding slot, replacing whatever capture the slot held.
+   * Captures that exceed the byte limit are evicted from the oldest end of
+   * the ring by compare-and-set, leaving a marker in the slot so that an
+   * evicted capture can be told apart from one that has been claimed but
+   * not yet stored.  Under the
+   * {@code REJECT} and {@code DISCARD} policies, a sender reserves room for
+   * its capture before claiming a sequence number, so that no capture is
+   * ever replaced.
+   */
+  private static class Ring {
+
+    final AtomicReferenceArray<Capture> slots;
+    final AtomicLong head = new AtomicLong();
+    final AtomicLong tail = new AtomicLong();
+    final AtomicLong bytes = new AtomicLong();
+    final AtomicInteger count = new AtomicInteger();
+    final AtomicLong evicted = new AtomicLong();
+    final long maxBytes;
+    final EvictionPolicy policy;
+
+    Ring(int capacity, long maxBytes, EvictionPolicy policy) {
+      this.slots = new AtomicReferenceArray<>(capacity);
+      this.maxBytes = maxBytes;
+      this.policy = policy;
+    }
+
+    boolean isConfiguredAs(int capacity, long maxBytes,
+        EvictionPolicy policy) {
+      return slots.length() == capacity && this.maxBytes == maxBytes
+          && this.policy == policy;
+    }
+
+    boolean add(Capture capture) {
+      if (policy != EvictionPolicy.OLDEST && !reserve(capture)) {
+        evicted.incrementAndGet();
+        return false;
+      }
+      final long sequence = tail.getAndIncrement();
+      capture.sequence = sequence;
+      if (policy != EvictionPolicy.OLDEST) {
+        slots.set(index(sequence), capture);
+        return true;
+      }
+      final int index = index(sequence);
+      Capture replaced;
+      do {
+        replaced = slots.get(index);
+        if (replaced != null && replaced.sequence > sequence) {
+          // a sender that arrived a full lap later has already filled this
+          // slot, so this capture is evicted as soon as it is delivered
+          evicted.incrementAndGet();
+          return true;
+        }
+      }
+      while (!slots.compareAndSet(index, replaced, capture));
+      if (replaced != null && !replaced.isEvicted()) {
+        bytes.addAndGet(-replaced.data.length);
+        evicted.incrementAndGet();
+      }
+      if (bytes.addAndGet(capture.data.length) > maxBytes) {
+        evictOldest(sequence);
+      }
+      return true;
+    }
+
+    /**
+     * Reserves room for a capture without evicting any other capture.
+     */
+    private boolean reserve(Capture capture) {
+      int n = count.get();
+      do {
+        if (n >= slots.length()) return false;
+      }
+      while (!count.compareAndSet(n, n + 1));
+      long b = bytes.get();
+      do {
+        if (b + capture.data.length > maxBytes) {
+          count.decrementAndGet();
+          return false;
+        }
+      }
+      while (!bytes.compareAndSet(b, b + capture.data.length));
+      return true;
+    }
+
+    /**
+     * Evicts the oldest captures until the ring is within its byte limit,
+     * never evicting the capture with the given sequence number.
+     */
+    private void evictOldest(long newest) {
+      while (bytes.get() > maxBytes) {
+        final long h = head.get();
+        if (h >= newest) return;
+        final Capture capture = slots.get(index(h));
+        if (capture == null || capture.sequence < h) {
+          // another sender has claimed this slot but not yet filled it
+          Thread.yield();
+        }
+        else if (capture.sequence > h || capture.isEvicted()) {
+          // the capture was already replaced or evicted
+          head.compareAndSet(h, h + 1);
+        }
+        else {
+          if (slots.compareAndSet(index(h), capture, capture.evict())) {
+            bytes.addAndGet(-capture.data.length);
+            evicted.incrementAndGet();
+          }
+          head.compareAndSet(h, h + 1);
+        }
+      }
+    }
+
+    /**
+     * Gets the captures currently held by the ring.
+     * @return captures in sequence order
+     */
+    List<Capture> snapshot() {
+      final long end = tail.get();
+      final long start = Math.max(head.get(), end - slots.length());
+      if (start >= end) return Collections.emptyList();
+      final List<Capture> captures = new ArrayList<>((int) (end - start));
+      for (long sequence = start; sequence < end; sequence++) {
+        final Capture capture = slots.get(index(sequence));
+        if (capture != null && capture.sequence == sequence
+            && !capture.isEvicted()) {
+          captures.add(capture);
+        }
+      }
+      return captures;
+    }
+
+    private int index(long sequence) {
+      return (int) (sequence % slots.length());
+    }
+
+  }
+
+}
@@ -0,0 +1,157 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import javax.mail.Address;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.URLName;
+import javax.mail.event.TransportEvent;
+
+/**
+ * A transport that captures sent messages in a {@link MemoryMailbox}.
+ * <p>
+ * The mailbox is selected by the {@value #NAME} property, so that
+ * independent tests (or applications) can capture their messages
+ * separately.  The {@value #CAPACITY}, {@value #MAX_BYTES}, and
+ * {@value #EVICTION} properties configure the mailbox's limits and what
+ * happens when it is full.  A message that is rejected or discarded because
+ * the mailbox is full is reported to the transport's listeners as not
+ * delivered; only a rejected message causes the send to fail.
+ * <p>
+ * Messages may be failed, delayed, dropped, or rerouted by rules configured
+ * with {@code mail.memory.rules} properties, as described for
+ * {@link MessageRules}.
+ *
+ * @author Carl Harris
+ */
+public class MemoryTransport extends Transport {
+
+  private static final String MEMORY_PROVIDER = "mail.memory";
+  public static final String NAME = MEMORY_PROVIDER + ".name";
+  public static final String CAPACITY = MEMORY_PROVIDER + ".capacity";
+  public static final String MAX_BYTES = MEMORY_PROVIDER + ".maxBytes";
+  public static final String EVICTION = MEMORY_PROVIDER + ".eviction";
+
+  private static final Address[] NO_ADDRESSES = new Address[0];
+
+  private final SessionProperties properties;
+  private final MessageRules rules;
+
+  private volatile MemoryMailbox mailbox;
+
+  /**
+   * Constructs a new instance.
+   * @param session session to associate with this transport
+   * @param urlname url name to associate with this transport
+   */
+  public MemoryTransport(Session session, URLName urlname) {
+    super(session, urlname);
+    this.properties = new SessionProperties(session);
+    this.rules = MessageRules.newInstance(properties, "memory");
+  }
+
+  @Override
+  public synchronized void connect(String host, int port, String user,
+      String password) throws MessagingException {
+    super.connect("memory transport", port, user, password);
+  }
+
+  @Override
+  protected boolean protocolConnect(String host, int port, String user,
+      String password) throws MessagingException {
+    mailbox = openMailbox();
+    return true;
+  }
+
+  @Override
+  public void sendMessage(Message message, Address[] addresses)
+      throws MessagingException {
+    MessagingException mex = ErrorHeader.getErrorToThrow(message);
+    if (mex != null) throw mex;
+
+    final Address[] recipients = MessageRules.apply(rules, message, addresses);
+    if (recipients == null) {
+      notifyTransportListeners(TransportEvent.MESSAGE_DELIVERED,
+          addresses, NO_ADDRESSES, NO_ADDRESSES, message);
+      return;
+    }
+
+    MemoryMailbox mailbox = this.mailbox;
+    if (mailbox == null) {
+      mailbox = openMailbox();
+      this.mailbox = mailbox;
+    }
+    final MemoryMailbox.Outcome outcome =
+        mailbox.add(serialize(message), recipients);
+    if (outcome != MemoryMailbox.Outcome.CAPTURED) {
+      notifyTransportListeners(TransportEvent.MESSAGE_NOT_DELIVERED,
+          NO_ADDRESSES, recipients, NO_ADDRESSES, message);
+      if (outcome == MemoryMailbox.Outcome.REJECTED) {
+        throw new MessagingException("mailbox " + mailbox.getName()
+            + " is full");
+      }
+      return;
+    }
+    notifyTransportListeners(TransportEvent.MESSAGE_DELIVERED,
+        recipients, NO_ADDRESSES, NO_ADDRESSES, message);
+  }
+
+  private MemoryMailbox openMailbox() throws MessagingException {
+    String name = properties.getProperty(NAME);
+    int capacity = properties.getIntProperty(CAPACITY,
+        MemoryMailbox.DEFAULT_CAPACITY);
+    long maxBytes = properties.getLongProperty(MAX_BYTES,
+        MemoryMailbox.DEFAULT_MAX_BYTES);
+    MemoryMailbox.EvictionPolicy policy = MemoryMailbox.EvictionPolicy.forName(
+        EVICTION, properties.getProperty(EVICTION));
+    if (capacity <= 0) {
+      throw new MessagingException("property " + CAPACITY
+          + " must be greater than zero");
+    }
+    if (maxBytes <= 0) {
+      throw new MessagingException("property " + MAX_BYTES
+          + " must be greater than zero");
+    }
+    return MemoryMailbox.named(name != null ? name : MemoryMailbox.DEFAULT_NAME,
+        capacity, maxBytes, policy);
+  }
+
+  private static byte[] serialize(Message message) throws MessagingException {
+    try {
+      final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      message.writeTo(outputStream);
+      return outputStream.toByteArray();
+    }
+    catch (IOException ex) {
+      throw new MessagingException("error serializing message", ex);
+    }
+  }
+
+  @Override
+  public String toString() {
+    final String name = properties.getProperty(NAME);
+    return "memory:" + (name != null ? name : MemoryMailbox.DEFAULT_NAME);
+  }
+
+}
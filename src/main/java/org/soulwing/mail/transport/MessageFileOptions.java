@@ -0,0 +1,82 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import java.util.zip.Deflater;
+
+/**
+ * Options that determine how messages are written to a file.
+ *
+ * @author Carl Harris
+ */
+class MessageFileOptions {
+
+  static final MessageFileOptions DEFAULTS = new MessageFileOptions(
+      SyncPolicy.NONE, Compression.NONE, Deflater.DEFAULT_COMPRESSION, false,
+      false);
+
+  private final SyncPolicy syncPolicy;
+  private final Compression compression;
+  private final int compressionLevel;
+  private final boolean compressBatches;
+  private final boolean indexed;
+
+  /**
+   * Constructs a new instance.
+   * @param syncPolicy policy that determines when committed messages are
+   *    forced to the storage device
+   * @param compression compression format for message data
+   * @param compressionLevel compression level (0-9) or
+   *    {@link Deflater#DEFAULT_COMPRESSION}
+   * @param compressBatches flag indicating whether each compressed block
+   *    should contain all of the messages in a commit (rather than a single
+   *    message)
+   * @param indexed flag indicating whether a {@link MessageIndex} should be
+   *    maintained for each file
+   */
+  MessageFileOptions(SyncPolicy syncPolicy, Compression compression,
+      int compressionLevel, boolean compressBatches, boolean indexed) {
+    this.syncPolicy = syncPolicy;
+    this.compression = compression;
+    this.compressionLevel = compressionLevel;
+    this.compressBatches = compressBatches;
+    this.indexed = indexed;
+  }
+
+  SyncPolicy getSyncPolicy() {
+    return syncPolicy;
+  }
+
+  Compression getCompression() {
+    return compression;
+  }
+
+  int getCompressionLevel() {
+    return compressionLevel;
+  }
+
+  boolean isCompressBatches() {
+    return compressBatches;
+  }
+
+  boolean isIndexed() {
+    return indexed;
+  }
+
+}
@@ -0,0 +1,280 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+
+/**
+ * A writer that appends messages to a file through a single open channel.
+ * <p>
+ * Each message is streamed to the file through a buffer that is reused for
+ * the life of the writer, and is followed by a blank line.  Message data
+ * reaches the file when the buffer fills, or when the writer is committed or
+ * closed.  When messages are committed, the writer's {@link SyncPolicy}
+ * decides whether the file is also forced to the storage device.
+ * <p>
+ * When a {@link Compression} format is configured, message data is
+ * compressed in independently decodable blocks, each containing either a
+ * single message or all of the messages in a commit.
+ * <p>
+ * When indexing is configured, an entry is added to the file's
+ * {@link MessageIndex} for each message.  Entries are written to the index
+ * only after the message data they describe has been written to the file.
+ * <p>
+ * If a message cannot be written, the data already written for it is
+ * discarded from the file, and no index entry is added for it.  When the
+ * message was to share a compressed block with earlier messages, the block
+ * is ended with those messages.
+ *
+ * @author Carl Harris
+ */
+class MessageFileWriter implements MessageWriter {
+
+  private static final int BUFFER_SIZE = 65536;
+
+  private final FileChannel channel;
+  private final FileOutputBuffer outputStream;
+  private final CountingOutputStream countingStream;
+  private final BlockCompressingOutputStream compressingStream;
+  private final MessageOutputStream messageStream;
+  private final MessageIndexWriter index;
+  private final SyncPolicy syncPolicy;
+  private final boolean compressBatches;
+
+  private long blockStart;
+  private long blockBytes;
+  private long unsyncedMessages;
+  private long lastSync = System.nanoTime();
+
+  private MessageFileWriter(FileChannel channel, MessageIndexWriter index,
+      MessageFileOptions options) throws IOException {
+    this.channel = channel;
+    this.index = index;
+    this.syncPolicy = options.getSyncPolicy();
+    this.compressBatches = options.isCompressBatches();
+    this.outputStream = new FileOutputBuffer(channel);
+    this.countingStream = new CountingOutputStream(outputStream,
+        channel.size());
+    if (options.getCompression() != Compression.NONE) {
+      this.compressingStream = new BlockCompressingOutputStream(
+          countingStream, options.getCompression(),
+          options.getCompressionLevel());
+      this.messageStream = new MessageOutputStream(compressingStream);
+    }
+    else {
+      this.compressingStream = null;
+      this.messageStream = new MessageOutputStream(countingStream);
+    }
+  }
+
+  /**
+   * Opens a writer for the file at the given path, creating the file if
+   * necessary.
+   * @param path path to the file
+   * @param append flag indicating whether messages should be appended to
+   *    existing content in the file (or whether the file should be truncated)
+   * @param options options for writing messages
+   * @return writer
+   * @throws IOException if the file cannot be opened or created
+   */
+  static MessageFileWriter open(String path, boolean append,
+      MessageFileOptions options) throws IOException {
+    final FileChannel channel = FileChannel.open(Paths.get(path),
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        append ? StandardOpenOption.APPEND
+            : StandardOpenOption.TRUNCATE_EXISTING);
+    MessageIndexWriter index = null;
+    try {
+      if (options.isIndexed()) {
+        index = MessageIndexWriter.open(new File(path), append,
+            options.getCompression());
+      }
+      return new MessageFileWriter(channel, index, options);
+    }
+    catch (IOException ex) {
+      if (index != null) {
+        index.close();
+      }
+      channel.close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Gets the size of the file, including message data that has been written
+   * but not yet committed.
+   * @return size in bytes
+   */
+  long size() {
+    return countingStream.getCount();
+  }
+
+  @Override
+  public void write(Message message) throws MessagingException, IOException {
+    if (compressingStream != null) {
+      compressingStream.mark();
+    }
+    if (compressingStream == null || blockBytes == 0) {
+      blockStart = countingStream.getCount();
+      blockBytes = 0;
+    }
+    final long start = countingStream.getCount();
+    final long offsetInBlock = blockBytes;
+    try {
+      message.writeTo(messageStream);
+      final long length = messageStream.getCount();
+      blockBytes += length + messageStream.endMessage();
+      if (compressingStream != null && !compressBatches) {
+        endBlock();
+      }
+      if (index != null) {
+        index.add(blockStart, offsetInBlock, length, message);
+      }
+    }
+    catch (MessagingException | IOException | RuntimeException ex) {
+      discard(start, ex);
+      throw ex;
+    }
+    if (index != null && index.isFull()) {
+      endBlock();
+      outputStream.flush();
+      index.flush();
+    }
+  }
+
+  private void discard(long position, Exception cause) {
+    try {
+      outputStream.truncate(position);
+      countingStream.reset(position);
+      messageStream.discardMessage();
+      if (compressingStream != null) {
+        compressingStream.discard();
+      }
+      blockBytes = 0;
+    }
+    catch (IOException ex) {
+      cause.addSuppressed(ex);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * This implementation flushes buffered message data to the file, and
+   * forces the file to the storage device if required by the sync policy.
+   */
+  @Override
+  public void commit(int messages) throws IOException {
+    endBlock();
+    outputStream.flush();
+    if (index != null) {
+      index.flush();
+    }
+    if (syncPolicy.getMode() == SyncPolicy.Mode.NONE) return;
+    unsyncedMessages += messages;
+    final long now = System.nanoTime();
+    if (syncPolicy.isDue(unsyncedMessages, now - lastSync)) {
+      sync(now);
+    }
+  }
+
+  private void endBlock() throws IOException {
+    if (compressingStream != null) {
+      compressingStream.endBlock();
+    }
+    blockBytes = 0;
+  }
+
+  private void sync(long now) throws IOException {
+    channel.force(false);
+    if (index != null) {
+      index.sync();
+    }
+    unsyncedMessages = 0;
+    lastSync = now;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      if (compressingStream != null) {
+        compressingStream.close();
+      }
+      outputStream.flush();
+      if (index != null) {
+        index.flush();
+      }
+      if (unsyncedMessages > 0) {
+        sync(System.nanoTime());
+      }
+      outputStream.close();
+    }
+    finally {
+      try {
+        if (index != null) {
+          index.close();
+        }
+      }
+      finally {
+        channel.close();
+      }
+    }
+  }
+
+  /**
+   * A buffered stream that writes to a file channel, and that can discard
+   * data beyond a given position in the file whether or not it has yet
+   * been written to the channel.
+   */
+  private static class FileOutputBuffer extends BufferedOutputStream {
+
+    private final FileChannel channel;
+
+    FileOutputBuffer(FileChannel channel) {
+      super(Channels.newOutputStream(channel), BUFFER_SIZE);
+      this.channel = channel;
+    }
+
+    /**
+     * Discards all data beyond the given position.
+     * @param position position in the file
+     * @throws IOException if the file cannot be truncated
+     */
+    synchronized void truncate(long position) throws IOException {
+      final long size = channel.size();
+      if (position < size) {
+        channel.truncate(position);
+        count = 0;
+      }
+      else {
+        count = (int) Math.min(count, position - size);
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,327 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * A reader for the sidecar index that {@link FileTransport} maintains for a
+ * capture file when the {@value FileTransport#INDEX} property is set.
+ * <p>
+ * The index for a capture file is stored alongside it, with the suffix
+ * {@value #SUFFIX}; when the capture is divided into segments, each segment
+ * has its own index.  The index consists of a short header followed by a
+ * fixed-size entry for each message, so that the number of messages is
+ * known from the size of the index alone, and any entry can be read without
+ * reading the entries (or messages) that precede it.
+ * <p>
+ * Each entry gives the offset of a message in the capture file and its
+ * length, along with its {@code Message-ID}, first recipient, the hash code
+ * of its subject (as given by {@link String#hashCode()}) and the time at
+ * which it was written.  When the capture is compressed, the offset is that
+ * of the compressed block containing the message, and the message begins
+ * {@link Entry#getOffsetInBlock()} bytes into the decompressed block.
+ * <p>
+ * Entries are added to the index after the corresponding message data has
+ * been written, so an index never describes a message that is not in the
+ * capture file, though it may briefly omit the most recent messages.
+ *
+ * @author Carl Harris
+ */
+public final class MessageIndex implements Closeable {
+
+  /** suffix appended to the name of a capture file to name its index */
+  public static final String SUFFIX = ".idx";
+
+  static final int MAGIC = 0x4a534d58;   // "JSMX"
+  static final int VERSION = 1;
+  static final int HEADER_SIZE = 16;
+  static final int ENTRY_SIZE = 256;
+  static final int MAX_STRING_SIZE = 106;
+
+  static final Charset UTF8 = Charset.forName("UTF-8");
+
+  private final FileChannel channel;
+  private final Compression compression;
+
+  private MessageIndex(FileChannel channel, Compression compression) {
+    this.channel = channel;
+    this.compression = compression;
+  }
+
+  /**
+   * Gets the index file for a capture file.
+   * @param file the capture file
+   * @return index file (which may not exist)
+   */
+  public static File indexFile(File file) {
+    return new File(file.getPath() + SUFFIX);
+  }
+
+  /**
+   * Opens the index for a capture file.
+   * @param file the capture file
+   * @return index
+   * @throws IOException if the index does not exist or is not valid
+   */
+  public static MessageIndex open(File file) throws IOException {
+    final File indexFile = indexFile(file);
+    final FileChannel channel = FileChannel.open(indexFile.toPath(),
+        StandardOpenOption.READ);
+    try {
+      final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      read(channel, header, 0);
+      return new MessageIndex(channel, readHeader(header, indexFile));
+    }
+    catch (IOException ex) {
+      channel.close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Validates an index header.
+   * @param header buffer containing the header
+   * @param indexFile the index file (for error messages)
+   * @return the compression format recorded in the header
+   * @throws IOException if the header is not valid
+   */
+  static Compression readHeader(ByteBuffer header, File indexFile)
+      throws IOException {
+    header.flip();
+    if (header.remaining() < HEADER_SIZE
+        || header.getInt() != MAGIC
+        || header.getShort() != VERSION) {
+      throw new IOException("not a message index: " + indexFile);
+    }
+    final int compression = header.get();
+    header.get();
+    if (header.getInt() != ENTRY_SIZE
+        || compression < 0 || compression >= Compression.values().length) {
+      throw new IOException("unsupported message index format: " + indexFile);
+    }
+    return Compression.values()[compression];
+  }
+
+  /**
+   * Writes an index header.
+   * @param header buffer to receive the header
+   * @param compression compression format of the capture file
+   */
+  static void writeHeader(ByteBuffer header, Compression compression) {
+    header.putInt(MAGIC);
+    header.putShort((short) VERSION);
+    header.put((byte) compression.ordinal());
+    header.put((byte) 0);
+    header.putInt(ENTRY_SIZE);
+    header.putInt(0);
+  }
+
+  /**
+   * Gets the compression format of the capture file.
+   * @return {@code none}, {@code gzip}, or {@code deflate}
+   */
+  public String getCompression() {
+    return compression.name().toLowerCase(Locale.ENGLISH);
+  }
+
+  /**
+   * Gets the number of messages described by the index.
+   * <p>
+   * The count is computed from the current size of the index, so it
+   * reflects entries added since the index was opened.
+   * @return number of messages
+   * @throws IOException if the size of the index cannot be determined
+   */
+  public int size() throws IOException {
+    final long entries = (channel.size() - HEADER_SIZE) / ENTRY_SIZE;
+    return (int) Math.max(0, Math.min(entries, Integer.MAX_VALUE));
+  }
+
+  /**
+   * Gets an entry from the index.
+   * @param index zero-based index of the message
+   * @return entry for the message
+   * @throws IndexOutOfBoundsException if {@code index} is not less than
+   *    {@link #size()}
+   * @throws IOException if the entry cannot be read
+   */
+  public Entry get(int index) throws IOException {
+    if (index < 0 || index >= size()) {
+      throw new IndexOutOfBoundsException("index " + index);
+    }
+    final ByteBuffer buffer = ByteBuffer.allocate(ENTRY_SIZE);
+    read(channel, buffer, HEADER_SIZE + (long) index * ENTRY_SIZE);
+    buffer.flip();
+    final long offset = buffer.getLong();
+    final long offsetInBlock = buffer.getLong();
+    final long length = buffer.getLong();
+    final long timestamp = buffer.getLong();
+    final int subjectHash = buffer.getInt();
+    buffer.getInt();
+    final String messageId = getString(buffer);
+    final String recipient = getString(buffer);
+    return new Entry(offset, offsetInBlock, length, timestamp, subjectHash,
+        messageId, recipient);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * Puts a string into an entry buffer as a two-byte length followed by at
+   * most {@value #MAX_STRING_SIZE} bytes of UTF-8, padded to full size.
+   * Longer strings are truncated on a character boundary.
+   * @param buffer the target buffer
+   * @param s the string to put (may be {@code null})
+   */
+  static void putString(ByteBuffer buffer, String s) {
+    final byte[] data = s != null ? s.getBytes(UTF8) : new byte[0];
+    int length = Math.min(data.length, MAX_STRING_SIZE);
+    if (length < data.length) {
+      while (length > 0 && (data[length] & 0xc0) == 0x80) {
+        length--;
+      }
+    }
+    buffer.putShort((short) length);
+    buffer.put(data, 0, length);
+    for (int i = length; i < MAX_STRING_SIZE; i++) {
+      buffer.put((byte) 0);
+    }
+  }
+
+  private static String getString(ByteBuffer buffer) {
+    final int length = Math.min(buffer.getShort(), MAX_STRING_SIZE);
+    final byte[] data = new byte[MAX_STRING_SIZE];
+    buffer.get(data);
+    return length > 0 ? new String(data, 0, length, UTF8) : null;
+  }
+
+  private static void read(FileChannel channel, ByteBuffer buffer,
+      long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      final int count = channel.read(buffer, position);
+      if (count < 0) break;
+      position += count;
+    }
+  }
+
+  /**
+   * An entry in a message index.
+   */
+  public static final class Entry {
+
+    private final long offset;
+    private final long offsetInBlock;
+    private final long length;
+    private final long timestamp;
+    private final int subjectHash;
+    private final String messageId;
+    private final String recipient;
+
+    Entry(long offset, long offsetInBlock, long length, long timestamp,
+        int subjectHash, String messageId, String recipient) {
+      this.offset = offset;
+      this.offsetInBlock = offsetInBlock;
+      this.length = length;
+      this.timestamp = timestamp;
+      this.subjectHash = subjectHash;
+      this.messageId = messageId;
+      this.recipient = recipient;
+    }
+
+    /**
+     * Gets the offset in the capture file of the message, or of the
+     * compressed block that contains it.
+     * @return offset in bytes
+     */
+    public long getOffset() {
+      return offset;
+    }
+
+    /**
+     * Gets the offset of the message in its decompressed block.
+     * @return offset in bytes; always zero for an uncompressed capture
+     */
+    public long getOffsetInBlock() {
+      return offsetInBlock;
+    }
+
+    /**
+     * Gets the length of the message, not including the blank line that
+     * follows it in the capture.
+     * @return length in (uncompressed) bytes
+     */
+    public long getLength() {
+      return length;
+    }
+
+    /**
+     * Gets the time at which the message was written.
+     * @return time in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+      return timestamp;
+    }
+
+    /**
+     * Gets the hash code of the message's subject.
+     * @return {@link String#hashCode()} of the subject, or zero if the
+     *    message has no subject
+     */
+    public int getSubjectHash() {
+      return subjectHash;
+    }
+
+    /**
+     * Gets the message's {@code Message-ID}.
+     * @return message ID (truncated to 106 bytes of
+     *    UTF-8) or {@code null} if the message has none
+     */
+    public String getMessageId() {
+      return messageId;
+    }
+
+    /**
+     * Gets the first recipient of the message.
+     * @return recipient address (truncated to 106
+     *    bytes of UTF-8) or {@code null} if the message has no recipients
+     */
+    public String getRecipient() {
+      return recipient;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("offset=%d+%d length=%d messageId=%s",
+          offset, offsetInBlock, length, messageId);
+    }
+
+  }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import javax.mail.Address;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+
+/**
+ * A writer that appends entries to the {@link MessageIndex} for a capture
+ * file.
+ * <p>
+ * Entries are collected in a buffer and written to the index when the
+ * writer is flushed, so the owner of the capture file can ensure that an
+ * entry never reaches the index before the message data it describes.
+ *
+ * @author Carl Harris
+ */
+class MessageIndexWriter implements Closeable {
+
+  private static final int BUFFER_ENTRIES = 256;
+
+  private final ByteBuffer buffer =
+      ByteBuffer.allocate(BUFFER_ENTRIES * MessageIndex.ENTRY_SIZE);
+
+  private final FileChannel channel;
+
+  private MessageIndexWriter(FileChannel channel) {
+    this.channel = channel;
+  }
+
+  /**
+   * Opens the index for a capture file, creating it if necessary.
+   * <p>
+   * An existing index is truncated to a whole number of entries, discarding
+   * any partial entry left by an interrupted write.
+   * @param file the capture file
+   * @param append flag indicating whether entries should be appended to an
+   *    existing index (or whether the index should be truncated)
+   * @param compression compression format of the capture file
+   * @return writer
+   * @throws IOException if the index cannot be opened or created, or if an
+   *    existing index does not match the capture file's format
+   */
+  static MessageIndexWriter open(File file, boolean append,
+      Compression compression) throws IOException {
+    final File indexFile = MessageIndex.indexFile(file);
+    final FileChannel channel = FileChannel.open(indexFile.toPath(),
+        StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    try {
+      final long size = append ? channel.size() : 0;
+      final ByteBuffer header = ByteBuffer.allocate(MessageIndex.HEADER_SIZE);
+      if (size < MessageIndex.HEADER_SIZE) {
+        channel.truncate(0);
+        MessageIndex.writeHeader(header, compression);
+        header.flip();
+        write(channel, header, 0);
+      }
+      else {
+        channel.read(header, 0);
+        if (MessageIndex.readHeader(header, indexFile) != compression) {
+          throw new IOException("index " + indexFile
+              + " was written with a different compression format");
+        }
+        final long entries =
+            (size - MessageIndex.HEADER_SIZE) / MessageIndex.ENTRY_SIZE;
+        channel.truncate(MessageIndex.HEADER_SIZE
+            + entries * MessageIndex.ENTRY_SIZE);
+      }
+      channel.position(channel.size());
+      return new MessageIndexWriter(channel);
+    }
+    catch (IOException ex) {
+      channel.close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Adds an entry for a message.
+   * @param offset offset of the message (or its compressed block) in the
+   *    capture file
+   * @param offsetInBlock offset of the message in its decompressed block
+   * @param length length of the message
+   * @param message the message
+   * @throws MessagingException if the message's headers cannot be read
+   * @throws IOException if the index must be flushed and an error occurs
+   */
+  void add(long offset, long offsetInBlock, long length, Message message)
+      throws MessagingException, IOException {
+    final String[] messageId = message.getHeader("Message-ID");
+    final Address[] recipients = message.getAllRecipients();
+    final String subject = message.getSubject();
+    buffer.putLong(offset);
+    buffer.putLong(offsetInBlock);
+    buffer.putLong(length);
+    buffer.putLong(System.currentTimeMillis());
+    buffer.putInt(subject != null ? subject.hashCode() : 0);
+    buffer.putInt(0);
+    MessageIndex.putString(buffer,
+        messageId != null && messageId.length > 0 ? messageId[0] : null);
+    MessageIndex.putString(buffer,
+        recipients != null && recipients.length > 0 ?
+            recipients[0].toString() : null);
+  }
+
+  /**
+   * Tests whether the writer's buffer is full, and must be flushed before
+   * another entry is added.
+   * @return {@code true} if the buffer is full
+   */
+  boolean isFull() {
+    return buffer.remaining() < MessageIndex.ENTRY_SIZE;
+  }
+
+  /**
+   * Writes buffered entries to the index.
+   * @throws IOException if an error occurs in writing the entries
+   */
+  void flush() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Forces the index to the storage device.
+   * @throws IOException if an error occurs in forcing the index
+   */
+  void sync() throws IOException {
+    channel.force(false);
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      flush();
+    }
+    finally {
+      channel.close();
+    }
+  }
+
+  private static void write(FileChannel channel, ByteBuffer buffer,
+      long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+  }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An output stream that passes message data through to an underlying stream,
+ * keeping track of the last byte written so that each message can be
+ * terminated with a line ending and a blank line.
+ * <p>
+ * Requests to flush or close this stream are not passed through to the
+ * underlying stream; the owner of the underlying stream decides when it
+ * should be flushed.
+ *
+ * @author Carl Harris
+ */
+class MessageOutputStream extends FilterOutputStream {
+
+  private static final int CR = '\r';
+  private static final int LF = '\n';
+
+  private long count;
+  private int last = -1;
+
+  /**
+   * Constructs a new instance.
+   * @param out the underlying stream
+   */
+  MessageOutputStream(OutputStream out) {
+    super(out);
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    out.write(b);
+    last = b & 0xff;
+    count++;
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    if (len == 0) return;
+    out.write(b, off, len);
+    last = b[off + len - 1] & 0xff;
+    count += len;
+  }
+
+  @Override
+  public void flush() throws IOException {
+  }
+
+  @Override
+  public void close() throws IOException {
+  }
+
+  /**
+   * Gets the number of bytes of message data written since the last message
+   * was ended.
+   * @return byte count
+   */
+  long getCount() {
+    return count;
+  }
+
+  /**
+   * Forgets the current message, after the data written for it has been
+   * discarded from the underlying stream.
+   */
+  void discardMessage() {
+    count = 0;
+    last = -1;
+  }
+
+  /**
+   * Ends the current message.
+   * <p>
+   * If any message data was written, a line ending is written if the data did
+   * not end with one, followed by a blank line.
+   * @return number of bytes written to end the message
+   * @throws IOException if an error occurs writing to the underlying stream
+   */
+  int endMessage() throws IOException {
+    if (count == 0) return 0;
+    int written = 2;
+    if (last != LF) {
+      out.write(CR);
+      out.write(LF);
+      written += 2;
+    }
+    out.write(CR);
+    out.write(LF);
+    count = 0;
+    last = -1;
+    return written;
+  }
+
+}
@@ -0,0 +1,606 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import javax.mail.Address;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.internet.AddressException;
+import javax.mail.internet.InternetAddress;
+
+/**
+ * A compiled set of rules that decide whether a transport should fail,
+ * delay, drop, or reroute a message.
+ * <p>
+ * Rules are named in order of precedence by the {@code mail.<protocol>.rules}
+ * property, and each rule is configured by properties named
+ * {@code mail.<protocol>.rule.<name>.*}.  A rule matches a message when any
+ * of its conditions holds:
+ * <ul>
+ * <li>{@code domains} -- a comma-separated list of domains; matches when the
+ *     domain of any recipient is one of them (ignoring case)</li>
+ * <li>{@code recipient} -- a regular expression; matches when the address of
+ *     any recipient matches it (ignoring case)</li>
+ * <li>{@code header} and {@code headerPattern} -- a header name and a
+ *     regular expression; matches when any value of the header matches the
+ *     expression (which defaults to any value at all)</li>
+ * </ul>
+ * When more than one rule matches, the first one named wins.  The
+ * {@code action} property of the rule says what happens to the message:
+ * <ul>
+ * <li>{@code fail} -- the message fails with a {@link MessagingException}
+ *     whose text is given by the {@code error} property</li>
+ * <li>{@code delay} -- the message is sent after a delay given by the
+ *     {@code delay} property as a {@link LatencyDistribution}</li>
+ * <li>{@code drop} -- the message is discarded as if it had been sent</li>
+ * <li>{@code route} -- the message is sent to the addresses given by the
+ *     {@code route} property instead of its recipients</li>
+ * </ul>
+ * <p>
+ * Rules are compiled once for each distinct configuration, and the result
+ * is cached and shared by every transport configured with the same rule
+ * properties, so that a transport created for each message (as by
+ * {@link javax.mail.Transport#send(Message)}) does not compile them again.
+ * The cache refers to each compiled set of rules softly, so it is discarded
+ * only when memory is short.
+ * <p>
+ * Domains are placed in a hash table that is probed directly with each
+ * recipient's address, and the regular expressions for recipients and for
+ * each header are combined into a single pattern whose alternatives are the
+ * rules in order of precedence, so that one call to the matcher finds the
+ * winning rule.  The combined pattern is not a true automaton:
+ * {@link java.util.regex} still tries the alternatives from left to right,
+ * backtracking after each one that fails, so the cost of a match that finds
+ * no rule grows with the number of expressions.  Evaluating a message
+ * allocates nothing beyond what JavaMail allocates to retrieve header
+ * values.  Since the expressions are combined, they must not use numbered
+ * back references.
+ *
+ * @author Carl Harris
+ */
+class MessageRules {
+
+  static final String RULES = "rules";
+  static final String RULE = "rule.";
+  static final String DOMAINS = ".domains";
+  static final String RECIPIENT = ".recipient";
+  static final String HEADER = ".header";
+  static final String HEADER_PATTERN = ".headerPattern";
+  static final String ACTION = ".action";
+  static final String ERROR = ".error";
+  static final String DELAY = ".delay";
+  static final String ROUTE = ".route";
+
+  private static final String[] RULE_PROPERTIES = { DOMAINS, RECIPIENT,
+      HEADER, HEADER_PATTERN, ACTION, ERROR, DELAY, ROUTE };
+
+  private static final ConcurrentMap<List<String>, RulesRef> cache =
+      new ConcurrentHashMap<>();
+
+  private static final ReferenceQueue<MessageRules> queue =
+      new ReferenceQueue<>();
+
+  enum Action {
+    FAIL,
+    DELAY,
+    DROP,
+    ROUTE;
+
+    static Action forName(String property, String name) {
+      if (name == null) {
+        throw new IllegalArgumentException("property " + property
+            + " is required");
+      }
+      try {
+        return valueOf(name.trim().toUpperCase(Locale.ENGLISH));
+      }
+      catch (IllegalArgumentException ex) {
+        throw new IllegalArgumentException("property " + property
+            + " allows 'fail', 'delay', 'drop', or 'route'");
+      }
+    }
+  }
+
+  /**
+   * A rule's action and its parameters.
+   */
+  static class Rule {
+
+    private final String name;
+    private final Action action;
+    private final String error;
+    private final LatencyDistribution delay;
+    private final Address[] route;
+
+    Rule(String name, Action action, String error, LatencyDistribution delay,
+        Address[] route) {
+      this.name = name;
+      this.action = action;
+      this.error = error;
+      this.delay = delay;
+      this.route = route;
+    }
+
+    String getName() {
+      return name;
+    }
+
+    Action getAction() {
+      return action;
+    }
+
+  }
+
+  private final Rule[] rules;
+  private final DomainTable domains;
+  private final PatternSet recipients;
+  private final String[] headerNames;
+  private final PatternSet[] headerPatterns;
+
+  private MessageRules(Rule[] rules, DomainTable domains,
+      PatternSet recipients, String[] headerNames,
+      PatternSet[] headerPatterns) {
+    this.rules = rules;
+    this.domains = domains;
+    this.recipients = recipients;
+    this.headerNames = headerNames;
+    this.headerPatterns = headerPatterns;
+  }
+
+  /**
+   * Gets the compiled rules configured for a transport, compiling them if
+   * no rules with the same configuration are cached.
+   * @param properties session properties
+   * @param protocol protocol name of the transport
+   * @return rules or {@code null} if no rules are configured
+   * @throws IllegalArgumentException if a property value is not valid
+   */
+  static MessageRules newInstance(SessionProperties properties,
+      String protocol) {
+    final String prefix = "mail." + protocol + ".";
+    final String names = properties.getProperty(prefix + RULES);
+    if (names == null || names.trim().isEmpty()) return null;
+
+    expungeStaleEntries();
+    final List<String> key = cacheKey(properties, prefix, names);
+    final RulesRef ref = cache.get(key);
+    MessageRules rules = ref != null ? ref.get() : null;
+    if (rules == null) {
+      rules = compile(properties, prefix, names);
+      if (rules != null) {
+        cache.put(key, new RulesRef(key, rules, queue));
+      }
+    }
+    return rules;
+  }
+
+  /**
+   * Creates the key under which the rules with the given names are cached.
+   * @param properties session properties
+   * @param prefix prefix of the transport's property names
+   * @param names value of the property that names the rules
+   * @return a list of the value of each property that configures the rules
+   */
+  private static List<String> cacheKey(SessionProperties properties,
+      String prefix, String names) {
+    final List<String> key = new ArrayList<>();
+    key.add(prefix);
+    key.add(names);
+    for (final String value : names.split(",")) {
+      final String rule = prefix + RULE + value.trim();
+      for (final String suffix : RULE_PROPERTIES) {
+        key.add(properties.getProperty(rule + suffix));
+      }
+    }
+    return Collections.unmodifiableList(key);
+  }
+
+  private static MessageRules compile(SessionProperties properties,
+      String prefix, String names) {
+    final List<Rule> rules = new ArrayList<>();
+    final Map<String, Integer> domains = new LinkedHashMap<>();
+    final PatternSet.Builder recipients =
+        new PatternSet.Builder(Pattern.CASE_INSENSITIVE);
+    final Map<String, PatternSet.Builder> headers = new LinkedHashMap<>();
+
+    for (final String value : names.split(",")) {
+      final String name = value.trim();
+      if (name.isEmpty()) continue;
+      final int index = rules.size();
+      final String rule = prefix + RULE + name;
+      boolean conditional = false;
+
+      final String domainList = properties.getProperty(rule + DOMAINS);
+      if (domainList != null) {
+        for (final String domain : domainList.split(",")) {
+          final String key = domain.trim().toLowerCase(Locale.ENGLISH);
+          if (key.isEmpty()) continue;
+          if (!domains.containsKey(key)) {
+            domains.put(key, index);
+          }
+          conditional = true;
+        }
+      }
+
+      final String recipient = properties.getProperty(rule + RECIPIENT);
+      if (recipient != null) {
+        recipients.add(rule + RECIPIENT, recipient, index);
+        conditional = true;
+      }
+
+      final String header = properties.getProperty(rule + HEADER);
+      if (header != null) {
+        final String key = header.trim();
+        final String lowerKey = key.toLowerCase(Locale.ENGLISH);
+        final String headerPattern =
+            properties.getProperty(rule + HEADER_PATTERN);
+        PatternSet.Builder builder = headers.get(lowerKey);
+        if (builder == null) {
+          builder = new PatternSet.Builder(Pattern.DOTALL);
+          builder.headerName = key;
+          headers.put(lowerKey, builder);
+        }
+        builder.add(rule + HEADER_PATTERN,
+            headerPattern != null ? headerPattern : ".*", index);
+        conditional = true;
+      }
+
+      if (!conditional) {
+        throw new IllegalArgumentException("rule " + name
+            + " must specify domains, a recipient pattern, or a header");
+      }
+      rules.add(newRule(properties, rule, name));
+    }
+
+    if (rules.isEmpty()) return null;
+
+    final String[] headerNames = new String[headers.size()];
+    final PatternSet[] headerPatterns = new PatternSet[headers.size()];
+    int i = 0;
+    for (final PatternSet.Builder builder : headers.values()) {
+      headerNames[i] = builder.headerName;
+      headerPatterns[i] = builder.build();
+      i++;
+    }
+
+    return new MessageRules(rules.toArray(new Rule[rules.size()]),
+        domains.isEmpty() ? null : new DomainTable(domains),
+        recipients.build(), headerNames, headerPatterns);
+  }
+
+  private static Rule newRule(SessionProperties properties, String rule,
+      String name) {
+    final Action action = Action.forName(rule + ACTION,
+        properties.getProperty(rule + ACTION));
+    String error = null;
+    LatencyDistribution delay = null;
+    Address[] route = null;
+    switch (action) {
+      case FAIL:
+        error = properties.getProperty(rule + ERROR);
+        if (error == null) {
+          error = "message rejected by rule " + name;
+        }
+        break;
+      case DELAY:
+        delay = LatencyDistribution.forSpec(rule + DELAY,
+            requiredProperty(properties, rule + DELAY));
+        break;
+      case ROUTE:
+        try {
+          route = InternetAddress.parse(
+              requiredProperty(properties, rule + ROUTE));
+        }
+        catch (AddressException ex) {
+          throw new IllegalArgumentException("property " + rule + ROUTE
+              + " has an invalid address: " + ex.getMessage(), ex);
+        }
+        if (route.length == 0) {
+          throw new IllegalArgumentException("property " + rule + ROUTE
+              + " must specify at least one address");
+        }
+        break;
+      default:
+        break;
+    }
+    return new Rule(name, action, error, delay, route);
+  }
+
+  private static String requiredProperty(SessionProperties properties,
+      String name) {
+    final String value = properties.getProperty(name);
+    if (value == null) {
+      throw new IllegalArgumentException("property " + name + " is required");
+    }
+    return value;
+  }
+
+  private static void expungeStaleEntries() {
+    RulesRef ref;
+    while ((ref = (RulesRef) queue.poll()) != null) {
+      cache.remove(ref.key, ref);
+    }
+  }
+
+  /**
+   * Applies the first rule that matches a message.
+   * <p>
+   * A {@code fail} rule throws its error, and a {@code delay} rule sleeps
+   * for its delay before returning.
+   * @param rules the rules to apply or {@code null} if there are none
+   * @param message the subject message
+   * @param addresses the message's envelope recipients
+   * @return the recipients to which the message should be sent, or
+   *    {@code null} if the message should be dropped; the returned array
+   *    must not be modified
+   * @throws MessagingException if a rule fails the message, or if the
+   *    thread is interrupted during a delay
+   */
+  static Address[] apply(MessageRules rules, Message message,
+      Address[] addresses) throws MessagingException {
+    if (rules == null) return addresses;
+    final Rule rule = rules.evaluate(message, addresses);
+    if (rule == null) return addresses;
+    switch (rule.action) {
+      case FAIL:
+        throw new MessagingException(rule.error);
+      case DELAY:
+        sleep(rule.delay.nextDelay(ThreadLocalRandom.current()));
+        return addresses;
+      case DROP:
+        return null;
+      case ROUTE:
+        return rule.route;
+      default:
+        throw new AssertionError("unrecognized action");
+    }
+  }
+
+  /**
+   * Finds the first rule that matches a message.
+   * @param message the subject message
+   * @param addresses the message's envelope recipients
+   * @return matching rule or {@code null} if no rule matches
+   * @throws MessagingException if the message's headers cannot be read
+   */
+  Rule evaluate(Message message, Address[] addresses)
+      throws MessagingException {
+    int best = rules.length;
+    if (addresses != null && (domains != null || recipients != null)) {
+      for (final Address address : addresses) {
+        if (!(address instanceof InternetAddress)) continue;
+        final String value = ((InternetAddress) address).getAddress();
+        if (value == null) continue;
+        if (domains != null) {
+          final int at = value.lastIndexOf('@');
+          if (at != -1) {
+            best = min(best, domains.get(value, at + 1));
+          }
+        }
+        if (recipients != null && recipients.first < best) {
+          best = min(best, recipients.match(value));
+        }
+        if (best == 0) return rules[0];
+      }
+    }
+    for (int i = 0; i < headerNames.length; i++) {
+      final PatternSet patterns = headerPatterns[i];
+      if (patterns.first >= best) continue;
+      final String[] values = message.getHeader(headerNames[i]);
+      if (values == null) continue;
+      for (final String value : values) {
+        best = min(best, patterns.match(value));
+      }
+    }
+    return best < rules.length ? rules[best] : null;
+  }
+
+  private static int min(int best, int index) {
+    return index != -1 && index < best ? index : best;
+  }
+
+  private static void sleep(long delay) throws MessagingException {
+    if (delay <= 0) return;
+    try {
+      TimeUnit.MILLISECONDS.sleep(delay);
+    }
+    catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new MessagingException("interrupted during rule delay", ex);
+    }
+  }
+
+  /**
+   * An open-addressed hash table of lower case domain names, probed with a
+   * region of an address so that no substring need be created.
+   */
+  static class DomainTable {
+
+    private final String[] keys;
+    private final int[] values;
+    private final int mask;
+
+    DomainTable(Map<String, Integer> domains) {
+      int capacity = 2;
+      while (capacity < 2 * domains.size()) {
+        capacity <<= 1;
+      }
+      keys = new String[capacity];
+      values = new int[capacity];
+      mask = capacity - 1;
+      for (final Map.Entry<String, Integer> entry : domains.entrySet()) {
+        final String key = entry.getKey();
+        int slot = hash(key, 0) & mask;
+        while (keys[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = entry.getValue();
+      }
+    }
+
+    /**
+     * Gets the value for the domain that occupies the end of a string.
+     * @param s the subject string
+     * @param offset offset of the domain within {@code s}
+     * @return value or -1 if the domain is not in the table
+     */
+    int get(String s, int offset) {
+      final int length = s.length() - offset;
+      int slot = hash(s, offset) & mask;
+      String key;
+      while ((key = keys[slot]) != null) {
+        if (key.length() == length
+            && s.regionMatches(true, offset, key, 0, length)) {
+          return values[slot];
+        }
+        slot = (slot + 1) & mask;
+      }
+      return -1;
+    }
+
+    private static int hash(String s, int offset) {
+      int h = 0;
+      for (int i = offset, max = s.length(); i < max; i++) {
+        h = 31 * h + Character.toLowerCase(s.charAt(i));
+      }
+      return h ^ (h >>> 16);
+    }
+
+  }
+
+  /**
+   * A set of regular expressions combined into a single pattern, in which
+   * each expression is a capturing group.
+   */
+  static class PatternSet {
+
+    private final Pattern pattern;
+    private final int[] groups;
+    private final int[] indexes;
+    private final int first;
+
+    private final ThreadLocal<Matcher> matchers = new ThreadLocal<Matcher>() {
+      @Override
+      protected Matcher initialValue() {
+        return pattern.matcher("");
+      }
+    };
+
+    private PatternSet(Pattern pattern, int[] groups, int[] indexes) {
+      this.pattern = pattern;
+      this.groups = groups;
+      this.indexes = indexes;
+      this.first = indexes[0];
+    }
+
+    /**
+     * Matches a string against the set.
+     * @param s the subject string
+     * @return index associated with the first expression that matches
+     *    all of {@code s}, or -1 if none matches
+     */
+    int match(CharSequence s) {
+      final Matcher matcher = matchers.get().reset(s);
+      if (!matcher.matches()) return -1;
+      for (int i = 0; i < groups.length; i++) {
+        if (matcher.start(groups[i]) != -1) return indexes[i];
+      }
+      return -1;
+    }
+
+    static class Builder {
+
+      private final StringBuilder pattern = new StringBuilder();
+      private final List<Integer> groups = new ArrayList<>();
+      private final List<Integer> indexes = new ArrayList<>();
+      private final int flags;
+      private int group = 1;
+
+      String headerName;
+
+      Builder(int flags) {
+        this.flags = flags;
+      }
+
+      void add(String property, String regex, int index) {
+        final int groupCount;
+        try {
+          groupCount = Pattern.compile(regex, flags).matcher("").groupCount();
+        }
+        catch (PatternSyntaxException ex) {
+          throw new IllegalArgumentException("property " + property
+              + " is not a valid pattern: " + ex.getDescription(), ex);
+        }
+        if (pattern.length() > 0) {
+          pattern.append('|');
+        }
+        pattern.append('(').append(regex).append(')');
+        groups.add(group);
+        indexes.add(index);
+        group += groupCount + 1;
+      }
+
+      PatternSet build() {
+        if (groups.isEmpty()) return null;
+        final int[] groups = new int[this.groups.size()];
+        final int[] indexes = new int[this.indexes.size()];
+        for (int i = 0; i < groups.length; i++) {
+          groups[i] = this.groups.get(i);
+          indexes[i] = this.indexes.get(i);
+        }
+        return new PatternSet(Pattern.compile(pattern.toString(), flags),
+            groups, indexes);
+      }
+
+    }
+
+  }
+
+  /**
+   * A soft reference to cached rules that remembers its key.
+   */
+  private static class RulesRef extends SoftReference<MessageRules> {
+
+    final List<String> key;
+
+    RulesRef(List<String> key, MessageRules rules,
+        ReferenceQueue<MessageRules> queue) {
+      super(rules, queue);
+      this.key = key;
+    }
+
+  }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+
+/**
+ * A writer that records sent messages.
+ *
+ * @author Carl Harris
+ */
+interface MessageWriter extends Closeable {
+
+  /**
+   * Writes a message.
+   * @param message the message to write
+   * @throws MessagingException if the message cannot be serialized
+   * @throws IOException if an error occurs in writing the message
+   */
+  void write(Message message) throws MessagingException, IOException;
+
+  /**
+   * Commits messages that have been written, so that they are visible to
+   * readers (and durable, if the writer's policy requires it).
+   * @param messages number of messages written since the last commit
+   * @throws IOException if an error occurs in committing the messages
+   */
+  void commit(int messages) throws IOException;
+
+}
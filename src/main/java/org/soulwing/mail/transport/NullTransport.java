@@ -18,6 +18,8 @@
  */
 package org.soulwing.mail.transport;
 
+import java.io.IOException;
+import java.util.Locale;
 import javax.mail.Address;
 import javax.mail.Message;
 import javax.mail.MessagingException;
@@ -27,13 +29,61 @@ import javax.mail.URLName;
 
 /**
  * A transport that simply discards any message that is sent to it.
+ * <p>
+ * When the {@value #MODE} property is set to {@code blackhole}, each
+ * message is encoded (using {@link Message#writeTo}) into a stream that
+ * counts and discards its bytes, and the size of the message and the time
+ * spent encoding it are recorded in the {@link BlackholeStatistics} named
+ * by the {@value #NAME} property.  This allows the cost of building and
+ * encoding messages to be measured apart from the cost of any I/O.
  *
  * @author Carl Harris
  */
 public class NullTransport extends Transport {
 
+  private static final String NULL_PROVIDER = "mail.null";
+  public static final String MODE = NULL_PROVIDER + ".mode";
+  public static final String NAME = NULL_PROVIDER + ".name";
+
+  enum Mode {
+    DISCARD,
+    BLACKHOLE;
+
+    static Mode forName(String property, String name) {
+      if (name == null) return DISCARD;
+      try {
+        return valueOf(name.trim().toUpperCase(Locale.ENGLISH));
+      }
+      catch (IllegalArgumentException ex) {
+        throw new IllegalArgumentException("property " + property
+            + " allows either 'discard' or 'blackhole'");
+      }
+    }
+  }
+
+  private final BlackholeStatistics statistics;
+
   public NullTransport(Session session, URLName urlname) {
     super(session, urlname);
+    final SessionProperties properties = new SessionProperties(session);
+    final Mode mode = Mode.forName(MODE, properties.getProperty(MODE));
+    if (mode == Mode.BLACKHOLE) {
+      final String name = properties.getProperty(NAME);
+      statistics = BlackholeStatistics.named(
+          name != null ? name : BlackholeStatistics.DEFAULT_NAME);
+    }
+    else {
+      statistics = null;
+    }
+  }
+
+  /**
+   * Gets the statistics for the messages encoded by this transport.
+   * @return statistics or {@code null} if this transport is not in
+   *    blackhole mode
+   */
+  public BlackholeStatistics getStatistics() {
+    return statistics;
   }
 
   @Override
@@ -51,7 +101,22 @@ public class NullTransport extends Transport {
   @Override
   public void sendMessage(Message message, Address[] addresses)
       throws MessagingException {
-    // no-op
+    if (statistics == null) return;
+    final CountingOutputStream outputStream =
+        CountingOutputStream.discarding();
+    final long start = System.nanoTime();
+    try {
+      message.writeTo(outputStream);
+    }
+    catch (IOException ex) {
+      statistics.recordError();
+      throw new MessagingException("error encoding message", ex);
+    }
+    catch (MessagingException ex) {
+      statistics.recordError();
+      throw ex;
+    }
+    statistics.record(outputStream.getCount(), System.nanoTime() - start);
   }
 
 }
@@ -0,0 +1,96 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A {@link JndiObjectLocator} that finds objects in an in-process registry
+ * rather than in a JNDI naming context.
+ * <p>
+ * Outside of a container there is usually no JNDI provider, and creating an
+ * initial context only to have every lookup fail is wasted effort.  An
+ * application can instead bind its delegate sessions in this registry at
+ * startup:
+ * <pre>
+ * RegistryObjectLocator.bind("mail/Delegate", delegateSession);
+ * </pre>
+ * and select this locator either by setting the
+ * {@value FixedRecipientTransport#LOCATOR_CLASS} property to the name of this
+ * class, or by naming this class in a
+ * {@code META-INF/services/org.soulwing.mail.transport.JndiObjectLocator}
+ * resource.
+ * <p>
+ * The registry is shared by all instances of this class in the same class
+ * loader; lookups are a single concurrent map read.
+ *
+ * @author Carl Harris
+ */
+public class RegistryObjectLocator implements JndiObjectLocator {
+
+  private static final ConcurrentMap<String, Object> registry =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Binds an object in the registry, replacing any object already bound to
+   * the same name.
+   * @param name the name to bind
+   * @param object the object to bind
+   * @return the object previously bound to {@code name} or {@code null} if
+   *    none
+   */
+  public static Object bind(String name, Object object) {
+    if (name == null) {
+      throw new NullPointerException("name is required");
+    }
+    if (object == null) {
+      throw new NullPointerException("object is required");
+    }
+    return registry.put(name, object);
+  }
+
+  /**
+   * Removes an object from the registry.
+   * @param name the name to unbind
+   * @return the object that was bound to {@code name} or {@code null} if none
+   */
+  public static Object unbind(String name) {
+    return registry.remove(name);
+  }
+
+  /**
+   * Removes all objects from the registry.
+   */
+  public static void clear() {
+    registry.clear();
+  }
+
+  /**
+   * Gets the object bound as {@code name} in the registry.
+   * @param name the name to lookup
+   * @return bound object or {@code null} if no object is bound with the
+   *    given {@code name}
+   */
+  @Override
+  public Object lookup(String name) {
+    return registry.get(name);
+  }
+
+}
@@ -0,0 +1,258 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+
+/**
+ * A writer that divides messages among a series of segment files, starting
+ * a new segment when the current segment reaches a size or age limit.
+ * <p>
+ * Each segment is named by appending the time at which the segment was
+ * started (in UTC) and a sequence number to the configured path; e.g. for
+ * the path {@code /tmp/mail.txt} a segment might be named
+ * {@code /tmp/mail.txt.20261018T143000123Z.000001}.  Sorting the names of the
+ * segments produces the order in which they were written.
+ * <p>
+ * When opened, the writer continues the most recent existing segment if it
+ * has not reached either limit.  When a maximum number of segments is
+ * configured, the oldest segments beyond that number are deleted in the
+ * background each time a new segment is started, along with their indexes.
+ *
+ * @author Carl Harris
+ */
+class SegmentedMessageWriter implements MessageWriter {
+
+  private static final Logger logger = Logger.getLogger(
+      SegmentedMessageWriter.class.getName());
+
+  private static final String TIMESTAMP_FORMAT = "yyyyMMdd'T'HHmmssSSS'Z'";
+
+  private static final Pattern SEGMENT_SUFFIX =
+      Pattern.compile("\\.(\\d{8}T\\d{9}Z)\\.(\\d{6})");
+
+  private static final ExecutorService retentionExecutor =
+      Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          final Thread thread = new Thread(r, "file-transport-retention");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+
+  private final File base;
+  private final long segmentBytes;
+  private final long segmentMillis;
+  private final int maxSegments;
+  private final MessageFileOptions options;
+
+  private MessageFileWriter segment;
+  private long segmentStart;
+  private int sequence;
+
+  private SegmentedMessageWriter(File base, long segmentBytes,
+      long segmentMillis, int maxSegments, MessageFileOptions options) {
+    this.base = base;
+    this.segmentBytes = segmentBytes;
+    this.segmentMillis = segmentMillis;
+    this.maxSegments = maxSegments;
+    this.options = options;
+  }
+
+  /**
+   * Opens a segmented writer.
+   * @param path base path for segment files
+   * @param segmentBytes size at which a new segment is started, or zero if
+   *    segments are not limited by size
+   * @param segmentMillis age in milliseconds at which a new segment is
+   *    started, or zero if segments are not limited by age
+   * @param maxSegments maximum number of segments to retain, or zero if all
+   *    segments are retained
+   * @param options options for writing messages to each segment
+   * @return writer
+   * @throws IOException if a segment cannot be opened or created
+   */
+  static SegmentedMessageWriter open(String path, long segmentBytes,
+      long segmentMillis, int maxSegments, MessageFileOptions options)
+      throws IOException {
+    final SegmentedMessageWriter writer = new SegmentedMessageWriter(
+        new File(path).getAbsoluteFile(), segmentBytes, segmentMillis,
+        maxSegments, options);
+    writer.openSegment();
+    return writer;
+  }
+
+  /**
+   * Gets the existing segments for the given base path.
+   * @param path base path for segment files
+   * @return segment files, in the order in which they were written
+   */
+  static File[] segments(String path) {
+    final File base = new File(path).getAbsoluteFile();
+    final String prefix = base.getName();
+    final File[] files = base.getParentFile().listFiles(new FilenameFilter() {
+      @Override
+      public boolean accept(File dir, String name) {
+        return name.startsWith(prefix) && SEGMENT_SUFFIX.matcher(
+            name.substring(prefix.length())).matches();
+      }
+    });
+    if (files == null) return new File[0];
+    Arrays.sort(files);
+    return files;
+  }
+
+  @Override
+  public void write(Message message) throws MessagingException, IOException {
+    if (isRollDue()) {
+      roll();
+    }
+    segment.write(message);
+  }
+
+  @Override
+  public void commit(int messages) throws IOException {
+    segment.commit(messages);
+  }
+
+  @Override
+  public void close() throws IOException {
+    segment.close();
+  }
+
+  private boolean isRollDue() {
+    if (segmentBytes > 0 && segment.size() >= segmentBytes) return true;
+    return segmentMillis > 0
+        && System.currentTimeMillis() - segmentStart >= segmentMillis;
+  }
+
+  private void roll() throws IOException {
+    segment.close();
+    segment = null;
+    startSegment();
+    enforceRetention();
+  }
+
+  private void openSegment() throws IOException {
+    final File[] segments = segments(base.toString());
+    if (segments.length > 0) {
+      final File latest = segments[segments.length - 1];
+      final Matcher matcher = SEGMENT_SUFFIX.matcher(
+          latest.getName().substring(base.getName().length()));
+      if (matcher.matches()) {
+        segmentStart = parseTimestamp(matcher.group(1));
+        sequence = Integer.parseInt(matcher.group(2));
+        segment = MessageFileWriter.open(latest.toString(), true, options);
+        if (!isRollDue()) return;
+        segment.close();
+        segment = null;
+      }
+    }
+    startSegment();
+    enforceRetention();
+  }
+
+  private void startSegment() throws IOException {
+    segmentStart = System.currentTimeMillis();
+    sequence = sequence % 999999 + 1;
+    final String name = String.format("%s.%s.%06d", base,
+        formatTimestamp(segmentStart), sequence);
+    segment = MessageFileWriter.open(name, true, options);
+  }
+
+  private void enforceRetention() {
+    if (maxSegments <= 0) return;
+    retentionExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        final File[] segments = segments(base.toString());
+        for (int i = 0; i < segments.length - maxSegments; i++) {
+          if (!segments[i].delete()) {
+            logger.warning("cannot delete segment " + segments[i]);
+          }
+          final File index = MessageIndex.indexFile(segments[i]);
+          if (index.exists() && !index.delete()) {
+            logger.warning("cannot delete index " + index);
+          }
+        }
+      }
+    });
+  }
+
+  /**
+   * Waits for every retention task submitted so far to complete.
+   * <p>
+   * Retention tasks run in order on a single thread, so this method submits
+   * an empty task and waits for it.
+   * @param timeout maximum time to wait
+   * @param unit unit of {@code timeout}
+   * @return {@code true} if the tasks completed within the timeout
+   * @throws InterruptedException if the calling thread is interrupted
+   */
+  static boolean awaitRetention(long timeout, TimeUnit unit)
+      throws InterruptedException {
+    final CountDownLatch latch = new CountDownLatch(1);
+    retentionExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        latch.countDown();
+      }
+    });
+    return latch.await(timeout, unit);
+  }
+
+  private static String formatTimestamp(long time) {
+    return dateFormat().format(new Date(time));
+  }
+
+  private static long parseTimestamp(String timestamp) {
+    try {
+      return dateFormat().parse(timestamp).getTime();
+    }
+    catch (ParseException ex) {
+      return 0;
+    }
+  }
+
+  private static DateFormat dateFormat() {
+    final DateFormat dateFormat = new SimpleDateFormat(TIMESTAMP_FORMAT);
+    dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+    return dateFormat;
+  }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.mail.Session;
+
+/**
+ * A value that is held separately for each {@link Session}, in the way that
+ * a {@link ThreadLocal} holds a value for each thread.
+ * <p>
+ * Every transport created for the same session sees the same value, so
+ * state that is kept here outlives any one transport; e.g. when
+ * {@link javax.mail.Transport#send(javax.mail.Message)} creates a transport
+ * for each message.  The holder refers to each session weakly, and a value
+ * is discarded once its session is no longer reachable.  A value must not
+ * refer to its session, or the session will never be discarded.
+ *
+ * @author Carl Harris
+ */
+abstract class SessionLocal<T> {
+
+  private final ConcurrentMap<SessionKey, T> values =
+      new ConcurrentHashMap<>();
+
+  private final ReferenceQueue<Session> queue = new ReferenceQueue<>();
+
+  /**
+   * Creates the value for a session that has none.
+   * <p>
+   * This method may be invoked more than once for the same session by
+   * threads that request its value at the same time; only one of the values
+   * created is kept.
+   * @param session the session
+   * @return value for {@code session}
+   */
+  protected abstract T initialValue(Session session);
+
+  /**
+   * Gets the value for a session, creating it if necessary.
+   * @param session the session
+   * @return value for {@code session}
+   */
+  T get(Session session) {
+    expungeStaleEntries();
+    final T value = values.get(new SessionKey(session, null));
+    if (value != null) return value;
+    final T newValue = initialValue(session);
+    final T oldValue = values.putIfAbsent(
+        new SessionKey(session, queue), newValue);
+    return oldValue != null ? oldValue : newValue;
+  }
+
+  /**
+   * Discards the value for a session, so that the next request for it
+   * creates a new value.
+   * @param session the session
+   */
+  void remove(Session session) {
+    expungeStaleEntries();
+    values.remove(new SessionKey(session, null));
+  }
+
+  private void expungeStaleEntries() {
+    Object key;
+    while ((key = queue.poll()) != null) {
+      values.remove(key);
+    }
+  }
+
+  /**
+   * A weak reference to a session that is equal only to another reference
+   * to the same session.
+   */
+  private static final class SessionKey extends WeakReference<Session> {
+
+    private final int hashCode;
+
+    SessionKey(Session session, ReferenceQueue<? super Session> queue) {
+      super(session, queue);
+      this.hashCode = System.identityHashCode(session);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == this) return true;
+      if (!(obj instanceof SessionKey)) return false;
+      final Session session = get();
+      return session != null && session == ((SessionKey) obj).get();
+    }
+
+  }
+
+}
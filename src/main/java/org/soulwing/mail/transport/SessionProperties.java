@@ -94,15 +94,63 @@ public class SessionProperties {
   }
 
   /**
-   * Gets a boolean property value.
+   * Gets an integer property value.
    * @param name name of the property
    * @param defaultValue value to return if none is set
    * @return property value
+   * @throws MessagingException if the property is not set to an integer
    */
-  public long getLongProperty(String name, long defaultValue) {
+  public int getIntProperty(String name, int defaultValue)
+      throws MessagingException {
     String value = getProperty(name);
     if (value == null) return defaultValue;
-    return Long.valueOf(value);
+    try {
+      return Integer.parseInt(value.trim());
+    }
+    catch (NumberFormatException ex) {
+      throw new MessagingException("property " + name
+          + " must be an integer", ex);
+    }
+  }
+
+  /**
+   * Gets a long integer property value.
+   * @param name name of the property
+   * @param defaultValue value to return if none is set
+   * @return property value
+   * @throws MessagingException if the property is not set to an integer
+   */
+  public long getLongProperty(String name, long defaultValue)
+      throws MessagingException {
+    String value = getProperty(name);
+    if (value == null) return defaultValue;
+    try {
+      return Long.parseLong(value.trim());
+    }
+    catch (NumberFormatException ex) {
+      throw new MessagingException("property " + name
+          + " must be an integer", ex);
+    }
+  }
+
+  /**
+   * Gets a floating point property value.
+   * @param name name of the property
+   * @param defaultValue value to return if none is set
+   * @return property value
+   * @throws MessagingException if the property is not set to a number
+   */
+  public double getDoubleProperty(String name, double defaultValue)
+      throws MessagingException {
+    String value = getProperty(name);
+    if (value == null) return defaultValue;
+    try {
+      return Double.parseDouble(value.trim());
+    }
+    catch (NumberFormatException ex) {
+      throw new MessagingException("property " + name
+          + " must be a number", ex);
+    }
   }
 
   /**
@@ -110,18 +158,20 @@ public class SessionProperties {
    * @param protocol name of the protocol for these session properties
    * @return delegate properties (which may be empty)
    */
-
   public Properties getDelegateProperties(String protocol) {
-    final String prefix = String.format("mail.%s.delegate.", protocol);
-    final Properties properties = new Properties();
-    for (final Object key : this.properties.keySet()) {
-      final String name = (String) key;
-      if (name.startsWith(prefix)) {
-        final String targetName = name.replace(prefix, "mail.");
-        properties.setProperty(targetName, this.properties.getProperty(name));
+    final String prefix = "mail." + protocol + ".delegate.";
+    final Properties delegateProperties = new Properties();
+    synchronized (properties) {
+      for (final Object key : properties.keySet()) {
+        final String name = (String) key;
+        if (name.startsWith(prefix)) {
+          delegateProperties.setProperty(
+              "mail." + name.substring(prefix.length()),
+              properties.getProperty(name));
+        }
       }
     }
-    return properties;
+    return delegateProperties;
   }
 
   
@@ -0,0 +1,162 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import javax.mail.MessagingException;
+
+/**
+ * A policy that determines when message data written to a file should be
+ * forced to the storage device.
+ * <p>
+ * A policy is specified using one of these forms:
+ * <ul>
+ *   <li>{@code none} &mdash; never force; durability is left to the
+ *       operating system</li>
+ *   <li>{@code always} &mdash; force after every message</li>
+ *   <li>{@code interval:<ms>} &mdash; force when messages are committed, if
+ *       at least the given number of milliseconds have elapsed since the
+ *       last force</li>
+ *   <li>{@code batch:<n>} &mdash; force after every {@code n} messages</li>
+ * </ul>
+ * When the policy is anything other than {@code none}, any messages that have
+ * not yet been forced are forced when the file is closed.
+ * <p>
+ * A policy is only consulted when messages are committed; no timer forces
+ * the file.  Under the {@code interval} policy, messages committed just
+ * before the sender falls idle are therefore not forced until more messages
+ * are committed or the file is closed.
+ *
+ * @author Carl Harris
+ */
+class SyncPolicy {
+
+  enum Mode {
+    NONE,
+    ALWAYS,
+    INTERVAL,
+    BATCH
+  }
+
+  /** any amount with this many digits fits in a {@code long} */
+  private static final int MAX_AMOUNT_DIGITS = 18;
+
+  static final SyncPolicy NONE = new SyncPolicy(Mode.NONE, 0);
+  static final SyncPolicy ALWAYS = new SyncPolicy(Mode.ALWAYS, 1);
+
+  private final Mode mode;
+  private final long value;
+
+  private SyncPolicy(Mode mode, long value) {
+    this.mode = mode;
+    this.value = value;
+  }
+
+  /**
+   * Creates a policy from its string representation.
+   * @param property name of the property that specified the policy
+   * @param spec the policy specification; if {@code null} the {@link #NONE}
+   *    policy is returned
+   * @return policy
+   * @throws MessagingException if {@code spec} is not a valid policy
+   */
+  static SyncPolicy forName(String property, String spec)
+      throws MessagingException {
+    if (spec == null) return NONE;
+    final String value = spec.trim().toLowerCase(Locale.ENGLISH);
+    if (value.equals("none")) return NONE;
+    if (value.equals("always")) return ALWAYS;
+    final int index = value.indexOf(':');
+    if (index != -1) {
+      final long amount = parseAmount(property, value.substring(index + 1));
+      switch (value.substring(0, index)) {
+        case "interval":
+          return new SyncPolicy(Mode.INTERVAL,
+              TimeUnit.MILLISECONDS.toNanos(amount));
+        case "batch":
+          return new SyncPolicy(Mode.BATCH, amount);
+        default:
+          break;
+      }
+    }
+    throw new MessagingException("property " + property
+        + " allows 'none', 'always', 'interval:<ms>', or 'batch:<n>'");
+  }
+
+  private static long parseAmount(String property, String amount)
+      throws MessagingException {
+    final String digits = amount.trim();
+    if (!isDigits(digits) || Long.parseLong(digits) == 0) {
+      throw new MessagingException("property " + property
+          + " requires a positive integer of at most "
+          + MAX_AMOUNT_DIGITS + " digits after ':'");
+    }
+    return Long.parseLong(digits);
+  }
+
+  private static boolean isDigits(String s) {
+    if (s.isEmpty() || s.length() > MAX_AMOUNT_DIGITS) return false;
+    for (int i = 0; i < s.length(); i++) {
+      if (s.charAt(i) < '0' || s.charAt(i) > '9') return false;
+    }
+    return true;
+  }
+
+  /**
+   * Gets the mode of this policy.
+   * @return mode
+   */
+  Mode getMode() {
+    return mode;
+  }
+
+  /**
+   * Determines whether the file should be forced now.
+   * @param messages number of messages written since the file was last forced
+   * @param elapsed number of nanoseconds since the file was last forced
+   * @return {@code true} if the file should be forced
+   */
+  boolean isDue(long messages, long elapsed) {
+    if (messages == 0) return false;
+    switch (mode) {
+      case ALWAYS:
+        return true;
+      case INTERVAL:
+        return elapsed >= value;
+      case BATCH:
+        return messages >= value;
+      default:
+        return false;
+    }
+  }
+
+  @Override
+  public String toString() {
+    switch (mode) {
+      case INTERVAL:
+        return "interval:" + TimeUnit.NANOSECONDS.toMillis(value);
+      case BATCH:
+        return "batch:" + value;
+      default:
+        return mode.name().toLowerCase(Locale.ENGLISH);
+    }
+  }
+
+}
@@ -0,0 +1,170 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import javax.mail.Address;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.URLName;
+
+/**
+ * A JavaMail {@link Transport} that limits the rate at which messages are
+ * sent to its delegate, emulating the throttling applied by a mail relay.
+ * <p>
+ * Messages and message bytes are metered using token buckets, configured
+ * by the {@value #MESSAGES_PER_SECOND}, {@value #BURST},
+ * {@value #BYTES_PER_SECOND} and {@value #BYTE_BURST} properties; either
+ * limit (or both) may be set.  When a message would exceed a limit, the
+ * transport either waits until the message can be sent or, when the
+ * {@value #ON_LIMIT} property is set to {@code fail}, throws a
+ * {@link MessagingException} with the text given by the {@value #ERROR}
+ * property.
+ * <p>
+ * By default, each transport instance is metered separately, like a relay
+ * that limits each connection.  When the {@value #SCOPE} property is set to
+ * {@code shared}, all throttling transports configured with the same limits
+ * share the same buckets, like a relay that limits each client.
+ *
+ * @author Carl Harris
+ */
+public class ThrottlingTransport extends DelegatingTransport {
+
+  public static final String PROTOCOL = "throttle";
+
+  private static final String PREFIX = "mail." + PROTOCOL;
+
+  public static final String MESSAGES_PER_SECOND =
+      PREFIX + ".messagesPerSecond";
+  public static final String BURST = PREFIX + ".burst";
+  public static final String BYTES_PER_SECOND = PREFIX + ".bytesPerSecond";
+  public static final String BYTE_BURST = PREFIX + ".byteBurst";
+  public static final String ON_LIMIT = PREFIX + ".onLimit";
+  public static final String ERROR = PREFIX + ".error";
+  public static final String SCOPE = PREFIX + ".scope";
+
+  static final String DEFAULT_ERROR =
+      "421 4.7.0 Rate limit exceeded; try again later";
+
+  private static final ConcurrentMap<String, TokenBucket> sharedBuckets =
+      new ConcurrentHashMap<>();
+
+  private final TokenBucket messageBucket;
+  private final TokenBucket byteBucket;
+  private final boolean failOnLimit;
+  private final String error;
+
+  public ThrottlingTransport(Session session, URLName urlname) {
+    super(session, urlname);
+    final SessionProperties properties = new SessionProperties(session);
+    final boolean shared = isShared(properties.getProperty(SCOPE));
+    try {
+      messageBucket = bucket(properties, MESSAGES_PER_SECOND, BURST, shared);
+      byteBucket = bucket(properties, BYTES_PER_SECOND, BYTE_BURST, shared);
+    }
+    catch (MessagingException ex) {
+      throw new IllegalArgumentException(ex.getMessage(), ex);
+    }
+    failOnLimit = isFailOnLimit(properties.getProperty(ON_LIMIT));
+    final String error = properties.getProperty(ERROR);
+    this.error = error != null ? error : DEFAULT_ERROR;
+  }
+
+  private static boolean isShared(String scope) {
+    if (scope == null || scope.equalsIgnoreCase("connection")) return false;
+    if (scope.equalsIgnoreCase("shared")) return true;
+    throw new IllegalArgumentException("property " + SCOPE
+        + " allows either 'connection' or 'shared'");
+  }
+
+  private static boolean isFailOnLimit(String onLimit) {
+    if (onLimit == null || onLimit.equalsIgnoreCase("block")) return false;
+    if (onLimit.equalsIgnoreCase("fail")) return true;
+    throw new IllegalArgumentException("property " + ON_LIMIT
+        + " allows either 'block' or 'fail'");
+  }
+
+  private static TokenBucket bucket(SessionProperties properties,
+      String rateProperty, String burstProperty, boolean shared)
+      throws MessagingException {
+    if (properties.getProperty(rateProperty) == null) return null;
+    final double rate = properties.getDoubleProperty(rateProperty, 0);
+    final double burst = properties.getDoubleProperty(burstProperty,
+        Math.max(1, rate));
+    if (!(rate > 0)) {
+      throw new IllegalArgumentException("property " + rateProperty
+          + " must be greater than zero");
+    }
+    if (!(burst >= 1)) {
+      throw new IllegalArgumentException("property " + burstProperty
+          + " must be at least one");
+    }
+    if (!shared) return new TokenBucket(rate, burst);
+    final String key = rateProperty + "=" + rate + "," + burst;
+    final TokenBucket bucket = new TokenBucket(rate, burst);
+    final TokenBucket existing = sharedBuckets.putIfAbsent(key, bucket);
+    return existing != null ? existing : bucket;
+  }
+
+  @Override
+  public void sendMessage(Message message, Address[] addresses)
+      throws MessagingException {
+    final long size = byteBucket != null ? size(message) : 0;
+    while (true) {
+      long wait = messageBucket != null ? messageBucket.tryTake(1) : 0;
+      if (wait == 0 && byteBucket != null) {
+        wait = byteBucket.tryTake(size);
+        if (wait != 0 && messageBucket != null) {
+          messageBucket.giveBack(1);
+        }
+      }
+      if (wait == 0) break;
+      if (failOnLimit) {
+        throw new MessagingException(error);
+      }
+      try {
+        TimeUnit.NANOSECONDS.sleep(wait);
+      }
+      catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new MessagingException(
+            "interrupted while waiting for rate limit", ex);
+      }
+    }
+    super.sendMessage(message, addresses);
+  }
+
+  private static long size(Message message) throws MessagingException {
+    final CountingOutputStream outputStream =
+        CountingOutputStream.discarding();
+    try {
+      message.writeTo(outputStream);
+    }
+    catch (IOException ex) {
+      throw new MessagingException("error measuring message", ex);
+    }
+    return outputStream.getCount();
+  }
+
+}
@@ -0,0 +1,43 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+/**
+ * A source of nanosecond time readings, which tests can replace to control
+ * the passage of time.
+ *
+ * @author Carl Harris
+ */
+interface Ticker {
+
+  /** A ticker that reads {@link System#nanoTime()} */
+  Ticker SYSTEM = new Ticker() {
+    @Override
+    public long read() {
+      return System.nanoTime();
+    }
+  };
+
+  /**
+   * Reads the current time.
+   * @return time in nanoseconds, relative to an arbitrary origin
+   */
+  long read();
+
+}
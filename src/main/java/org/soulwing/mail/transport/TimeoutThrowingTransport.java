@@ -18,60 +18,384 @@
  */
 package org.soulwing.mail.transport;
 
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import javax.mail.Address;
 import javax.mail.Message;
 import javax.mail.MessagingException;
 import javax.mail.Session;
 import javax.mail.Transport;
 import javax.mail.URLName;
+import javax.mail.event.TransportEvent;
 
 /**
  * A JavaMail {@link Transport} that times out when connecting or sending
  * a message
+ * <p>
+ * The delay before a simulated timeout is either a fixed time, given by the
+ * {@value #CONNECTION_TIMEOUT} and {@value #MESSAGE_TIMEOUT} properties, or
+ * drawn from a {@link LatencyDistribution} given by the
+ * {@value #CONNECTION_DELAY} and {@value #MESSAGE_DELAY} properties.  Delays
+ * are drawn using a random number generator that can be seeded using the
+ * {@value #SEED} property, so that a run can be reproduced.  Transports
+ * created for the same session with the same seed and delays share a single
+ * generator, so that a sequence of transports (such as those created by
+ * {@link Transport#send(Message)}) draws successive delays from the
+ * distribution rather than the same first delay.  Each session has its own
+ * generators, so a new session with the same seed draws the same sequence
+ * of delays from the beginning.  When the
+ * {@value #OUTCOME} property is set to {@code succeed}, the transport
+ * connects or sends the message after the delay, rather than failing.
+ * <p>
+ * By default, a simulated delay puts the calling thread to sleep for the
+ * delay.  Callers that must not be blocked use
+ * {@link #sendMessageAsync(Message, Address[])} or {@link #connectAsync()},
+ * which return immediately with a {@link Future} that completes when the
+ * delay has elapsed and the outcome is known.  The transport's listeners are
+ * also notified of the outcome of each message sent asynchronously.  Delays
+ * are timed by a single shared scheduler thread, so that any number of
+ * concurrent simulated stalls cost almost nothing.  When a delay that ends
+ * in success has elapsed, the delegate connects or sends the message on a
+ * separate pool of threads, so that a slow delegate does not hold up the
+ * scheduler or any other transport's stalls.
+ * <p>
+ * When the {@value #MODE} property is set to {@code scheduled}, a message
+ * delay must not occupy the calling thread, and
+ * {@link #sendMessage(Message, Address[])} throws an exception rather than
+ * sleeping, so that a caller that has not been written to use
+ * {@link #sendMessageAsync(Message, Address[])} fails visibly instead of
+ * appearing to succeed.  The connection delay is not affected by the mode:
+ * {@link #connect()} still sleeps on the calling thread, and callers that
+ * must not be blocked use {@link #connectAsync()}.
  *
  * @author Chris Beckey
  */
 public class TimeoutThrowingTransport extends DelegatingTransport {
 
-  private final long connectionTimeout;
-  private final long messageTimeout;
+  private static final String TIMEOUT_PROVIDER = "mail.timeout";
+  public static final String CONNECTION_TIMEOUT =
+      TIMEOUT_PROVIDER + ".connectionTimeout";
+  public static final String MESSAGE_TIMEOUT =
+      TIMEOUT_PROVIDER + ".messageTimeout";
+  public static final String CONNECTION_DELAY =
+      TIMEOUT_PROVIDER + ".connectionDelay";
+  public static final String MESSAGE_DELAY =
+      TIMEOUT_PROVIDER + ".messageDelay";
+  public static final String SEED = TIMEOUT_PROVIDER + ".seed";
+  public static final String OUTCOME = TIMEOUT_PROVIDER + ".outcome";
+  public static final String MODE = TIMEOUT_PROVIDER + ".mode";
+
+  private static final String LEGACY_CONNECTION_TIMEOUT =
+      "timeout.connectionTimeout";
+  private static final String LEGACY_MESSAGE_TIMEOUT =
+      "timeout.messageTimeout";
+
+  private static final Address[] NO_ADDRESSES = new Address[0];
+
+  enum Mode {
+    BLOCKING,
+    SCHEDULED;
+
+    static Mode forName(String name) {
+      if (name == null) return BLOCKING;
+      try {
+        return valueOf(name.trim().toUpperCase(Locale.ENGLISH));
+      }
+      catch (IllegalArgumentException ex) {
+        throw new IllegalArgumentException("property " + MODE
+            + " allows either 'blocking' or 'scheduled'");
+      }
+    }
+  }
+
+  enum Outcome {
+    FAIL,
+    SUCCEED;
+
+    static Outcome forName(String name) {
+      if (name == null) return FAIL;
+      try {
+        return valueOf(name.trim().toUpperCase(Locale.ENGLISH));
+      }
+      catch (IllegalArgumentException ex) {
+        throw new IllegalArgumentException("property " + OUTCOME
+            + " allows either 'fail' or 'succeed'");
+      }
+    }
+  }
+
+  private static final SessionLocal<ConcurrentMap<String, Random>>
+      sessionGenerators = new SessionLocal<ConcurrentMap<String, Random>>() {
+        @Override
+        protected ConcurrentMap<String, Random> initialValue(
+            Session session) {
+          return new ConcurrentHashMap<>();
+        }
+      };
+
+  private final LatencyDistribution connectionDelay;
+  private final LatencyDistribution messageDelay;
+  private final Random random;
+  private final Outcome outcome;
+  private final Mode mode;
 
   public TimeoutThrowingTransport(Session session, URLName urlname) {
     super(session, urlname);
 
     SessionProperties properties = new SessionProperties(session);
-    connectionTimeout = properties.getLongProperty("timeout.connectionTimeout", -1);
-    messageTimeout = properties.getLongProperty("timeout.messageTimeout", -1);
+    try {
+      connectionDelay = delay(properties, CONNECTION_DELAY,
+          properties.getLongProperty(CONNECTION_TIMEOUT,
+              properties.getLongProperty(LEGACY_CONNECTION_TIMEOUT, -1)));
+      messageDelay = delay(properties, MESSAGE_DELAY,
+          properties.getLongProperty(MESSAGE_TIMEOUT,
+              properties.getLongProperty(LEGACY_MESSAGE_TIMEOUT, -1)));
+      random = generator(sessionGenerators.get(session), properties);
+    }
+    catch (MessagingException ex) {
+      throw new IllegalArgumentException(ex.getMessage(), ex);
+    }
+    outcome = Outcome.forName(properties.getProperty(OUTCOME));
+    mode = Mode.forName(properties.getProperty(MODE));
+  }
+
+  private static Random generator(ConcurrentMap<String, Random> generators,
+      SessionProperties properties) throws MessagingException {
+    if (properties.getProperty(SEED) == null) return new Random();
+    final long seedValue = properties.getLongProperty(SEED, 0);
+    final String key = seedValue
+        + "," + properties.getProperty(CONNECTION_DELAY)
+        + "," + properties.getProperty(CONNECTION_TIMEOUT)
+        + "," + properties.getProperty(LEGACY_CONNECTION_TIMEOUT)
+        + "," + properties.getProperty(MESSAGE_DELAY)
+        + "," + properties.getProperty(MESSAGE_TIMEOUT)
+        + "," + properties.getProperty(LEGACY_MESSAGE_TIMEOUT);
+    Random random = generators.get(key);
+    if (random == null) {
+      random = new Random(seedValue);
+      final Random existing = generators.putIfAbsent(key, random);
+      if (existing != null) {
+        random = existing;
+      }
+    }
+    return random;
+  }
+
+  private static LatencyDistribution delay(SessionProperties properties,
+      String name, long timeout) {
+    final String spec = properties.getProperty(name);
+    if (spec != null) return LatencyDistribution.forSpec(name, spec);
+    if (timeout > 0) return LatencyDistribution.fixed(timeout);
+    return null;
   }
 
   @Override
   public void connect(String host, String user, String password) throws MessagingException {
-    if (connectionTimeout > 0) {
-      try {
-        Thread.sleep(connectionTimeout);
+    if (connectionDelay != null) {
+      sleep(connectionDelay.nextDelay(random));
+      if (outcome == Outcome.FAIL) {
+        throw new MessagingException("Timeout exception connecting to host");
       }
-      catch (InterruptedException e) {
-        Thread.currentThread().interrupt();
-      }
-      throw new MessagingException("Timeout exception connecting to host");
     }
 
     super.connect(host, -1, user, password);
   }
 
+  /**
+   * Connects this transport without blocking the calling thread for a
+   * simulated delay.
+   * @return a future that completes when the simulated delay has elapsed
+   *    and the outcome is known, or that reflects the outcome of connecting
+   *    if no connection delay is configured
+   */
+  public Future<Void> connectAsync() {
+    final Callable<Void> connect = new Callable<Void>() {
+      @Override
+      public Void call() throws MessagingException {
+        TimeoutThrowingTransport.super.connect(null, -1, null, null);
+        return null;
+      }
+    };
+    if (connectionDelay == null) {
+      return runNow(connect);
+    }
+    final long delay = connectionDelay.nextDelay(random);
+    if (outcome == Outcome.FAIL) {
+      return Scheduler.INSTANCE.schedule(new Callable<Void>() {
+        @Override
+        public Void call() throws MessagingException {
+          throw new MessagingException("Timeout exception connecting to host");
+        }
+      }, delay, TimeUnit.MILLISECONDS);
+    }
+    return runAfter(connect, delay);
+  }
+
   @Override
   public void sendMessage(Message message, Address[] addresses)
       throws MessagingException {
-    if (messageTimeout > 0) {
-      try {
-        Thread.sleep(messageTimeout);
+    if (messageDelay != null) {
+      if (mode == Mode.SCHEDULED) {
+        throw new MessagingException("property " + MODE + " is 'scheduled';"
+            + " use sendMessageAsync to send a message without blocking");
       }
-      catch (InterruptedException e) {
-        Thread.currentThread().interrupt();
+      sleep(nextMessageDelay());
+      if (outcome == Outcome.FAIL) {
+        throw new MessagingException("Timeout exception sending message");
       }
-      throw new MessagingException("Timeout exception sending message");
     }
     super.sendMessage(message, addresses);
   }
 
+  /**
+   * Sends a message without blocking the calling thread for a simulated
+   * delay.
+   * <p>
+   * When the simulated delay has elapsed, the message is either sent, or
+   * the returned future fails.  In either case, the transport's listeners
+   * are notified of the outcome.
+   * @param message the message to send
+   * @param addresses recipient addresses
+   * @return a future that completes when the simulated delay has elapsed
+   *    and the outcome is known, or that reflects the outcome of sending the
+   *    message if no message delay is configured
+   */
+  public Future<Void> sendMessageAsync(final Message message,
+      final Address[] addresses) {
+    final Callable<Void> send = new Callable<Void>() {
+      @Override
+      public Void call() throws MessagingException {
+        TimeoutThrowingTransport.super.sendMessage(message, addresses);
+        return null;
+      }
+    };
+    if (messageDelay == null) {
+      return runNow(send);
+    }
+    final long delay = nextMessageDelay();
+    if (outcome == Outcome.FAIL) {
+      return Scheduler.INSTANCE.schedule(new Callable<Void>() {
+        @Override
+        public Void call() throws MessagingException {
+          notifyTransportListeners(TransportEvent.MESSAGE_NOT_DELIVERED,
+              NO_ADDRESSES, addresses, NO_ADDRESSES, message);
+          throw new MessagingException("Timeout exception sending message");
+        }
+      }, delay, TimeUnit.MILLISECONDS);
+    }
+    return runAfter(new Callable<Void>() {
+      @Override
+      public Void call() throws MessagingException {
+        try {
+          TimeoutThrowingTransport.super.sendMessage(message, addresses);
+        }
+        catch (MessagingException | RuntimeException ex) {
+          notifyTransportListeners(TransportEvent.MESSAGE_NOT_DELIVERED,
+              NO_ADDRESSES, addresses, NO_ADDRESSES, message);
+          throw ex;
+        }
+        notifyTransportListeners(TransportEvent.MESSAGE_DELIVERED,
+            addresses, NO_ADDRESSES, NO_ADDRESSES, message);
+        return null;
+      }
+    }, delay);
+  }
+
+  /**
+   * Draws the next simulated delay for sending a message.
+   * @return delay in milliseconds
+   */
+  long nextMessageDelay() {
+    return messageDelay.nextDelay(random);
+  }
+
+  private static void sleep(long delay) throws MessagingException {
+    try {
+      Thread.sleep(delay);
+    }
+    catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new MessagingException("interrupted during simulated delay", ex);
+    }
+  }
+
+  private static Future<Void> runNow(Callable<Void> callable) {
+    final FutureTask<Void> task = new FutureTask<>(callable);
+    task.run();
+    return task;
+  }
+
+  /**
+   * Runs a task on the delegate executor once a delay has elapsed.
+   * <p>
+   * The scheduler thread only times the delay; it hands the task to the
+   * delegate executor rather than running it, so that a task that waits on
+   * the delegate does not delay any other scheduled task.
+   * @param callable the task to run
+   * @param delay delay in milliseconds
+   * @return a future that reflects the outcome of the task
+   */
+  private static Future<Void> runAfter(Callable<Void> callable, long delay) {
+    final FutureTask<Void> task = new FutureTask<>(callable);
+    Scheduler.INSTANCE.schedule(new Runnable() {
+      @Override
+      public void run() {
+        if (!task.isDone()) {
+          Scheduler.DELEGATE_EXECUTOR.execute(task);
+        }
+      }
+    }, delay, TimeUnit.MILLISECONDS);
+    return task;
+  }
+
+  /**
+   * Holds the scheduler and the delegate executor shared by all instances,
+   * which are created when first needed.
+   */
+  private static class Scheduler {
+
+    static final ScheduledExecutorService INSTANCE = newScheduler();
+
+    static final ExecutorService DELEGATE_EXECUTOR = newDelegateExecutor();
+
+    private static ScheduledExecutorService newScheduler() {
+      final ScheduledThreadPoolExecutor scheduler =
+          new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+              final Thread thread =
+                  new Thread(runnable, "timeout-transport-scheduler");
+              thread.setDaemon(true);
+              return thread;
+            }
+          });
+      scheduler.setRemoveOnCancelPolicy(true);
+      return scheduler;
+    }
+
+    private static ExecutorService newDelegateExecutor() {
+      return Executors.newCachedThreadPool(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          final Thread thread =
+              new Thread(runnable, "timeout-transport-delegate");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+
+  }
+
 }
@@ -0,0 +1,89 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket.
+ * <p>
+ * The bucket holds up to {@code capacity} tokens and is refilled
+ * continuously at {@code rate} tokens per second.  A request for more
+ * tokens than the capacity of the bucket is treated as a request for a full
+ * bucket, so that it can eventually be satisfied.
+ *
+ * @author Carl Harris
+ */
+class TokenBucket {
+
+  private final double rate;
+  private final double capacity;
+
+  private double tokens;
+  private long lastRefill;
+
+  /**
+   * Constructs a new instance, initially full.
+   * @param rate number of tokens added per second
+   * @param capacity maximum number of tokens held
+   */
+  TokenBucket(double rate, double capacity) {
+    if (!(rate > 0)) {
+      throw new IllegalArgumentException("rate must be positive");
+    }
+    if (!(capacity > 0)) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+    this.rate = rate / TimeUnit.SECONDS.toNanos(1);
+    this.capacity = capacity;
+    this.tokens = capacity;
+    this.lastRefill = System.nanoTime();
+  }
+
+  /**
+   * Takes tokens from the bucket if enough are available.
+   * @param count number of tokens requested
+   * @return zero if the tokens were taken, otherwise the number of
+   *    nanoseconds after which enough tokens should be available
+   */
+  synchronized long tryTake(double count) {
+    count = Math.min(count, capacity);
+    refill();
+    if (tokens >= count) {
+      tokens -= count;
+      return 0;
+    }
+    return Math.max(1, (long) Math.ceil((count - tokens) / rate));
+  }
+
+  /**
+   * Returns tokens that were taken but not used.
+   * @param count number of tokens to return
+   */
+  synchronized void giveBack(double count) {
+    tokens = Math.min(capacity, tokens + Math.min(count, capacity));
+  }
+
+  private void refill() {
+    final long now = System.nanoTime();
+    tokens = Math.min(capacity, tokens + (now - lastRefill) * rate);
+    lastRefill = now;
+  }
+
+}
@@ -0,0 +1,325 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+
+/**
+ * A bounded pool of connected transports for a session.
+ * <p>
+ * At most {@code maxSize} transports are in use at any time; a borrower
+ * that finds every transport in use waits up to {@code maxWait}
+ * milliseconds for one to be released.  Idle transports are reused most
+ * recently released first, so that a lightly loaded pool keeps only as many
+ * connections open as it needs.  Before a transport is lent, it is validated
+ * by checking that it is still connected; a transport that is no longer
+ * connected, that has been idle longer than {@code maxIdle} milliseconds,
+ * or that has been open longer than {@code maxLifetime} milliseconds is
+ * closed instead.  Idle transports are evicted as the pool is used; no
+ * background thread is involved.
+ *
+ * @author Carl Harris
+ */
+class TransportPool implements TransportPoolMetrics {
+
+  private static final Logger logger = Logger.getLogger(
+      TransportPool.class.getName());
+
+  private final Session session;
+  private final long maxWait;
+  private final long maxIdle;
+  private final long maxLifetime;
+  private final Semaphore permits;
+  private final Ticker ticker;
+
+  private final BlockingDeque<Entry> idle = new LinkedBlockingDeque<>();
+
+  private final AtomicInteger size = new AtomicInteger();
+  private final AtomicInteger active = new AtomicInteger();
+  private final AtomicLong borrowCount = new AtomicLong();
+  private final AtomicLong createdCount = new AtomicLong();
+  private final AtomicLong destroyedCount = new AtomicLong();
+  private final AtomicLong totalWaitTime = new AtomicLong();
+  private final AtomicLong maxWaitTime = new AtomicLong();
+
+  private volatile boolean open;
+
+  /**
+   * Constructs a new instance.
+   * <p>
+   * The pool is initially closed; it must be opened before use.
+   * @param session session whose transports are to be pooled
+   * @param maxSize maximum number of transports in use at any time
+   * @param maxWait maximum time in milliseconds to wait for a transport
+   * @param maxIdle maximum time in milliseconds that a transport may be
+   *    idle before it is closed, or 0 if unlimited
+   * @param maxLifetime maximum time in milliseconds that a transport may be
+   *    open before it is closed, or 0 if unlimited
+   */
+  TransportPool(Session session, int maxSize, long maxWait, long maxIdle,
+      long maxLifetime) {
+    this(session, maxSize, maxWait, maxIdle, maxLifetime, Ticker.SYSTEM);
+  }
+
+  /**
+   * Constructs a new instance that measures idle time and lifetime using
+   * the given ticker.
+   * @param session session whose transports are to be pooled
+   * @param maxSize maximum number of transports in use at any time
+   * @param maxWait maximum time in milliseconds to wait for a transport
+   * @param maxIdle maximum time in milliseconds that a transport may be
+   *    idle before it is closed, or 0 if unlimited
+   * @param maxLifetime maximum time in milliseconds that a transport may be
+   *    open before it is closed, or 0 if unlimited
+   * @param ticker source of time readings
+   */
+  TransportPool(Session session, int maxSize, long maxWait, long maxIdle,
+      long maxLifetime, Ticker ticker) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("maximum pool size must be positive");
+    }
+    this.session = session;
+    this.permits = new Semaphore(maxSize, true);
+    this.maxWait = TimeUnit.MILLISECONDS.toNanos(maxWait);
+    this.maxIdle = TimeUnit.MILLISECONDS.toNanos(maxIdle);
+    this.maxLifetime = TimeUnit.MILLISECONDS.toNanos(maxLifetime);
+    this.ticker = ticker;
+  }
+
+  /**
+   * Opens this pool for borrowing.
+   */
+  void open() {
+    open = true;
+  }
+
+  /**
+   * Tests whether this pool is open.
+   * @return {@code true} if this pool is open
+   */
+  boolean isOpen() {
+    return open;
+  }
+
+  /**
+   * Closes this pool, closing every idle transport.  Transports that are in
+   * use are closed when they are released.
+   */
+  void close() {
+    open = false;
+    Entry entry;
+    while ((entry = idle.pollFirst()) != null) {
+      destroy(entry);
+    }
+  }
+
+  /**
+   * Borrows a connected transport from this pool, connecting a new transport
+   * if no idle transport is available.
+   * <p>
+   * The caller must return the transport using
+   * {@link #release(Entry, boolean)}.
+   * @return pool entry for the borrowed transport
+   * @throws MessagingException if the pool is closed, if no transport became
+   *    available within the maximum wait time, or if a new transport could
+   *    not be connected
+   */
+  Entry borrow() throws MessagingException {
+    if (!open) {
+      throw new MessagingException("transport pool is closed");
+    }
+    final long start = ticker.read();
+    try {
+      if (!permits.tryAcquire(maxWait, TimeUnit.NANOSECONDS)) {
+        recordWait(ticker.read() - start);
+        throw new MessagingException("timed out after "
+            + TimeUnit.NANOSECONDS.toMillis(maxWait)
+            + " ms waiting for a delegate transport");
+      }
+    }
+    catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new MessagingException(
+          "interrupted while waiting for a delegate transport", ex);
+    }
+    final long now = ticker.read();
+    recordWait(now - start);
+    try {
+      evictIdle(now);
+      Entry entry;
+      while ((entry = idle.pollFirst()) != null) {
+        if (!isExpired(entry, now) && entry.transport.isConnected()) break;
+        destroy(entry);
+      }
+      if (entry == null) {
+        entry = create(now);
+      }
+      borrowCount.incrementAndGet();
+      active.incrementAndGet();
+      return entry;
+    }
+    catch (MessagingException | RuntimeException ex) {
+      permits.release();
+      throw ex;
+    }
+  }
+
+  /**
+   * Returns a borrowed transport to this pool.
+   * @param entry pool entry for the transport
+   * @param reusable {@code false} if the transport should be closed rather
+   *    than reused; e.g. because an operation on it failed unexpectedly
+   */
+  void release(Entry entry, boolean reusable) {
+    try {
+      final long now = ticker.read();
+      entry.lastUsed = now;
+      if (reusable && open && !isExpired(entry, now)) {
+        idle.offerFirst(entry);
+        if (!open && idle.remove(entry)) {
+          destroy(entry);
+        }
+      }
+      else {
+        destroy(entry);
+      }
+    }
+    finally {
+      active.decrementAndGet();
+      permits.release();
+    }
+  }
+
+  private Entry create(long now) throws MessagingException {
+    final Transport transport = session.getTransport();
+    transport.connect();
+    size.incrementAndGet();
+    createdCount.incrementAndGet();
+    return new Entry(transport, now);
+  }
+
+  private void destroy(Entry entry) {
+    size.decrementAndGet();
+    destroyedCount.incrementAndGet();
+    try {
+      entry.transport.close();
+    }
+    catch (MessagingException ex) {
+      logger.log(Level.FINE, "error closing delegate transport", ex);
+    }
+  }
+
+  private void evictIdle(long now) {
+    Entry entry;
+    while ((entry = idle.peekLast()) != null && isExpired(entry, now)) {
+      if (idle.removeLastOccurrence(entry)) {
+        destroy(entry);
+      }
+    }
+  }
+
+  private boolean isExpired(Entry entry, long now) {
+    return maxLifetime > 0 && now - entry.createdAt >= maxLifetime
+        || maxIdle > 0 && now - entry.lastUsed >= maxIdle;
+  }
+
+  private void recordWait(long wait) {
+    totalWaitTime.addAndGet(wait);
+    long max = maxWaitTime.get();
+    while (wait > max && !maxWaitTime.compareAndSet(max, wait)) {
+      max = maxWaitTime.get();
+    }
+  }
+
+  @Override
+  public int getSize() {
+    return size.get();
+  }
+
+  @Override
+  public int getIdleCount() {
+    return idle.size();
+  }
+
+  @Override
+  public int getActiveCount() {
+    return active.get();
+  }
+
+  @Override
+  public long getBorrowCount() {
+    return borrowCount.get();
+  }
+
+  @Override
+  public long getCreatedCount() {
+    return createdCount.get();
+  }
+
+  @Override
+  public long getDestroyedCount() {
+    return destroyedCount.get();
+  }
+
+  @Override
+  public long getTotalWaitTime(TimeUnit unit) {
+    return unit.convert(totalWaitTime.get(), TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public long getMaxWaitTime(TimeUnit unit) {
+    return unit.convert(maxWaitTime.get(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * A pooled transport.
+   */
+  static class Entry {
+
+    private final Transport transport;
+    private final long createdAt;
+    private volatile long lastUsed;
+
+    Entry(Transport transport, long createdAt) {
+      this.transport = transport;
+      this.createdAt = createdAt;
+      this.lastUsed = createdAt;
+    }
+
+    /**
+     * Gets the pooled transport.
+     * @return transport
+     */
+    Transport getTransport() {
+      return transport;
+    }
+
+  }
+
+}
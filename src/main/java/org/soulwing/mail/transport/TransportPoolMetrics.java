@@ -0,0 +1,84 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics for the pool of connected delegate transports held by a
+ * delegating transport (e.g. {@link ErrorThrowingTransport}).
+ *
+ * @author Carl Harris
+ */
+public interface TransportPoolMetrics {
+
+  /**
+   * Gets the number of delegate transports currently held by the pool,
+   * both idle and in use.
+   * @return number of transports
+   */
+  int getSize();
+
+  /**
+   * Gets the number of delegate transports that are idle in the pool.
+   * @return number of idle transports
+   */
+  int getIdleCount();
+
+  /**
+   * Gets the number of delegate transports that are in use.
+   * @return number of transports in use
+   */
+  int getActiveCount();
+
+  /**
+   * Gets the number of times a transport has been borrowed from the pool.
+   * @return number of borrows
+   */
+  long getBorrowCount();
+
+  /**
+   * Gets the number of delegate transports the pool has created.
+   * @return number of transports created
+   */
+  long getCreatedCount();
+
+  /**
+   * Gets the number of delegate transports the pool has closed because they
+   * were idle too long, had reached their maximum lifetime, or failed
+   * validation.
+   * @return number of transports closed
+   */
+  long getDestroyedCount();
+
+  /**
+   * Gets the total time that borrowers have waited for a transport.
+   * @param unit unit for the return value
+   * @return total wait time
+   */
+  long getTotalWaitTime(TimeUnit unit);
+
+  /**
+   * Gets the longest time that a borrower has waited for a transport.
+   * @param unit unit for the return value
+   * @return maximum wait time
+   */
+  long getMaxWaitTime(TimeUnit unit);
+
+}
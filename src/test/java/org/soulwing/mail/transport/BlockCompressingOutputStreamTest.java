@@ -0,0 +1,188 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Properties;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import javax.mail.Message;
+import javax.mail.Session;
+import javax.mail.Transport;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link BlockCompressingOutputStream} and compressed output
+ * from {@link FileTransport}.
+ *
+ * @author Carl Harris
+ */
+public class BlockCompressingOutputStreamTest {
+
+  private static final String BLOCK1 = "This is the first block.\r\n";
+  private static final String BLOCK2 = "This is the second block.\r\n";
+
+  private File file;
+
+  @Before
+  public void setUp() throws Exception {
+    file = File.createTempFile("mail", ".txt");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    assertThat(file.delete(), is(true));
+  }
+
+  @Test
+  public void testGzipBlocks() throws Exception {
+    final ByteArrayOutputStream target = new ByteArrayOutputStream();
+    final BlockCompressingOutputStream outputStream =
+        new BlockCompressingOutputStream(target, Compression.GZIP,
+            Deflater.DEFAULT_COMPRESSION);
+    outputStream.write(BLOCK1.getBytes("US-ASCII"));
+    outputStream.endBlock();
+    final int offset = target.size();
+    outputStream.write(BLOCK2.getBytes("US-ASCII"));
+    outputStream.close();
+    final byte[] data = target.toByteArray();
+
+    assertThat(gunzip(data, 0, data.length), is(equalTo(BLOCK1 + BLOCK2)));
+    assertThat(gunzip(data, offset, data.length - offset),
+        is(equalTo(BLOCK2)));
+  }
+
+  @Test
+  public void testDeflateBlocks() throws Exception {
+    final ByteArrayOutputStream target = new ByteArrayOutputStream();
+    final BlockCompressingOutputStream outputStream =
+        new BlockCompressingOutputStream(target, Compression.DEFLATE,
+            Deflater.DEFAULT_COMPRESSION);
+    outputStream.write(BLOCK1.getBytes("US-ASCII"));
+    outputStream.endBlock();
+    final int offset = target.size();
+    outputStream.write(BLOCK2.getBytes("US-ASCII"));
+    outputStream.endBlock();
+    outputStream.endBlock();
+    outputStream.close();
+    final byte[] data = target.toByteArray();
+
+    assertThat(inflate(data, 0, offset), is(equalTo(BLOCK1)));
+    assertThat(inflate(data, offset, data.length - offset),
+        is(equalTo(BLOCK2)));
+  }
+
+  @Test
+  public void testFileTransportWithGzip() throws Exception {
+    final Session session = newSession("gzip", "message");
+    final Transport transport = session.getTransport();
+    transport.connect();
+    final Message message = MessageFactory.newMessage("Message", session);
+    transport.sendMessage(message, message.getAllRecipients());
+    transport.sendMessage(message, message.getAllRecipients());
+    transport.close();
+    final byte[] data = Files.readAllBytes(file.toPath());
+    assertThat(countMessages(gunzip(data, 0, data.length)), is(equalTo(2)));
+  }
+
+  @Test
+  public void testFileTransportWithGzipBatches() throws Exception {
+    final Session session = newSession("gzip", "batch");
+    final Transport transport = session.getTransport();
+    transport.connect();
+    final Message message = MessageFactory.newMessage("Message", session);
+    transport.sendMessage(message, message.getAllRecipients());
+    transport.sendMessage(message, message.getAllRecipients());
+    transport.close();
+    final byte[] data = Files.readAllBytes(file.toPath());
+    assertThat(countMessages(gunzip(data, 0, data.length)), is(equalTo(2)));
+  }
+
+  private Session newSession(String compression, String block)
+      throws Exception {
+    final SessionFactory sessionFactory = new SessionFactory(
+        new Properties());
+    return sessionFactory.newSession(
+        "mail.transport.protocol", "file",
+        FileTransport.FILE_PATH, file.toString(),
+        FileTransport.COMPRESSION, compression,
+        FileTransport.COMPRESSION_BLOCK, block);
+  }
+
+  private static int countMessages(String data) {
+    int count = 0;
+    int index = data.indexOf("Message-ID:");
+    while (index != -1) {
+      count++;
+      index = data.indexOf("Message-ID:", index + 1);
+    }
+    return count;
+  }
+
+  private static String gunzip(byte[] data, int offset, int length)
+      throws IOException {
+    try (InputStream inputStream = new GZIPInputStream(
+        new ByteArrayInputStream(data, offset, length))) {
+      return readAll(inputStream);
+    }
+  }
+
+  private static String inflate(byte[] data, int offset, int length)
+      throws Exception {
+    final Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(data, offset, length);
+      final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      final byte[] buffer = new byte[256];
+      while (!inflater.finished()) {
+        outputStream.write(buffer, 0, inflater.inflate(buffer));
+      }
+      assertThat(inflater.getRemaining(), is(equalTo(0)));
+      return outputStream.toString("US-ASCII");
+    }
+    finally {
+      inflater.end();
+    }
+  }
+
+  private static String readAll(InputStream inputStream) throws IOException {
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[256];
+    int count = inputStream.read(buffer);
+    while (count != -1) {
+      outputStream.write(buffer, 0, count);
+      count = inputStream.read(buffer);
+    }
+    return outputStream.toString("US-ASCII");
+  }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.Properties;
+import javax.mail.Session;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link DelegateSessionCache}.
+ *
+ * @author Carl Harris
+ */
+public class DelegateSessionCacheTest {
+
+  @Test
+  public void testGetSessionWithEqualProperties() throws Exception {
+    final Properties properties = new Properties();
+    properties.setProperty("mail.transport.protocol", "file");
+    properties.setProperty("mail.file.path", "/tmp/equal.txt");
+    final Properties other = new Properties();
+    other.setProperty("mail.file.path", "/tmp/equal.txt");
+    other.setProperty("mail.transport.protocol", "file");
+
+    final Session session = DelegateSessionCache.getSession(properties);
+    assertThat(DelegateSessionCache.getSession(other),
+        is(sameInstance(session)));
+  }
+
+  @Test
+  public void testGetSessionWithDifferentProperties() throws Exception {
+    final Properties properties = new Properties();
+    properties.setProperty("mail.transport.protocol", "file");
+    properties.setProperty("mail.file.path", "/tmp/one.txt");
+    final Properties other = new Properties();
+    other.setProperty("mail.transport.protocol", "file");
+    other.setProperty("mail.file.path", "/tmp/other.txt");
+
+    final Session session = DelegateSessionCache.getSession(properties);
+    final Session otherSession = DelegateSessionCache.getSession(other);
+    assertThat(otherSession, is(not(sameInstance(session))));
+    assertThat(otherSession.getProperty("mail.file.path"),
+        is(equalTo("/tmp/other.txt")));
+  }
+
+  @Test
+  public void testGetSessionCopiesProperties() throws Exception {
+    final Properties properties = new Properties();
+    properties.setProperty("mail.transport.protocol", "file");
+    properties.setProperty("mail.file.path", "/tmp/copied.txt");
+
+    final Session session = DelegateSessionCache.getSession(properties);
+    properties.setProperty("mail.file.path", "/tmp/changed.txt");
+    assertThat(session.getProperty("mail.file.path"),
+        is(equalTo("/tmp/copied.txt")));
+  }
+
+}
@@ -19,6 +19,8 @@
 package org.soulwing.mail.transport;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.emptyArray;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
@@ -26,16 +28,24 @@ import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.Properties;
+import java.util.Random;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import javax.mail.Address;
 import javax.mail.Message;
 import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
 import javax.mail.Session;
 import javax.mail.Transport;
+import javax.mail.URLName;
 import javax.mail.event.ConnectionEvent;
+import javax.mail.event.TransportEvent;
+import javax.mail.internet.AddressException;
+import javax.mail.internet.InternetAddress;
 
 import org.junit.After;
 import org.junit.Before;
@@ -51,6 +61,12 @@ public class ErrorThrowingTransportTest {
   private static final long LISTENER_WAIT = 500;
   private static final long MAX_LISTENER_WAIT = 10*LISTENER_WAIT;
 
+  private static final URLName URL_NAME = new URLName("error", null, -1,
+      null, null, null);
+
+  private static final Address GOOD = newAddress("good@nowhere.net");
+  private static final Address BAD = newAddress("bad@nowhere.net");
+
   private SessionFactory sessionFactory;
 
   private File file;
@@ -123,6 +139,192 @@ public class ErrorThrowingTransportTest {
     transport.sendMessage(message, message.getAllRecipients());
   }
 
+  @Test
+  public void testSendMessageWhenConnected() throws Exception {
+    Session session = sessionFactory.newSession();
+    ErrorThrowingTransport transport =
+        (ErrorThrowingTransport) session.getTransport();
+    transport.connect();
+    Message message = MessageFactory.newMessage("Test message", session);
+    transport.sendMessage(message, message.getAllRecipients());
+    transport.sendMessage(message, message.getAllRecipients());
+    TransportPoolMetrics metrics = transport.getPoolMetrics();
+    assertThat(metrics.getCreatedCount(), is(equalTo(1L)));
+    assertThat(metrics.getIdleCount(), is(equalTo(1)));
+    transport.close();
+    assertThat(metrics.getSize(), is(equalTo(0)));
+    assertThat(file.length() > 0, is(true));
+  }
+
+  @Test
+  public void testSendMessageWithFailureRate() throws Exception {
+    Session session = sessionFactory.newSession(
+        ErrorThrowingTransport.FAILURE_RATE, "1");
+    Transport transport = session.getTransport();
+    Message message = MessageFactory.newMessage("Test message", session);
+    try {
+      transport.sendMessage(message, message.getAllRecipients());
+      fail("expected MessagingException");
+    }
+    catch (MessagingException ex) {
+      assertThat(ex.getMessage(), is(equalTo("simulated failure")));
+    }
+  }
+
+  @Test
+  public void testSendMessageWithSeededFailureRate() throws Exception {
+    final long seed = 1018;
+    final boolean[] outcomes = sendMessages(50,
+        ErrorThrowingTransport.FAILURE_RATE, "0.5",
+        ErrorThrowingTransport.SEED, Long.toString(seed));
+    final Random random = new Random(seed);
+    int failures = 0;
+    for (final boolean outcome : outcomes) {
+      assertThat(outcome, is(equalTo(random.nextDouble() >= 0.5)));
+      if (!outcome) failures++;
+    }
+    assertThat(failures >= 10 && failures <= 40, is(true));
+  }
+
+  @Test
+  public void testSendMessageDuringOutage() throws Exception {
+    Session session = sessionFactory.newSession(
+        ErrorThrowingTransport.OUTAGE_PERIOD, "60000",
+        ErrorThrowingTransport.OUTAGE_DURATION, "60000");
+    Transport transport = session.getTransport();
+    Message message = MessageFactory.newMessage("Test message", session);
+    try {
+      transport.sendMessage(message, message.getAllRecipients());
+      fail("expected MessagingException");
+    }
+    catch (MessagingException ex) {
+      assertThat(ex.getMessage(), is(equalTo("simulated outage")));
+    }
+  }
+
+  @Test
+  public void testSendMessagesThroughOutageWindow() throws Exception {
+    final FakeTicker ticker = new FakeTicker();
+    Session session = sessionFactory.newSession(
+        ErrorThrowingTransport.OUTAGE_PERIOD, "1000",
+        ErrorThrowingTransport.OUTAGE_DURATION, "100");
+    Message message = MessageFactory.newMessage("Test message", session);
+    for (int i = 0; i < 40; i++) {
+      final boolean inOutage = (i * 50) % 1000 < 100;
+      try {
+        new ErrorThrowingTransport(session, URL_NAME, ticker)
+            .sendMessage(message, message.getAllRecipients());
+        assertThat("send at " + i * 50 + "ms", inOutage, is(false));
+      }
+      catch (MessagingException ex) {
+        assertThat("send at " + i * 50 + "ms", inOutage, is(true));
+      }
+      ticker.advance(50, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  @Test
+  public void testSeededFailuresInSeparateSessions() throws Exception {
+    final String[] pairs = { ErrorThrowingTransport.FAILURE_RATE, "0.5",
+        ErrorThrowingTransport.SEED, "1019" };
+    assertThat(Arrays.equals(sendMessages(20, pairs), sendMessages(20, pairs)),
+        is(true));
+  }
+
+  @Test
+  public void testSendMessageWithRejectedRecipient() throws Exception {
+    Session session = sessionFactory.newSession(
+        ErrorThrowingTransport.RECIPIENT_PATTERN, "bad@.*");
+    Transport transport = session.getTransport();
+    MockTransportListener listener = new MockTransportListener();
+    transport.addTransportListener(listener);
+    Message message = MessageFactory.newMessage("Test message", session);
+    try {
+      transport.sendMessage(message, new Address[] { GOOD, BAD });
+      fail("expected SendFailedException");
+    }
+    catch (SendFailedException ex) {
+      assertThat(ex.getValidSentAddresses(), is(emptyArray()));
+      assertThat(ex.getValidUnsentAddresses(), is(arrayContaining(GOOD)));
+      assertThat(ex.getInvalidAddresses(), is(arrayContaining(BAD)));
+    }
+    TransportEvent event = listener.awaitEvent(LISTENER_WAIT, MAX_LISTENER_WAIT);
+    assertThat(event, is(not(nullValue())));
+    assertThat(event.getType(),
+        is(equalTo(TransportEvent.MESSAGE_NOT_DELIVERED)));
+    assertThat(file.length(), is(equalTo(0L)));
+  }
+
+  @Test
+  public void testSendMessageWithRejectedRecipientAndSendPartial()
+      throws Exception {
+    Session session = sessionFactory.newSession(
+        ErrorThrowingTransport.RECIPIENT_PATTERN, "bad@.*",
+        ErrorThrowingTransport.SEND_PARTIAL, "true");
+    Transport transport = session.getTransport();
+    MockTransportListener listener = new MockTransportListener();
+    transport.addTransportListener(listener);
+    Message message = MessageFactory.newMessage("Test message", session);
+    try {
+      transport.sendMessage(message, new Address[] { GOOD, BAD });
+      fail("expected SendFailedException");
+    }
+    catch (SendFailedException ex) {
+      assertThat(ex.getValidSentAddresses(), is(arrayContaining(GOOD)));
+      assertThat(ex.getValidUnsentAddresses(), is(emptyArray()));
+      assertThat(ex.getInvalidAddresses(), is(arrayContaining(BAD)));
+    }
+    TransportEvent event = listener.awaitEvent(LISTENER_WAIT, MAX_LISTENER_WAIT);
+    assertThat(event, is(not(nullValue())));
+    assertThat(event.getType(),
+        is(equalTo(TransportEvent.MESSAGE_PARTIALLY_DELIVERED)));
+    assertThat(file.length() > 0, is(true));
+  }
+
+  @Test
+  public void testSendMessageWithDropRule() throws Exception {
+    Session session = sessionFactory.newSession(
+        "mail.error.rules", "discard",
+        "mail.error.rule.discard.domains", "nowhere.net",
+        "mail.error.rule.discard.action", "drop");
+    Transport transport = session.getTransport();
+    Message message = MessageFactory.newMessage("Test message", session);
+    transport.sendMessage(message, new Address[] { GOOD });
+    assertThat(file.length(), is(equalTo(0L)));
+  }
+
+  @Test(expected = MessagingException.class)
+  public void testInvalidFailureRate() throws Exception {
+    sessionFactory.newSession(ErrorThrowingTransport.FAILURE_RATE, "2")
+        .getTransport();
+  }
+
+  private boolean[] sendMessages(int count, String... pairs)
+      throws Exception {
+    Session session = sessionFactory.newSession(pairs);
+    Message message = MessageFactory.newMessage("Test message", session);
+    final boolean[] outcomes = new boolean[count];
+    for (int i = 0; i < count; i++) {
+      try {
+        session.getTransport().sendMessage(message,
+            message.getAllRecipients());
+        outcomes[i] = true;
+      }
+      catch (MessagingException ex) {
+        outcomes[i] = false;
+      }
+    }
+    return outcomes;
+  }
+
+  private static Address newAddress(String address) {
+    try {
+      return new InternetAddress(address);
+    }
+    catch (AddressException ex) {
+      throw new RuntimeException(ex);
+    }
+  }
 
   private static Properties defaultProperties(File file) {
     final Properties properties = new Properties();
@@ -0,0 +1,251 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.io.File;
+import java.util.Properties;
+import javax.mail.Folder;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.ReadOnlyFolderException;
+import javax.mail.Session;
+import javax.mail.Store;
+import javax.mail.Transport;
+import javax.mail.internet.MimeBodyPart;
+import javax.mail.internet.MimeMultipart;
+import javax.mail.search.MessageIDTerm;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link FileStore} and {@link FileFolder}.
+ *
+ * @author Carl Harris
+ */
+public class FileStoreTest {
+
+  private static final String TEXT =
+      "First paragraph.\r\n\r\nNote: this looks like a header.\r\n\r\n";
+
+  private File directory;
+  private File file;
+  private Store store;
+
+  @Before
+  public void setUp() throws Exception {
+    directory = File.createTempFile("store", "");
+    assertThat(directory.delete(), is(true));
+    assertThat(directory.mkdir(), is(true));
+    file = new File(directory, "mail.txt");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    if (store != null) {
+      store.close();
+    }
+    for (final File file : directory.listFiles()) {
+      assertThat(file.delete(), is(true));
+    }
+    assertThat(directory.delete(), is(true));
+  }
+
+  @Test
+  public void testReadMessages() throws Exception {
+    final Session session = newSession();
+    sendMessages(session, 0, 3);
+    final Folder folder = openInbox(session);
+    assertThat(folder.getMessageCount(), is(equalTo(3)));
+    for (int i = 1; i <= 3; i++) {
+      final Message message = folder.getMessage(i);
+      assertThat(message.getMessageNumber(), is(equalTo(i)));
+      assertThat(message.getSubject(), is(equalTo("Message " + (i - 1))));
+      assertThat(message.getReceivedDate(), is(nullValue()));
+    }
+    assertThat(folder.getMessage(2), is(sameInstance(folder.getMessage(2))));
+    folder.close(false);
+  }
+
+  @Test
+  public void testReadMessagesWithBlankLinesInBody() throws Exception {
+    final Session session = newSession();
+    final Message text = MessageFactory.newMessage("Text", session);
+    text.setText(TEXT);
+    final Message multipart = MessageFactory.newMessage("Multipart", session);
+    final MimeMultipart content = new MimeMultipart();
+    final MimeBodyPart part1 = new MimeBodyPart();
+    part1.setText(TEXT + "MIME-Version: 1.0\r\n\r\n");
+    final MimeBodyPart part2 = new MimeBodyPart();
+    part2.setText(TEXT);
+    content.addBodyPart(part1);
+    content.addBodyPart(part2);
+    multipart.setContent(content);
+    send(session, text, multipart, text);
+
+    final Folder folder = openInbox(session);
+    assertThat(folder.getMessageCount(), is(equalTo(3)));
+    assertThat(folder.getMessage(1).getContent(),
+        is(equalTo((Object) TEXT)));
+    final MimeMultipart parts =
+        (MimeMultipart) folder.getMessage(2).getContent();
+    assertThat(parts.getCount(), is(equalTo(2)));
+    assertThat(parts.getBodyPart(1).getContent(),
+        is(equalTo((Object) TEXT)));
+    assertThat(folder.getMessage(3).getSubject(), is(equalTo("Text")));
+  }
+
+  @Test
+  public void testReadIndexedMessages() throws Exception {
+    final Session session = newSession(FileTransport.INDEX, "true");
+    final Message[] sent = sendMessages(session, 0, 3);
+    final Folder folder = openInbox(session);
+    assertThat(folder.getMessageCount(), is(equalTo(3)));
+    assertThat(folder.getMessage(3).getSubject(), is(equalTo("Message 2")));
+    assertThat(folder.getMessage(3).getReceivedDate(), is(notNullValue()));
+
+    final String messageId = sent[1].getHeader("Message-ID")[0];
+    final Message[] found = folder.search(new MessageIDTerm(messageId));
+    assertThat(found.length, is(equalTo(1)));
+    assertThat(found[0].getMessageNumber(), is(equalTo(2)));
+  }
+
+  @Test
+  public void testReadCompressedMessages() throws Exception {
+    final Session session = newSession(
+        FileTransport.INDEX, "true",
+        FileTransport.COMPRESSION, "gzip",
+        FileTransport.COMPRESSION_BLOCK, "batch",
+        FileTransport.FLUSH, "buffer");
+    sendMessages(session, 0, 3);
+    final Folder folder = openInbox(session);
+    assertThat(folder.getMessageCount(), is(equalTo(3)));
+    for (int i = 1; i <= 3; i++) {
+      assertThat(folder.getMessage(i).getSubject(),
+          is(equalTo("Message " + (i - 1))));
+    }
+  }
+
+  @Test(expected = MessagingException.class)
+  public void testReadCompressedMessagesWithoutIndex() throws Exception {
+    final Session session = newSession(FileTransport.COMPRESSION, "gzip");
+    sendMessages(session, 0, 1);
+    openInbox(session);
+  }
+
+  @Test
+  public void testReadSegmentedMessages() throws Exception {
+    final Session session = newSession(FileTransport.SEGMENT_BYTES, "1");
+    sendMessages(session, 0, 3);
+    final Folder folder = openInbox(session);
+    assertThat(folder.getMessageCount(), is(equalTo(3)));
+    assertThat(folder.getMessage(3).getSubject(), is(equalTo("Message 2")));
+  }
+
+  @Test
+  public void testReadMessagesAppendedWhileOpen() throws Exception {
+    final Session session = newSession();
+    sendMessages(session, 0, 2);
+    final Folder folder = openInbox(session);
+    assertThat(folder.getMessageCount(), is(equalTo(2)));
+    sendMessages(session, 2, 2);
+    assertThat(folder.getMessageCount(), is(equalTo(4)));
+    assertThat(folder.getMessage(2).getSubject(), is(equalTo("Message 1")));
+    assertThat(folder.getMessage(4).getSubject(), is(equalTo("Message 3")));
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testGetMessageBeyondCount() throws Exception {
+    final Session session = newSession();
+    sendMessages(session, 0, 1);
+    openInbox(session).getMessage(2);
+  }
+
+  @Test(expected = ReadOnlyFolderException.class)
+  public void testOpenReadWrite() throws Exception {
+    final Session session = newSession();
+    sendMessages(session, 0, 1);
+    store = session.getStore();
+    store.connect();
+    store.getFolder("INBOX").open(Folder.READ_WRITE);
+  }
+
+  @Test
+  public void testDefaultFolder() throws Exception {
+    final Session session = newSession();
+    store = session.getStore();
+    store.connect();
+    final Folder root = store.getDefaultFolder();
+    assertThat(root.getType(), is(equalTo(Folder.HOLDS_FOLDERS)));
+    final Folder[] folders = root.list();
+    assertThat(folders.length, is(equalTo(1)));
+    assertThat(folders[0].getName(), is(equalTo("INBOX")));
+    assertThat(folders[0].exists(), is(false));
+    assertThat(store.getFolder("other").exists(), is(false));
+  }
+
+  private Session newSession(String... pairs) {
+    final Properties properties = new Properties();
+    properties.setProperty("mail.transport.protocol", "file");
+    properties.setProperty("mail.store.protocol", "filestore");
+    properties.setProperty(FileTransport.FILE_PATH, file.toString());
+    for (int i = 0; i < pairs.length; i += 2) {
+      properties.setProperty(pairs[i], pairs[i + 1]);
+    }
+    return Session.getInstance(properties);
+  }
+
+  private Folder openInbox(Session session) throws MessagingException {
+    store = session.getStore();
+    store.connect();
+    final Folder folder = store.getFolder("INBOX");
+    folder.open(Folder.READ_ONLY);
+    return folder;
+  }
+
+  private Message[] sendMessages(Session session, int first, int count)
+      throws Exception {
+    final Message[] messages = new Message[count];
+    for (int i = 0; i < count; i++) {
+      messages[i] = MessageFactory.newMessage("Message " + (first + i),
+          session);
+    }
+    send(session, messages);
+    return messages;
+  }
+
+  private void send(Session session, Message... messages) throws Exception {
+    final Transport transport = session.getTransport();
+    transport.connect();
+    for (final Message message : messages) {
+      message.saveChanges();
+      transport.sendMessage(message, message.getAllRecipients());
+    }
+    transport.close();
+  }
+
+}
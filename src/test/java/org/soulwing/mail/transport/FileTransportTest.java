@@ -19,6 +19,7 @@
 package org.soulwing.mail.transport;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
@@ -31,6 +32,9 @@ import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
@@ -171,6 +175,158 @@ public class FileTransportTest {
     }
   }
 
+  @Test
+  public void testSendMessagesWhileConnected() throws Exception {
+    Session session = sessionFactory.newSession(FileTransport.APPEND, "false");
+    Transport transport = session.getTransport();
+    transport.connect();
+    Message message1 = MessageFactory.newMessage("Message 1", session);
+    transport.sendMessage(message1, message1.getAllRecipients());
+    Message message2 = MessageFactory.newMessage("Message 2", session);
+    transport.sendMessage(message2, message2.getAllRecipients());
+
+    BufferedReader reader = new BufferedReader(new FileReader(file));
+    try {
+      assertThat(findMessageId(reader), is(true));
+      assertThat(findMessageId(reader), is(true));
+    }
+    finally {
+      reader.close();
+      transport.close();
+    }
+  }
+
+  @Test
+  public void testSendMessageWithBufferFlushPolicy() throws Exception {
+    Session session = sessionFactory.newSession(FileTransport.FLUSH, "buffer");
+    Transport transport = session.getTransport();
+    transport.connect();
+    Message message = MessageFactory.newMessage("Test message", session);
+    transport.sendMessage(message, message.getAllRecipients());
+    assertThat(file.length(), is(equalTo(0L)));
+    transport.close();
+    MimeMessage result = readMessageFromFile(file, session);
+    assertThat(result.getSubject(), is(equalTo(message.getSubject())));
+  }
+
+  @Test
+  public void testSendMessageWithSyncPolicy() throws Exception {
+    Session session = sessionFactory.newSession(FileTransport.SYNC, "batch:2");
+    Transport transport = session.getTransport();
+    transport.connect();
+    Message message = MessageFactory.newMessage("Test message", session);
+    transport.sendMessage(message, message.getAllRecipients());
+    transport.close();
+    MimeMessage result = readMessageFromFile(file, session);
+    assertThat(result.getSubject(), is(equalTo(message.getSubject())));
+  }
+
+  @Test(expected = MessagingException.class)
+  public void testConnectWithInvalidSyncPolicy() throws Exception {
+    Session session = sessionFactory.newSession(FileTransport.SYNC, "batch");
+    session.getTransport().connect();
+  }
+
+  @Test(expected = MessagingException.class)
+  public void testConnectWithInvalidFlushPolicy() throws Exception {
+    Session session = sessionFactory.newSession(FileTransport.FLUSH, "sometimes");
+    session.getTransport().connect();
+  }
+
+  @Test
+  public void testConnectWithInvalidQueueCapacity() throws Exception {
+    Session session = sessionFactory.newSession(FileTransport.QUEUE_CAPACITY,
+        "lots");
+    try {
+      session.getTransport().connect();
+      fail("expected MessagingException");
+    }
+    catch (MessagingException ex) {
+      assertThat(ex.getMessage(),
+          containsString(FileTransport.QUEUE_CAPACITY));
+    }
+  }
+
+  @Test
+  public void testConfigurationNotReadAfterConnect() throws Exception {
+    Session session = sessionFactory.newSession();
+    Transport transport = session.getTransport();
+    transport.connect();
+    session.getProperties().setProperty(FileTransport.FLUSH, "sometimes");
+    Message message = MessageFactory.newMessage("Test message", session);
+    transport.sendMessage(message, message.getAllRecipients());
+    transport.close();
+    MimeMessage result = readMessageFromFile(file, session);
+    assertThat(result.getSubject(), is(equalTo(message.getSubject())));
+  }
+
+  @Test
+  public void testSendMessagesAsync() throws Exception {
+    final int threadCount = 4;
+    final int messageCount = 25;
+    final Session session = sessionFactory.newSession(FileTransport.ASYNC,
+        "true", FileTransport.QUEUE_CAPACITY, "8");
+    final Transport transport = session.getTransport();
+    transport.connect();
+    final List<Exception> errors =
+        Collections.synchronizedList(new ArrayList<Exception>());
+    final Thread[] threads = new Thread[threadCount];
+    for (int i = 0; i < threadCount; i++) {
+      threads[i] = new Thread() {
+        @Override
+        public void run() {
+          try {
+            for (int j = 0; j < messageCount; j++) {
+              Message message = MessageFactory.newMessage("Message " + j,
+                  session);
+              transport.sendMessage(message, message.getAllRecipients());
+            }
+          }
+          catch (Exception ex) {
+            errors.add(ex);
+          }
+        }
+      };
+      threads[i].start();
+    }
+    for (final Thread thread : threads) {
+      thread.join();
+    }
+    transport.close();
+    assertThat(errors.isEmpty(), is(true));
+
+    BufferedReader reader = new BufferedReader(new FileReader(file));
+    try {
+      int count = 0;
+      while (findMessageId(reader)) {
+        count++;
+      }
+      assertThat(count, is(equalTo(threadCount * messageCount)));
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testSendMessageAsyncWhenErrorRequested() throws Exception {
+    Session session = sessionFactory.newSession(FileTransport.ASYNC, "true");
+    Transport transport = session.getTransport();
+    transport.connect();
+    Message message = MessageFactory.newMessage("Test message", session);
+    message.setHeader(ErrorHeader.ERROR_HEADER, "test error");
+    try {
+      transport.sendMessage(message, message.getAllRecipients());
+      fail("expected MessagingException");
+    }
+    catch (MessagingException ex) {
+      assertThat(ex.getMessage(), is(equalTo("test error")));
+    }
+    finally {
+      transport.close();
+    }
+  }
+
   private MimeMessage readMessageFromFile(File file, Session session)
       throws IOException, MessagingException {
     InputStream inputStream = new FileInputStream(file);
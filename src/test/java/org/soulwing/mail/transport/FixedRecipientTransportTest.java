@@ -22,7 +22,17 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.arrayContaining;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
-
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 import javax.mail.Address;
 import javax.mail.Message;
@@ -35,8 +45,10 @@ import javax.mail.event.TransportListener;
 import javax.mail.internet.InternetAddress;
 
 import org.jmock.Expectations;
+import org.jmock.api.Invocation;
 import org.jmock.auto.Mock;
 import org.jmock.integration.junit4.JUnitRuleMockery;
+import org.jmock.lib.action.CustomAction;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -59,6 +71,8 @@ public class FixedRecipientTransportTest {
 
   private static final String DELEGATE_NAME = "some delegate name";
   private static final String RECIPIENT_ADDRESS = "nobody@nowhere.net";
+  private static final String OTHER_RECIPIENT_ADDRESS =
+      "somebody@somewhere.net";
 
   @Rule
   public final JUnitRuleMockery context =
@@ -103,7 +117,8 @@ public class FixedRecipientTransportTest {
       }
     });
 
-    getTransport().connect();
+    getTransport(FixedRecipientTransport.ADDRESS, RECIPIENT_ADDRESS)
+        .connect();
   }
 
   @Test
@@ -114,7 +129,8 @@ public class FixedRecipientTransportTest {
       }
     });
 
-    getTransport().connect(USER, PASSWORD);
+    getTransport(FixedRecipientTransport.ADDRESS, RECIPIENT_ADDRESS)
+        .connect(USER, PASSWORD);
   }
 
   @Test
@@ -125,7 +141,8 @@ public class FixedRecipientTransportTest {
       }
     });
 
-    getTransport().connect(HOST, USER, PASSWORD);
+    getTransport(FixedRecipientTransport.ADDRESS, RECIPIENT_ADDRESS)
+        .connect(HOST, USER, PASSWORD);
   }
 
   @Test
@@ -136,7 +153,18 @@ public class FixedRecipientTransportTest {
       }
     });
 
-    getTransport().connect(HOST, PORT, USER, PASSWORD);
+    getTransport(FixedRecipientTransport.ADDRESS, RECIPIENT_ADDRESS)
+        .connect(HOST, PORT, USER, PASSWORD);
+  }
+
+  @Test(expected = MessagingException.class)
+  public void testConnectWhenNoRecipientAddress() throws Exception {
+    getTransport().connect();
+  }
+
+  @Test(expected = MessagingException.class)
+  public void testConnectWhenInvalidRecipientAddress() throws Exception {
+    getTransport(FixedRecipientTransport.ADDRESS, "").connect();
   }
 
   @Test
@@ -222,6 +250,146 @@ public class FixedRecipientTransportTest {
         .sendMessage(message, new Address[0]);
   }
 
+  @Test
+  public void testSendMessageAfterAddressChanged() throws Exception {
+    final Address address = new InternetAddress(RECIPIENT_ADDRESS);
+    final Address otherAddress = new InternetAddress(OTHER_RECIPIENT_ADDRESS);
+    final Message message = context.mock(Message.class);
+    context.checking(new Expectations() {
+      {
+        exactly(2).of(delegateTransport).sendMessage(with(message),
+            with(arrayContaining(address)));
+        oneOf(delegateTransport).sendMessage(with(message),
+            with(arrayContaining(otherAddress)));
+      }
+    });
+
+    final Session session = sessionFactory.newSession(
+        FixedRecipientTransport.ADDRESS, RECIPIENT_ADDRESS);
+    final Transport transport = session.getTransport();
+    transport.sendMessage(message, new Address[0]);
+    transport.sendMessage(message, new Address[0]);
+    session.getProperties().setProperty(
+        FixedRecipientTransport.ADDRESS, OTHER_RECIPIENT_ADDRESS);
+    transport.sendMessage(message, new Address[0]);
+  }
+
+  @Test
+  public void testSendMessageSharesAddressesAmongTransports()
+      throws Exception {
+    final Message message = context.mock(Message.class);
+    final List<Address[]> sent = new ArrayList<>();
+    context.checking(new Expectations() {
+      {
+        exactly(2).of(delegateTransport).sendMessage(with(message),
+            with(any(Address[].class)));
+        will(new CustomAction("record addresses") {
+          @Override
+          public Object invoke(Invocation invocation) {
+            sent.add((Address[]) invocation.getParameter(1));
+            return null;
+          }
+        });
+      }
+    });
+
+    final Session session = sessionFactory.newSession(
+        FixedRecipientTransport.ADDRESS, RECIPIENT_ADDRESS);
+    session.getTransport().sendMessage(message, new Address[0]);
+    session.getTransport().sendMessage(message, new Address[0]);
+    assertThat(sent.get(1)[0], is(sameInstance(sent.get(0)[0])));
+  }
+
+  @Test
+  public void testSendMessageWhenDelegateModifiesAddresses()
+      throws Exception {
+    final Address address = new InternetAddress(RECIPIENT_ADDRESS);
+    final Address otherAddress = new InternetAddress(OTHER_RECIPIENT_ADDRESS);
+    final Message message = context.mock(Message.class);
+    context.checking(new Expectations() {
+      {
+        exactly(2).of(delegateTransport).sendMessage(with(message),
+            with(arrayContaining(address)));
+        will(new CustomAction("modify addresses") {
+          @Override
+          public Object invoke(Invocation invocation) {
+            ((Address[]) invocation.getParameter(1))[0] = otherAddress;
+            return null;
+          }
+        });
+      }
+    });
+
+    final Transport transport = getTransport(
+        FixedRecipientTransport.ADDRESS, RECIPIENT_ADDRESS);
+    transport.sendMessage(message, new Address[0]);
+    transport.sendMessage(message, new Address[0]);
+  }
+
+  @Test
+  public void testSendMessageWithRegistryLocator() throws Exception {
+    final Address address = new InternetAddress(RECIPIENT_ADDRESS);
+    final Message message = context.mock(Message.class);
+    context.checking(new Expectations() {
+      {
+        oneOf(delegateTransport).sendMessage(with(message),
+            with(arrayContaining(address)));
+      }
+    });
+
+    RegistryObjectLocator.bind(DELEGATE_NAME, delegateSession);
+    try {
+      getTransport(FixedRecipientTransport.ADDRESS, RECIPIENT_ADDRESS,
+          FixedRecipientTransport.LOCATOR_CLASS,
+          RegistryObjectLocator.class.getName())
+          .sendMessage(message, new Address[0]);
+    }
+    finally {
+      RegistryObjectLocator.unbind(DELEGATE_NAME);
+    }
+  }
+
+  @Test
+  public void testDiscoverLocator() throws Exception {
+    final File directory = new File(System.getProperty("java.io.tmpdir"),
+        "locator" + System.nanoTime());
+    final File services = new File(directory, "META-INF/services");
+    final File config = new File(services, JndiObjectLocator.class.getName());
+    assertThat(services.mkdirs(), is(true));
+    try {
+      final Writer writer = new OutputStreamWriter(
+          new FileOutputStream(config), "UTF-8");
+      try {
+        writer.write(RegistryObjectLocator.class.getName() + "\n");
+      }
+      finally {
+        writer.close();
+      }
+      final ClassLoader classLoader = new URLClassLoader(
+          new URL[] { directory.toURI().toURL() },
+          getClass().getClassLoader());
+      final JndiObjectLocator locator =
+          FixedRecipientTransport.discoverLocator(classLoader);
+      assertThat(locator, is(instanceOf(RegistryObjectLocator.class)));
+      assertThat(FixedRecipientTransport.discoverLocator(
+          getClass().getClassLoader()), is(nullValue()));
+
+      // the result is remembered for the class loader that found it
+      assertThat(config.delete(), is(true));
+      assertThat(FixedRecipientTransport.discoverLocator(classLoader),
+          is(sameInstance(locator)));
+      assertThat(FixedRecipientTransport.discoverLocator(new URLClassLoader(
+          new URL[] { directory.toURI().toURL() },
+          getClass().getClassLoader())), is(nullValue()));
+    }
+    finally {
+      config.delete();
+      services.delete();
+      services.getParentFile().delete();
+      directory.delete();
+    }
+  }
+
   @Test(expected = MessagingException.class)
   public void testSendMessageWhenNoRecipientAddress() throws Exception {
     final Message message = context.mock(Message.class);
@@ -0,0 +1,117 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link GroupCommitWriter}.
+ *
+ * @author Carl Harris
+ */
+public class GroupCommitWriterTest {
+
+  private final List<Message> written =
+      Collections.synchronizedList(new ArrayList<Message>());
+
+  private Session session;
+
+  @Before
+  public void setUp() throws Exception {
+    session = Session.getInstance(new Properties());
+  }
+
+  @Test
+  public void testWrite() throws Exception {
+    final GroupCommitWriter writer =
+        new GroupCommitWriter(new RecordingWriter(), 4, "test-writer");
+    final Message message = MessageFactory.newMessage("Test message", session);
+    writer.write(message);
+    writer.close();
+    assertThat(written, contains(message));
+  }
+
+  @Test(expected = MessagingException.class)
+  public void testWriteAfterClose() throws Exception {
+    final GroupCommitWriter writer =
+        new GroupCommitWriter(new RecordingWriter(), 4, "test-writer");
+    writer.close();
+    writer.write(MessageFactory.newMessage("Test message", session));
+  }
+
+  @Test(timeout = 10000)
+  public void testWriteWhenQueueIsFullAndWriterThreadHasStopped()
+      throws Exception {
+    final GroupCommitWriter writer = new GroupCommitWriter(
+        new RecordingWriter() {
+          @Override
+          public void write(Message message) throws IOException {
+            super.write(message);
+            // the writer thread stops when it next waits for the queue
+            Thread.currentThread().interrupt();
+          }
+        }, 1, "test-writer");
+    final Message message = MessageFactory.newMessage("Test message", session);
+    writer.write(message);
+    for (int i = 0; i < 2; i++) {
+      try {
+        writer.write(message);
+        fail("expected MessagingException");
+      }
+      catch (MessagingException ex) {
+        assertThat(ex.getMessage(), is("transport is closed"));
+      }
+    }
+    writer.close();
+    assertThat(written, contains(message));
+  }
+
+  private class RecordingWriter implements MessageWriter {
+
+    @Override
+    public void write(Message message) throws IOException {
+      written.add(message);
+    }
+
+    @Override
+    public void commit(int messages) {
+    }
+
+    @Override
+    public void close() {
+    }
+
+  }
+
+}
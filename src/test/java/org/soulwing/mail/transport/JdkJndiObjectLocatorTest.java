@@ -0,0 +1,288 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.fail;
+
+import java.util.Hashtable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.naming.Context;
+import javax.naming.NameNotFoundException;
+import javax.naming.NamingException;
+import javax.naming.NoInitialContextException;
+import javax.naming.spi.InitialContextFactory;
+
+import org.jmock.Expectations;
+import org.jmock.auto.Mock;
+import org.jmock.integration.junit4.JUnitRuleMockery;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link JdkJndiObjectLocator}.
+ *
+ * @author Carl Harris
+ */
+public class JdkJndiObjectLocatorTest {
+
+  private static final String NAME = "java:/mail/Session";
+  private static final String OTHER_NAME = "java:/mail/OtherSession";
+  private static final long FOREVER = Long.MAX_VALUE / 1000000;
+
+  @Rule
+  public final JUnitRuleMockery context = new JUnitRuleMockery();
+
+  @Mock
+  Context ctx;
+
+  private final Object object = new Object();
+
+  private final FakeTicker ticker = new FakeTicker();
+
+  private JdkJndiObjectLocator.LookupCache cache;
+
+  @Before
+  public void setUp() throws Exception {
+    cache = new JdkJndiObjectLocator.LookupCache(2);
+  }
+
+  @Test
+  public void testLookupCachesResult() throws Exception {
+    context.checking(new Expectations() {
+      {
+        oneOf(ctx).lookup(NAME);
+        will(returnValue(object));
+      }
+    });
+
+    final JdkJndiObjectLocator locator = newLocator(FOREVER, FOREVER);
+    assertThat(locator.lookup(NAME), is(sameInstance(object)));
+    assertThat(locator.lookup(NAME), is(sameInstance(object)));
+  }
+
+  @Test
+  public void testLookupCachesMiss() throws Exception {
+    context.checking(new Expectations() {
+      {
+        oneOf(ctx).lookup(NAME);
+        will(throwException(new NameNotFoundException()));
+      }
+    });
+
+    final JdkJndiObjectLocator locator = newLocator(FOREVER, FOREVER);
+    assertThat(locator.lookup(NAME), is(nullValue()));
+    assertThat(locator.lookup(NAME), is(nullValue()));
+  }
+
+  @Test
+  public void testLookupCachesMissingInitialContext() throws Exception {
+    context.checking(new Expectations() {
+      {
+        oneOf(ctx).lookup(NAME);
+        will(throwException(new NoInitialContextException()));
+      }
+    });
+
+    final JdkJndiObjectLocator locator = newLocator(FOREVER, FOREVER);
+    assertThat(locator.lookup(NAME), is(nullValue()));
+    assertThat(locator.lookup(NAME), is(nullValue()));
+  }
+
+  @Test
+  public void testLookupAfterEntriesExpire() throws Exception {
+    context.checking(new Expectations() {
+      {
+        exactly(2).of(ctx).lookup(NAME);
+        will(returnValue(object));
+        exactly(2).of(ctx).lookup(OTHER_NAME);
+        will(throwException(new NameNotFoundException()));
+      }
+    });
+
+    final JdkJndiObjectLocator locator = newLocator(100, 10);
+    locator.lookup(NAME);
+    locator.lookup(OTHER_NAME);
+    ticker.advance(9, TimeUnit.MILLISECONDS);
+    locator.lookup(NAME);
+    locator.lookup(OTHER_NAME);
+    ticker.advance(1, TimeUnit.MILLISECONDS);
+    assertThat(locator.lookup(OTHER_NAME), is(nullValue()));
+    ticker.advance(89, TimeUnit.MILLISECONDS);
+    locator.lookup(NAME);
+    ticker.advance(1, TimeUnit.MILLISECONDS);
+    assertThat(locator.lookup(NAME), is(sameInstance(object)));
+  }
+
+  @Test
+  public void testLookupWhenCachingDisabled() throws Exception {
+    context.checking(new Expectations() {
+      {
+        exactly(2).of(ctx).lookup(NAME);
+        will(returnValue(object));
+        exactly(2).of(ctx).lookup(OTHER_NAME);
+        will(throwException(new NameNotFoundException()));
+      }
+    });
+
+    final JdkJndiObjectLocator locator = newLocator(0, 0);
+    assertThat(locator.lookup(NAME), is(sameInstance(object)));
+    assertThat(locator.lookup(NAME), is(sameInstance(object)));
+    assertThat(locator.lookup(OTHER_NAME), is(nullValue()));
+    assertThat(locator.lookup(OTHER_NAME), is(nullValue()));
+    assertThat(cache.size(), is(equalTo(0)));
+  }
+
+  @Test(expected = NamingException.class)
+  public void testLookupDoesNotCacheFailure() throws Exception {
+    context.checking(new Expectations() {
+      {
+        oneOf(ctx).lookup(NAME);
+        will(throwException(new NamingException()));
+      }
+    });
+
+    final JdkJndiObjectLocator locator = newLocator(FOREVER, FOREVER);
+    try {
+      locator.lookup(NAME);
+    }
+    finally {
+      assertThat(cache.size(), is(equalTo(0)));
+    }
+  }
+
+  @Test
+  public void testInvalidate() throws Exception {
+    context.checking(new Expectations() {
+      {
+        exactly(2).of(ctx).lookup(NAME);
+        will(returnValue(object));
+      }
+    });
+
+    final JdkJndiObjectLocator locator = newLocator(FOREVER, FOREVER);
+    locator.lookup(NAME);
+    locator.invalidate(NAME);
+    locator.lookup(NAME);
+  }
+
+  @Test
+  public void testInvalidateAll() throws Exception {
+    context.checking(new Expectations() {
+      {
+        exactly(2).of(ctx).lookup(NAME);
+        will(returnValue(object));
+      }
+    });
+
+    final JdkJndiObjectLocator locator = newLocator(FOREVER, FOREVER);
+    locator.lookup(NAME);
+    locator.invalidateAll();
+    locator.lookup(NAME);
+  }
+
+  @Test
+  public void testCacheEvictsOldestEntryWhenFull() throws Exception {
+    context.checking(new Expectations() {
+      {
+        exactly(2).of(ctx).lookup(NAME);
+        will(returnValue(object));
+        oneOf(ctx).lookup(OTHER_NAME);
+        will(returnValue(object));
+        oneOf(ctx).lookup("third");
+        will(returnValue(object));
+      }
+    });
+
+    final JdkJndiObjectLocator locator = newLocator(FOREVER, FOREVER);
+    locator.lookup(NAME);
+    ticker.advance(1, TimeUnit.MILLISECONDS);
+    locator.lookup(OTHER_NAME);
+    ticker.advance(1, TimeUnit.MILLISECONDS);
+    locator.lookup("third");
+    assertThat(cache.size(), is(equalTo(2)));
+    locator.lookup(OTHER_NAME);
+    locator.lookup(NAME);
+  }
+
+  @Test
+  public void testInitialContextFailureNotRemembered() throws Exception {
+    context.checking(new Expectations() {
+      {
+        oneOf(ctx).lookup(NAME);
+        will(returnValue(object));
+      }
+    });
+
+    FailingOnceContextFactory.reset(ctx);
+    final Hashtable<String, Object> environment = new Hashtable<>();
+    environment.put(Context.INITIAL_CONTEXT_FACTORY,
+        FailingOnceContextFactory.class.getName());
+    final JdkJndiObjectLocator locator = new JdkJndiObjectLocator(
+        new JdkJndiObjectLocator.ContextHolder(environment), cache,
+        FOREVER, FOREVER, ticker);
+    try {
+      locator.lookup(NAME);
+      fail("expected NamingException");
+    }
+    catch (NamingException ex) {
+      assertThat(ex.getMessage(), is(equalTo("not yet")));
+    }
+    assertThat(locator.lookup(NAME), is(sameInstance(object)));
+    assertThat(locator.lookup(NAME), is(sameInstance(object)));
+    assertThat(FailingOnceContextFactory.attempts.get(), is(equalTo(2)));
+  }
+
+  private JdkJndiObjectLocator newLocator(long ttl, long missTtl) {
+    return new JdkJndiObjectLocator(ctx, cache, ttl, missTtl, ticker);
+  }
+
+  /**
+   * A context factory that fails the first time it is used.
+   */
+  public static class FailingOnceContextFactory
+      implements InitialContextFactory {
+
+    static final AtomicInteger attempts = new AtomicInteger();
+
+    private static volatile Context context;
+
+    static void reset(Context context) {
+      FailingOnceContextFactory.context = context;
+      attempts.set(0);
+    }
+
+    @Override
+    public Context getInitialContext(Hashtable<?, ?> environment)
+        throws NamingException {
+      if (attempts.incrementAndGet() == 1) {
+        throw new NamingException("not yet");
+      }
+      return context;
+    }
+
+  }
+
+}
@@ -0,0 +1,157 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link LatencyDistribution}.
+ *
+ * @author Carl Harris
+ */
+public class LatencyDistributionTest {
+
+  private static final String PROPERTY = "delay";
+  private static final int SAMPLES = 20000;
+
+  @Test
+  public void testFixed() throws Exception {
+    final LatencyDistribution distribution = forSpec("fixed:25");
+    final Random random = new Random(1);
+    assertThat(distribution.nextDelay(random), is(equalTo(25L)));
+    assertThat(distribution.nextDelay(random), is(equalTo(25L)));
+  }
+
+  @Test
+  public void testUniform() throws Exception {
+    final long[] samples = sample(forSpec("uniform:10,20"));
+    assertThat(samples[0], is(greaterThanOrEqualTo(10L)));
+    assertThat(samples[SAMPLES - 1], is(lessThanOrEqualTo(20L)));
+    assertThat((double) percentile(samples, 50), is(closeTo(15, 1)));
+  }
+
+  @Test
+  public void testExponential() throws Exception {
+    final long[] samples = sample(forSpec("exponential:100"));
+    assertThat(mean(samples), is(closeTo(100, 5)));
+    // the median of an exponential distribution is mean * ln(2)
+    assertThat((double) percentile(samples, 50), is(closeTo(69, 5)));
+  }
+
+  @Test
+  public void testLogNormal() throws Exception {
+    final long[] samples = sample(forSpec("lognormal:50,0.5"));
+    assertThat((double) percentile(samples, 50), is(closeTo(50, 3)));
+  }
+
+  @Test
+  public void testPercentiles() throws Exception {
+    final long[] samples = sample(forSpec("percentiles:50=20,99=200,90=100"));
+    assertThat((double) percentile(samples, 25), is(closeTo(10, 2)));
+    assertThat((double) percentile(samples, 50), is(closeTo(20, 2)));
+    assertThat((double) percentile(samples, 90), is(closeTo(100, 5)));
+    assertThat(samples[SAMPLES - 1], is(equalTo(200L)));
+  }
+
+  @Test
+  public void testPercentilesWithOrigin() throws Exception {
+    final long[] samples = sample(forSpec("percentiles:0=5,100=5"));
+    assertThat(samples[0], is(equalTo(5L)));
+    assertThat(samples[SAMPLES - 1], is(equalTo(5L)));
+  }
+
+  @Test
+  public void testSeededSequenceIsRepeatable() throws Exception {
+    final LatencyDistribution distribution = forSpec("exponential:100");
+    final Random random = new Random(42);
+    final Random other = new Random(42);
+    for (int i = 0; i < 100; i++) {
+      assertThat(distribution.nextDelay(random),
+          is(equalTo(distribution.nextDelay(other))));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownDistribution() throws Exception {
+    forSpec("gaussian:10");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testWrongParameterCount() throws Exception {
+    forSpec("uniform:10");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeParameter() throws Exception {
+    forSpec("fixed:-1");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidNumber() throws Exception {
+    forSpec("fixed:soon");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUniformMaxLessThanMin() throws Exception {
+    forSpec("uniform:20,10");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDecreasingPercentiles() throws Exception {
+    forSpec("percentiles:50=20,99=10");
+  }
+
+  private static LatencyDistribution forSpec(String spec) {
+    return LatencyDistribution.forSpec(PROPERTY, spec);
+  }
+
+  private static long[] sample(LatencyDistribution distribution) {
+    final Random random = new Random(7);
+    final long[] samples = new long[SAMPLES];
+    for (int i = 0; i < SAMPLES; i++) {
+      samples[i] = distribution.nextDelay(random);
+    }
+    Arrays.sort(samples);
+    return samples;
+  }
+
+  private static long percentile(long[] sorted, double percentile) {
+    return sorted[(int) (percentile / 100 * (sorted.length - 1))];
+  }
+
+  private static double mean(long[] samples) {
+    double sum = 0;
+    for (final long sample : samples) {
+      sum += sample;
+    }
+    return sum / samples.length;
+  }
+
+}
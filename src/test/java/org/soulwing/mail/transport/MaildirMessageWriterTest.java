@@ -0,0 +1,150 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Properties;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.event.TransportEvent;
+import javax.mail.internet.MimeMessage;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the maildir layout of {@link FileTransport}.
+ *
+ * @author Carl Harris
+ */
+public class MaildirMessageWriterTest {
+
+  private File directory;
+  private SessionFactory sessionFactory;
+
+  @Before
+  public void setUp() throws Exception {
+    directory = File.createTempFile("maildir", "");
+    assertThat(directory.delete(), is(true));
+    final Properties properties = new Properties();
+    properties.setProperty("mail.transport.protocol", "file");
+    properties.setProperty(FileTransport.FILE_PATH, directory.toString());
+    properties.setProperty(FileTransport.LAYOUT, "maildir");
+    sessionFactory = new SessionFactory(properties);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    delete(directory);
+  }
+
+  @Test
+  public void testSendMessages() throws Exception {
+    final Session session = sessionFactory.newSession();
+    final Transport transport = session.getTransport();
+    final MockTransportListener listener = new MockTransportListener();
+    transport.addTransportListener(listener);
+    transport.connect();
+    final Message message1 = MessageFactory.newMessage("Message 1", session);
+    transport.sendMessage(message1, message1.getAllRecipients());
+    final Message message2 = MessageFactory.newMessage("Message 2", session);
+    transport.sendMessage(message2, message2.getAllRecipients());
+    transport.close();
+
+    final TransportEvent event = listener.awaitEvent(500, 5000);
+    assertThat(event, is(not(nullValue())));
+    assertThat(event.getType(), is(equalTo(TransportEvent.MESSAGE_DELIVERED)));
+
+    assertThat(new File(directory, MaildirMessageWriter.TMP).list().length,
+        is(equalTo(0)));
+    assertThat(new File(directory, MaildirMessageWriter.CUR).list().length,
+        is(equalTo(0)));
+    final File[] files =
+        new File(directory, MaildirMessageWriter.NEW).listFiles();
+    assertThat(files.length, is(equalTo(2)));
+    final MimeMessage result = readMessage(files[0], session);
+    assertThat(result.getSubject().startsWith("Message "), is(true));
+  }
+
+  @Test
+  public void testSendMessageWithoutConnecting() throws Exception {
+    final Session session = sessionFactory.newSession();
+    final Message message = MessageFactory.newMessage("Message", session);
+    session.getTransport().sendMessage(message, message.getAllRecipients());
+    assertThat(new File(directory, MaildirMessageWriter.NEW).list().length,
+        is(equalTo(1)));
+  }
+
+  @Test
+  public void testSendMessageWhenErrorRequested() throws Exception {
+    final Session session = sessionFactory.newSession();
+    final Transport transport = session.getTransport();
+    transport.connect();
+    final Message message = MessageFactory.newMessage("Message", session);
+    message.setHeader(ErrorHeader.ERROR_HEADER, "test error");
+    try {
+      transport.sendMessage(message, message.getAllRecipients());
+      fail("expected MessagingException");
+    }
+    catch (MessagingException ex) {
+      assertThat(ex.getMessage(), is(equalTo("test error")));
+    }
+    finally {
+      transport.close();
+    }
+    assertThat(new File(directory, MaildirMessageWriter.NEW).list().length,
+        is(equalTo(0)));
+  }
+
+  @Test(expected = MessagingException.class)
+  public void testConnectWithSegments() throws Exception {
+    sessionFactory.newSession(FileTransport.SEGMENT_BYTES, "1")
+        .getTransport().connect();
+  }
+
+  private static MimeMessage readMessage(File file, Session session)
+      throws Exception {
+    try (InputStream inputStream = new FileInputStream(file)) {
+      return new MimeMessage(session, inputStream);
+    }
+  }
+
+  private static void delete(File file) {
+    final File[] files = file.listFiles();
+    if (files != null) {
+      for (final File child : files) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+
+}
@@ -0,0 +1,316 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.event.TransportEvent;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+
+/**
+ * Unit tests for {@link MemoryTransport} and {@link MemoryMailbox}.
+ *
+ * @author Carl Harris
+ */
+public class MemoryTransportTest {
+
+  private static final long LISTENER_WAIT = 500;
+  private static final long MAX_LISTENER_WAIT = 10*LISTENER_WAIT;
+
+  @Rule
+  public final TestName testName = new TestName();
+
+  private MemoryMailbox mailbox;
+
+  @Before
+  public void setUp() throws Exception {
+    mailbox = MemoryMailbox.named(testName.getMethodName());
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    mailbox.clear();
+  }
+
+  @Test
+  public void testSendMessages() throws Exception {
+    final Session session = newSession();
+    final Transport transport = session.getTransport();
+    transport.connect();
+    for (int i = 0; i < 3; i++) {
+      send(transport, newMessage(session, i, "to" + i + "@nowhere.net"));
+    }
+    transport.close();
+
+    final List<MimeMessage> messages = mailbox.getMessages();
+    assertThat(messages.size(), is(equalTo(3)));
+    assertThat(mailbox.size(), is(equalTo(3)));
+    assertThat(mailbox.getDeliveredCount(), is(equalTo(3L)));
+    assertThat(messages.get(2).getSubject(), is(equalTo("Message 2")));
+
+    final List<MimeMessage> byRecipient =
+        mailbox.findByRecipient("TO1@nowhere.net");
+    assertThat(byRecipient.size(), is(equalTo(1)));
+    assertThat(byRecipient.get(0).getSubject(), is(equalTo("Message 1")));
+
+    final List<MimeMessage> byHeader =
+        mailbox.findByHeader("Subject", "Message 0");
+    assertThat(byHeader.size(), is(equalTo(1)));
+  }
+
+  @Test
+  public void testSendMessageWithoutConnecting() throws Exception {
+    final Session session = newSession();
+    send(session.getTransport(), newMessage(session, 0, "a@nowhere.net"));
+    assertThat(mailbox.size(), is(equalTo(1)));
+  }
+
+  @Test
+  public void testEvictOldestByCount() throws Exception {
+    final Session session = newSession(MemoryTransport.CAPACITY, "2");
+    for (int i = 0; i < 3; i++) {
+      send(session.getTransport(), newMessage(session, i, "a@nowhere.net"));
+    }
+    final List<MimeMessage> messages = mailbox.getMessages();
+    assertThat(messages.size(), is(equalTo(2)));
+    assertThat(messages.get(0).getSubject(), is(equalTo("Message 1")));
+    assertThat(mailbox.getEvictedCount(), is(equalTo(1L)));
+    assertThat(mailbox.getDeliveredCount(), is(equalTo(3L)));
+  }
+
+  @Test
+  public void testEvictOldestByBytes() throws Exception {
+    final Session session = newSession();
+    final Message message = newMessage(session, 0, "a@nowhere.net");
+    send(session.getTransport(), message);
+    final long size = mailbox.getByteCount();
+
+    final long maxBytes = size * 5 / 2;
+    final Session limited = newSession(MemoryTransport.MAX_BYTES,
+        Long.toString(maxBytes));
+    for (int i = 0; i < 4; i++) {
+      send(limited.getTransport(), newMessage(limited, i, "a@nowhere.net"));
+    }
+    final List<MimeMessage> messages = mailbox.getMessages();
+    assertThat(messages.size(), is(equalTo(2)));
+    assertThat(messages.get(0).getSubject(), is(equalTo("Message 2")));
+    assertThat(mailbox.getByteCount(), is(equalTo(totalSize(messages))));
+    assertThat(mailbox.getByteCount() <= maxBytes, is(true));
+  }
+
+  @Test
+  public void testRejectWhenFull() throws Exception {
+    final Session session = newSession(
+        MemoryTransport.CAPACITY, "1",
+        MemoryTransport.EVICTION, "reject");
+    send(session.getTransport(), newMessage(session, 0, "a@nowhere.net"));
+    try {
+      send(session.getTransport(), newMessage(session, 1, "a@nowhere.net"));
+      throw new AssertionError("expected MessagingException");
+    }
+    catch (MessagingException ex) {
+      assertThat(mailbox.size(), is(equalTo(1)));
+      assertThat(mailbox.getEvictedCount(), is(equalTo(1L)));
+    }
+  }
+
+  @Test
+  public void testDiscardWhenFull() throws Exception {
+    final Session session = newSession(
+        MemoryTransport.CAPACITY, "1",
+        MemoryTransport.EVICTION, "discard");
+    send(session.getTransport(), newMessage(session, 0, "a@nowhere.net"));
+    final Transport transport = session.getTransport();
+    final MockTransportListener listener = new MockTransportListener();
+    transport.addTransportListener(listener);
+    send(transport, newMessage(session, 1, "a@nowhere.net"));
+    assertThat(mailbox.size(), is(equalTo(1)));
+    assertThat(mailbox.getMessages().get(0).getSubject(),
+        is(equalTo("Message 0")));
+    final TransportEvent event =
+        listener.awaitEvent(LISTENER_WAIT, MAX_LISTENER_WAIT);
+    assertThat(event, is(not(nullValue())));
+    assertThat(event.getType(),
+        is(equalTo(TransportEvent.MESSAGE_NOT_DELIVERED)));
+    assertThat(event.getValidUnsentAddresses().length, is(equalTo(1)));
+  }
+
+  @Test(expected = MessagingException.class)
+  public void testMessageLargerThanMailbox() throws Exception {
+    final Session session = newSession(MemoryTransport.MAX_BYTES, "10");
+    send(session.getTransport(), newMessage(session, 0, "a@nowhere.net"));
+  }
+
+  @Test(expected = MessagingException.class)
+  public void testInvalidEvictionPolicy() throws Exception {
+    newSession(MemoryTransport.EVICTION, "newest").getTransport().connect();
+  }
+
+  @Test
+  public void testAwait() throws Exception {
+    final Session session = newSession();
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          // send only when the test thread is waiting, so it must be woken
+          while (mailbox.getWaiterCount() == 0) {
+            Thread.yield();
+          }
+          for (int i = 0; i < 2; i++) {
+            send(session.getTransport(),
+                newMessage(session, i, "to" + i + "@nowhere.net"));
+          }
+          return null;
+        }
+      });
+      assertThat(mailbox.awaitCount(2, 5, TimeUnit.SECONDS), is(true));
+      assertThat(mailbox.awaitRecipient("to1@nowhere.net", 5,
+          TimeUnit.SECONDS).getSubject(), is(equalTo("Message 1")));
+      assertThat(mailbox.awaitHeader("Subject", "Message 0", 5,
+          TimeUnit.SECONDS).getSubject(), is(equalTo("Message 0")));
+      assertThat(mailbox.awaitRecipient("other@nowhere.net", 10,
+          TimeUnit.MILLISECONDS), is(nullValue()));
+      assertThat(mailbox.awaitCount(3, 10, TimeUnit.MILLISECONDS), is(false));
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testConcurrentSends() throws Exception {
+    final int threads = 8;
+    final int messagesPerThread = 250;
+    final Session session = newSession(MemoryTransport.CAPACITY, "100");
+    final Message message = newMessage(session, 0, "a@nowhere.net");
+    message.saveChanges();
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      final List<Future<Void>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            final Transport transport = session.getTransport();
+            for (int j = 0; j < messagesPerThread; j++) {
+              transport.sendMessage(message, message.getAllRecipients());
+            }
+            return null;
+          }
+        }));
+      }
+      for (final Future<Void> future : futures) {
+        future.get();
+      }
+    }
+    finally {
+      executor.shutdownNow();
+    }
+    assertThat(mailbox.getDeliveredCount(),
+        is(equalTo((long) threads * messagesPerThread)));
+    assertThat(mailbox.size(), is(equalTo(100)));
+    assertThat(mailbox.getByteCount(),
+        is(equalTo(totalSize(mailbox.getMessages()))));
+  }
+
+  @Test
+  public void testSendMessagesWithRules() throws Exception {
+    final Session session = newSession(
+        "mail.memory.rules", "discard,capture",
+        "mail.memory.rule.discard.header", "Subject",
+        "mail.memory.rule.discard.headerPattern", "Message 0",
+        "mail.memory.rule.discard.action", "drop",
+        "mail.memory.rule.capture.domains", "nowhere.net",
+        "mail.memory.rule.capture.action", "route",
+        "mail.memory.rule.capture.route", "sink@somewhere.net");
+    final Transport transport = session.getTransport();
+    send(transport, newMessage(session, 0, "a@nowhere.net"));
+    send(transport, newMessage(session, 1, "b@nowhere.net"));
+    send(transport, newMessage(session, 2, "c@elsewhere.net"));
+
+    assertThat(mailbox.size(), is(equalTo(2)));
+    final List<MimeMessage> routed =
+        mailbox.findByRecipient("sink@somewhere.net");
+    assertThat(routed.size(), is(equalTo(1)));
+    assertThat(routed.get(0).getSubject(), is(equalTo("Message 1")));
+    assertThat(mailbox.findByRecipient("c@elsewhere.net").size(),
+        is(equalTo(1)));
+  }
+
+  private static long totalSize(List<MimeMessage> messages) throws Exception {
+    long size = 0;
+    for (final MimeMessage message : messages) {
+      final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      message.writeTo(outputStream);
+      size += outputStream.size();
+    }
+    return size;
+  }
+
+  private Session newSession(String... pairs) {
+    final Properties properties = new Properties();
+    properties.setProperty("mail.transport.protocol", "memory");
+    properties.setProperty(MemoryTransport.NAME, mailbox.getName());
+    for (int i = 0; i < pairs.length; i += 2) {
+      properties.setProperty(pairs[i], pairs[i + 1]);
+    }
+    return Session.getInstance(properties);
+  }
+
+  private static Message newMessage(Session session, int index,
+      String recipient) throws MessagingException {
+    final Message message = MessageFactory.newMessage("Message " + index,
+        session);
+    message.setRecipient(Message.RecipientType.TO,
+        new InternetAddress(recipient));
+    return message;
+  }
+
+  private static void send(Transport transport, Message message)
+      throws MessagingException {
+    transport.sendMessage(message, message.getAllRecipients());
+  }
+
+}
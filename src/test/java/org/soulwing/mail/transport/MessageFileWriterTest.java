@@ -0,0 +1,224 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Properties;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.internet.MimeMessage;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link MessageFileWriter}.
+ *
+ * @author Carl Harris
+ */
+public class MessageFileWriterTest {
+
+  // larger than the writer's buffer, so that some of the data reaches the file
+  private static final int LARGE_PARTIAL_LENGTH = 100000;
+
+  private static final int SMALL_PARTIAL_LENGTH = 100;
+
+  private Session session;
+  private File file;
+  private File referenceFile;
+
+  @Before
+  public void setUp() throws Exception {
+    session = Session.getInstance(new Properties());
+    file = File.createTempFile("mail", ".txt");
+    referenceFile = File.createTempFile("mail", ".txt");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    assertThat(file.delete(), is(true));
+    assertThat(referenceFile.delete(), is(true));
+    final File indexFile = MessageIndex.indexFile(file);
+    if (indexFile.exists()) {
+      assertThat(indexFile.delete(), is(true));
+    }
+  }
+
+  @Test
+  public void testFailedMessageDiscarded() throws Exception {
+    assertFailedMessageDiscarded(Compression.NONE, false,
+        SMALL_PARTIAL_LENGTH);
+  }
+
+  @Test
+  public void testLargeFailedMessageDiscarded() throws Exception {
+    assertFailedMessageDiscarded(Compression.NONE, false,
+        LARGE_PARTIAL_LENGTH);
+  }
+
+  @Test
+  public void testFailedMessageDiscardedFromCompressedBlock()
+      throws Exception {
+    assertFailedMessageDiscarded(Compression.GZIP, false,
+        LARGE_PARTIAL_LENGTH);
+  }
+
+  @Test
+  public void testFailedMessageDiscardedFromCompressedBatch()
+      throws Exception {
+    assertFailedMessageDiscarded(Compression.GZIP, true,
+        SMALL_PARTIAL_LENGTH);
+  }
+
+  @Test
+  public void testLargeFailedMessageDiscardedFromCompressedBatch()
+      throws Exception {
+    assertFailedMessageDiscarded(Compression.GZIP, true,
+        LARGE_PARTIAL_LENGTH);
+  }
+
+  @Test
+  public void testFailedMessageDiscardedFromDeflateBatch() throws Exception {
+    assertFailedMessageDiscarded(Compression.DEFLATE, true,
+        LARGE_PARTIAL_LENGTH);
+  }
+
+  private void assertFailedMessageDiscarded(Compression compression,
+      boolean compressBatches, int partialLength) throws Exception {
+    final Message[] messages = new Message[3];
+    for (int i = 0; i < messages.length; i++) {
+      messages[i] = MessageFactory.newMessage("Message " + i, session);
+      messages[i].saveChanges();
+    }
+
+    final MessageFileWriter writer = MessageFileWriter.open(file.toString(),
+        false, new MessageFileOptions(SyncPolicy.NONE, compression,
+            Deflater.DEFAULT_COMPRESSION, compressBatches, true));
+    try {
+      writer.write(messages[0]);
+      try {
+        writer.write(new FailingMessage(session, partialLength));
+        fail("expected MessagingException");
+      }
+      catch (MessagingException ex) {
+        assert true;
+      }
+      writer.write(messages[1]);
+      writer.commit(2);
+      writer.write(messages[2]);
+      writer.commit(1);
+    }
+    finally {
+      writer.close();
+    }
+
+    final MessageFileWriter reference = MessageFileWriter.open(
+        referenceFile.toString(), false, MessageFileOptions.DEFAULTS);
+    try {
+      for (final Message message : messages) {
+        reference.write(message);
+      }
+      reference.commit(messages.length);
+    }
+    finally {
+      reference.close();
+    }
+
+    final byte[] data = Files.readAllBytes(file.toPath());
+    assertThat(decompress(data, compression),
+        is(equalTo(Files.readAllBytes(referenceFile.toPath()))));
+
+    try (MessageIndex index = MessageIndex.open(file)) {
+      assertThat(index.size(), is(equalTo(messages.length)));
+      for (int i = 0; i < messages.length; i++) {
+        assertThat(index.get(i).getMessageId(), is(equalTo(
+            messages[i].getHeader("Message-ID")[0])));
+      }
+    }
+  }
+
+  private static byte[] decompress(byte[] data, Compression compression)
+      throws Exception {
+    if (compression == Compression.NONE) return data;
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    if (compression == Compression.GZIP) {
+      try (InputStream in = new GZIPInputStream(
+          new ByteArrayInputStream(data))) {
+        final byte[] buffer = new byte[8192];
+        int count;
+        while ((count = in.read(buffer)) != -1) {
+          out.write(buffer, 0, count);
+        }
+      }
+      return out.toByteArray();
+    }
+    final byte[] buffer = new byte[8192];
+    int offset = 0;
+    while (offset < data.length) {
+      final Inflater inflater = new Inflater();
+      inflater.setInput(data, offset, data.length - offset);
+      while (!inflater.finished()) {
+        out.write(buffer, 0, inflater.inflate(buffer));
+      }
+      offset = data.length - inflater.getRemaining();
+      inflater.end();
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * A message that fails after writing part of its content.
+   */
+  private static class FailingMessage extends MimeMessage {
+
+    private final int partialLength;
+
+    FailingMessage(Session session, int partialLength) {
+      super(session);
+      this.partialLength = partialLength;
+    }
+
+    @Override
+    public void writeTo(OutputStream os)
+        throws IOException, MessagingException {
+      for (int i = 0; i < partialLength; i++) {
+        os.write('x');
+      }
+      throw new MessagingException("message cannot be written");
+    }
+
+  }
+
+}
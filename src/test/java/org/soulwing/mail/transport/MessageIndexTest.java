@@ -0,0 +1,237 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Properties;
+import java.util.zip.GZIPInputStream;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link MessageIndex} and {@link MessageIndexWriter}.
+ *
+ * @author Carl Harris
+ */
+public class MessageIndexTest {
+
+  // test messages don't end with a line ending, so one is added
+  private static final int SEPARATOR_LENGTH = 4;
+
+  private File file;
+  private File indexFile;
+
+  @Before
+  public void setUp() throws Exception {
+    file = File.createTempFile("mail", ".txt");
+    indexFile = MessageIndex.indexFile(file);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    assertThat(file.delete(), is(true));
+    if (indexFile.exists()) {
+      assertThat(indexFile.delete(), is(true));
+    }
+  }
+
+  @Test
+  public void testIndexedMessages() throws Exception {
+    final Session session = newSession();
+    final Message[] messages = sendMessages(session, 3);
+
+    final byte[] data = Files.readAllBytes(file.toPath());
+    try (MessageIndex index = MessageIndex.open(file)) {
+      assertThat(index.getCompression(), is(equalTo("none")));
+      assertThat(index.size(), is(equalTo(3)));
+      long offset = 0;
+      for (int i = 0; i < messages.length; i++) {
+        final MessageIndex.Entry entry = index.get(i);
+        assertThat(entry.getOffset(), is(equalTo(offset)));
+        assertThat(entry.getOffsetInBlock(), is(equalTo(0L)));
+        assertThat(entry.getMessageId(), is(equalTo(
+            messages[i].getHeader("Message-ID")[0])));
+        assertThat(entry.getRecipient(), is(equalTo("nobody@nowhere.net")));
+        assertThat(entry.getSubjectHash(),
+            is(equalTo(messages[i].getSubject().hashCode())));
+        assertThat(entry.getTimestamp(), is(greaterThan(0L)));
+        final String content = new String(data, (int) entry.getOffset(),
+            (int) entry.getLength(), "US-ASCII");
+        assertThat(content, startsWith("From:"));
+        assertThat(content.contains("Subject: Message " + i), is(true));
+        offset = entry.getOffset() + entry.getLength() + SEPARATOR_LENGTH;
+      }
+      assertThat(offset, is(equalTo((long) data.length)));
+    }
+  }
+
+  @Test
+  public void testIndexedAppendedMessages() throws Exception {
+    final Session session = newSession();
+    sendMessages(session, 2);
+    sendMessages(session, 1);
+    try (MessageIndex index = MessageIndex.open(file)) {
+      assertThat(index.size(), is(equalTo(3)));
+      assertThat(index.get(2).getOffset() + index.get(2).getLength()
+          + SEPARATOR_LENGTH,
+          is(equalTo(file.length())));
+    }
+  }
+
+  @Test
+  public void testIndexTruncatedWithFile() throws Exception {
+    sendMessages(newSession(), 2);
+    sendMessages(newSession(FileTransport.APPEND, "false"), 1);
+    try (MessageIndex index = MessageIndex.open(file)) {
+      assertThat(index.size(), is(equalTo(1)));
+      assertThat(index.get(0).getOffset(), is(equalTo(0L)));
+    }
+  }
+
+  @Test
+  public void testIndexedCompressedBatch() throws Exception {
+    final Session session = newSession(
+        FileTransport.COMPRESSION, "gzip",
+        FileTransport.COMPRESSION_BLOCK, "batch",
+        FileTransport.FLUSH, "buffer");
+    sendMessages(session, 3);
+
+    final byte[] data = Files.readAllBytes(file.toPath());
+    try (MessageIndex index = MessageIndex.open(file)) {
+      assertThat(index.getCompression(), is(equalTo("gzip")));
+      assertThat(index.size(), is(equalTo(3)));
+      final MessageIndex.Entry entry = index.get(2);
+      assertThat(entry.getOffset(), is(equalTo(0L)));
+      assertThat(entry.getOffsetInBlock(), is(greaterThan(0L)));
+      final byte[] block = gunzip(data, (int) entry.getOffset());
+      final String content = new String(block, (int) entry.getOffsetInBlock(),
+          (int) entry.getLength(), "US-ASCII");
+      assertThat(content, startsWith("From:"));
+      assertThat(content.endsWith("This is only a test."), is(true));
+      assertThat(content.contains("Subject: Message 2"), is(true));
+    }
+  }
+
+  @Test
+  public void testEntryStringsTruncated() throws Exception {
+    final Session session = newSession();
+    final Message message = MessageFactory.newMessage("Message", session);
+    final StringBuilder sb = new StringBuilder("a");
+    for (int i = 0; i < MessageIndex.MAX_STRING_SIZE; i++) {
+      sb.append('\u00e9');
+    }
+    message.setHeader("Message-ID", sb.toString());
+    final MessageIndexWriter writer = MessageIndexWriter.open(file, true,
+        Compression.NONE);
+    writer.add(0, 0, 0, message);
+    writer.close();
+    try (MessageIndex index = MessageIndex.open(file)) {
+      final MessageIndex.Entry entry = index.get(0);
+      assertThat(entry.getMessageId(), is(equalTo(
+          sb.substring(0, MessageIndex.MAX_STRING_SIZE / 2))));
+    }
+  }
+
+  @Test
+  public void testMessageWithoutHeaders() throws Exception {
+    final Session session = newSession();
+    final Message message = MessageFactory.newMessage(null, session);
+    message.removeHeader("To");
+    final MessageIndexWriter writer = MessageIndexWriter.open(file, true,
+        Compression.NONE);
+    writer.add(0, 0, 0, message);
+    writer.close();
+    try (MessageIndex index = MessageIndex.open(file)) {
+      final MessageIndex.Entry entry = index.get(0);
+      assertThat(entry.getMessageId(), is(nullValue()));
+      assertThat(entry.getRecipient(), is(nullValue()));
+      assertThat(entry.getSubjectHash(), is(equalTo(0)));
+    }
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testGetBeyondSize() throws Exception {
+    sendMessages(newSession(), 1);
+    try (MessageIndex index = MessageIndex.open(file)) {
+      index.get(1);
+    }
+  }
+
+  @Test(expected = MessagingException.class)
+  public void testIndexWithMaildirLayout() throws Exception {
+    newSession(FileTransport.LAYOUT, "maildir").getTransport().connect();
+  }
+
+  private Session newSession(String... pairs) throws Exception {
+    final Properties properties = new Properties();
+    properties.setProperty("mail.transport.protocol", "file");
+    properties.setProperty(FileTransport.FILE_PATH, file.toString());
+    properties.setProperty(FileTransport.INDEX, "true");
+    for (int i = 0; i < pairs.length; i += 2) {
+      properties.setProperty(pairs[i], pairs[i + 1]);
+    }
+    return Session.getInstance(properties);
+  }
+
+  private Message[] sendMessages(Session session, int count)
+      throws Exception {
+    final Message[] messages = new Message[count];
+    final Transport transport = session.getTransport();
+    transport.connect();
+    for (int i = 0; i < count; i++) {
+      messages[i] = MessageFactory.newMessage("Message " + i, session);
+      messages[i].saveChanges();
+      transport.sendMessage(messages[i], messages[i].getAllRecipients());
+    }
+    transport.close();
+    return messages;
+  }
+
+  private static byte[] gunzip(byte[] data, int offset) throws Exception {
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    try (InputStream inputStream = new GZIPInputStream(
+        new ByteArrayInputStream(data, offset, data.length - offset))) {
+      final byte[] buffer = new byte[256];
+      int count = inputStream.read(buffer);
+      while (count != -1) {
+        outputStream.write(buffer, 0, count);
+        count = inputStream.read(buffer);
+      }
+    }
+    return outputStream.toByteArray();
+  }
+
+}
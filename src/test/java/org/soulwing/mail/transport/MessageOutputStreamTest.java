@@ -0,0 +1,77 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayOutputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link MessageOutputStream}.
+ *
+ * @author Carl Harris
+ */
+public class MessageOutputStreamTest {
+
+  private ByteArrayOutputStream target = new ByteArrayOutputStream();
+  private MessageOutputStream outputStream;
+
+  @Before
+  public void setUp() throws Exception {
+    outputStream = new MessageOutputStream(target);
+  }
+
+  @Test
+  public void testEndMessageWithLineEnding() throws Exception {
+    outputStream.write("message\r\n".getBytes("US-ASCII"));
+    outputStream.endMessage();
+    assertThat(target.toString("US-ASCII"), is(equalTo("message\r\n\r\n")));
+  }
+
+  @Test
+  public void testEndMessageWithoutLineEnding() throws Exception {
+    outputStream.write("message".getBytes("US-ASCII"));
+    outputStream.endMessage();
+    assertThat(target.toString("US-ASCII"), is(equalTo("message\r\n\r\n")));
+  }
+
+  @Test
+  public void testEndMessageWhenEmpty() throws Exception {
+    outputStream.endMessage();
+    assertThat(target.size(), is(equalTo(0)));
+  }
+
+  @Test
+  public void testEndSuccessiveMessages() throws Exception {
+    outputStream.write("one\n".getBytes("US-ASCII"));
+    outputStream.endMessage();
+    outputStream.write('t');
+    outputStream.write('w');
+    outputStream.write('o');
+    outputStream.endMessage();
+    assertThat(target.toString("US-ASCII"),
+        is(equalTo("one\n\r\ntwo\r\n\r\n")));
+  }
+
+}
@@ -0,0 +1,243 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.fail;
+
+import java.util.Properties;
+import javax.mail.Address;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.internet.InternetAddress;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link MessageRules}.
+ *
+ * @author Carl Harris
+ */
+public class MessageRulesTest {
+
+  private Properties properties;
+
+  private Session session;
+
+  @Before
+  public void setUp() throws Exception {
+    properties = new Properties();
+    session = Session.getInstance(new Properties());
+  }
+
+  @Test
+  public void testNoRules() throws Exception {
+    assertThat(newRules(), is(nullValue()));
+  }
+
+  @Test
+  public void testRulesAreCached() throws Exception {
+    set("rules", "blocked");
+    set("rule.blocked.domains", "example.com");
+    set("rule.blocked.action", "fail");
+    final MessageRules rules = newRules();
+    assertThat(newRules(), is(sameInstance(rules)));
+    set("rule.blocked.action", "drop");
+    final MessageRules changedRules = newRules();
+    assertThat(changedRules, is(not(sameInstance(rules))));
+    assertThat(changedRules.evaluate(newMessage(), addresses("a@example.com"))
+        .getAction(), is(equalTo(MessageRules.Action.DROP)));
+  }
+
+  @Test
+  public void testMatchDomain() throws Exception {
+    set("rules", "blocked");
+    set("rule.blocked.domains", "example.com, Example.org");
+    set("rule.blocked.action", "fail");
+    final MessageRules rules = newRules();
+    assertThat(rules.evaluate(newMessage(), addresses("a@EXAMPLE.org"))
+        .getName(), is(equalTo("blocked")));
+    assertThat(rules.evaluate(newMessage(), addresses("a@example.com.au")),
+        is(nullValue()));
+    assertThat(rules.evaluate(newMessage(), addresses("a@ample.com")),
+        is(nullValue()));
+  }
+
+  @Test
+  public void testMatchRecipient() throws Exception {
+    set("rules", "bounce");
+    set("rule.bounce.recipient", "bounce\\+.*@.*");
+    set("rule.bounce.action", "drop");
+    final MessageRules rules = newRules();
+    assertThat(rules.evaluate(newMessage(),
+        addresses("a@nowhere.net", "Bounce+1@nowhere.net")).getName(),
+        is(equalTo("bounce")));
+    assertThat(rules.evaluate(newMessage(),
+        addresses("xbounce+1@nowhere.net")), is(nullValue()));
+  }
+
+  @Test
+  public void testMatchHeader() throws Exception {
+    set("rules", "spam,flagged");
+    set("rule.spam.header", "X-Spam-Score");
+    set("rule.spam.headerPattern", "[5-9]\\.\\d+");
+    set("rule.spam.action", "drop");
+    set("rule.flagged.header", "X-Flagged");
+    set("rule.flagged.action", "fail");
+    final MessageRules rules = newRules();
+
+    final Message message = newMessage();
+    message.setHeader("X-Spam-Score", "1.5");
+    assertThat(rules.evaluate(message, addresses("a@nowhere.net")),
+        is(nullValue()));
+    message.setHeader("X-Spam-Score", "7.5");
+    assertThat(rules.evaluate(message, addresses("a@nowhere.net")).getName(),
+        is(equalTo("spam")));
+
+    final Message flagged = newMessage();
+    flagged.setHeader("X-Flagged", "");
+    assertThat(rules.evaluate(flagged, addresses("a@nowhere.net")).getName(),
+        is(equalTo("flagged")));
+  }
+
+  @Test
+  public void testFirstRuleWins() throws Exception {
+    set("rules", "first,second,third");
+    set("rule.first.header", "Subject");
+    set("rule.first.headerPattern", "urgent.*");
+    set("rule.first.action", "fail");
+    set("rule.second.recipient", "(a|b)+@nowhere\\.net");
+    set("rule.second.action", "drop");
+    set("rule.third.domains", "nowhere.net");
+    set("rule.third.recipient", "a.*");
+    set("rule.third.action", "drop");
+    final MessageRules rules = newRules();
+
+    final Message message = newMessage();
+    message.setSubject("not urgent");
+    assertThat(rules.evaluate(message, addresses("ab@nowhere.net")).getName(),
+        is(equalTo("second")));
+    assertThat(rules.evaluate(message, addresses("c@nowhere.net")).getName(),
+        is(equalTo("third")));
+    assertThat(rules.evaluate(message, addresses("ac@somewhere.net"))
+        .getName(), is(equalTo("third")));
+    message.setSubject("urgent");
+    assertThat(rules.evaluate(message, addresses("c@nowhere.net")).getName(),
+        is(equalTo("first")));
+  }
+
+  @Test
+  public void testApplyRoute() throws Exception {
+    set("rules", "capture");
+    set("rule.capture.domains", "nowhere.net");
+    set("rule.capture.action", "route");
+    set("rule.capture.route", "sink@somewhere.net");
+    final Address[] addresses = addresses("a@elsewhere.net");
+    final MessageRules rules = newRules();
+    assertThat(MessageRules.apply(rules, newMessage(), addresses),
+        is(sameInstance(addresses)));
+    assertThat(MessageRules.apply(rules, newMessage(),
+        addresses("a@nowhere.net")),
+        is(arrayContaining((Address) new InternetAddress("sink@somewhere.net"))));
+  }
+
+  @Test
+  public void testApplyFail() throws Exception {
+    set("rules", "blocked");
+    set("rule.blocked.domains", "nowhere.net");
+    set("rule.blocked.action", "fail");
+    set("rule.blocked.error", "550 5.1.1 User unknown");
+    try {
+      MessageRules.apply(newRules(), newMessage(), addresses("a@nowhere.net"));
+      fail("expected MessagingException");
+    }
+    catch (MessagingException ex) {
+      assertThat(ex.getMessage(), is(equalTo("550 5.1.1 User unknown")));
+    }
+  }
+
+  @Test
+  public void testApplyDrop() throws Exception {
+    set("rules", "blocked");
+    set("rule.blocked.domains", "nowhere.net");
+    set("rule.blocked.action", "drop");
+    assertThat(MessageRules.apply(newRules(), newMessage(),
+        addresses("a@nowhere.net")), is(nullValue()));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidAction() throws Exception {
+    set("rules", "blocked");
+    set("rule.blocked.domains", "nowhere.net");
+    set("rule.blocked.action", "explode");
+    newRules();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidPattern() throws Exception {
+    set("rules", "blocked");
+    set("rule.blocked.recipient", "(unbalanced");
+    set("rule.blocked.action", "drop");
+    newRules();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRuleWithoutCondition() throws Exception {
+    set("rules", "blocked");
+    set("rule.blocked.action", "drop");
+    newRules();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDelayWithoutDistribution() throws Exception {
+    set("rules", "slow");
+    set("rule.slow.domains", "nowhere.net");
+    set("rule.slow.action", "delay");
+    newRules();
+  }
+
+  private void set(String name, String value) {
+    properties.setProperty("mail.test." + name, value);
+  }
+
+  private MessageRules newRules() {
+    return MessageRules.newInstance(new SessionProperties(properties), "test");
+  }
+
+  private Message newMessage() throws MessagingException {
+    return MessageFactory.newMessage("Test message", session);
+  }
+
+  private static Address[] addresses(String... addresses) throws Exception {
+    final Address[] result = new Address[addresses.length];
+    for (int i = 0; i < addresses.length; i++) {
+      result[i] = new InternetAddress(addresses[i]);
+    }
+    return result;
+  }
+
+}
@@ -23,10 +23,14 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 
+import java.io.ByteArrayOutputStream;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 import javax.mail.Message;
+import javax.mail.MessagingException;
 import javax.mail.Session;
 import javax.mail.Transport;
 import javax.mail.event.ConnectionEvent;
@@ -62,4 +66,51 @@ public class NullTransportTest {
    session.getTransport().sendMessage(message, message.getAllRecipients());
   }
 
+  @Test
+  public void testSendMessageToBlackhole() throws Exception {
+    final Session session = newSession(NullTransport.MODE, "blackhole",
+        NullTransport.NAME, "testSendMessageToBlackhole");
+    final NullTransport transport = (NullTransport) session.getTransport();
+    final BlackholeStatistics statistics = transport.getStatistics();
+    statistics.reset();
+
+    final Message message = MessageFactory.newMessage("test message", session);
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    message.writeTo(outputStream);
+    for (int i = 0; i < 2; i++) {
+      transport.sendMessage(message, message.getAllRecipients());
+    }
+
+    assertThat(statistics, is(sameInstance(
+        BlackholeStatistics.named("testSendMessageToBlackhole"))));
+    assertThat(statistics.getMessageCount(), is(equalTo(2L)));
+    assertThat(statistics.getByteCount(),
+        is(equalTo(2L * outputStream.size())));
+    assertThat(statistics.getMaxMessageSize(),
+        is(equalTo((long) outputStream.size())));
+    assertThat(statistics.getErrorCount(), is(equalTo(0L)));
+    assertThat(statistics.getEncodeTime(TimeUnit.NANOSECONDS)
+        >= statistics.getMaxEncodeTime(TimeUnit.NANOSECONDS), is(true));
+  }
+
+  @Test
+  public void testDiscardHasNoStatistics() throws Exception {
+    final NullTransport transport = (NullTransport) session.getTransport();
+    assertThat(transport.getStatistics(), is(nullValue()));
+  }
+
+  @Test(expected = MessagingException.class)
+  public void testInvalidMode() throws Exception {
+    newSession(NullTransport.MODE, "void").getTransport();
+  }
+
+  private static Session newSession(String... pairs) {
+    final Properties properties = new Properties();
+    properties.setProperty("mail.transport.protocol", "null");
+    for (int i = 0; i < pairs.length; i += 2) {
+      properties.setProperty(pairs[i], pairs[i + 1]);
+    }
+    return Session.getInstance(properties);
+  }
+
 }
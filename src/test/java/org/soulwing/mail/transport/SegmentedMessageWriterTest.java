@@ -0,0 +1,128 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.io.File;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import javax.mail.Message;
+import javax.mail.Session;
+import javax.mail.Transport;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link SegmentedMessageWriter}.
+ *
+ * @author Carl Harris
+ */
+public class SegmentedMessageWriterTest {
+
+  private static final long MAX_RETENTION_WAIT = 5000;
+
+  private File directory;
+  private File base;
+  private Session session;
+
+  @Before
+  public void setUp() throws Exception {
+    directory = File.createTempFile("segments", "");
+    assertThat(directory.delete(), is(true));
+    assertThat(directory.mkdir(), is(true));
+    base = new File(directory, "mail.txt");
+    session = Session.getInstance(new Properties());
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    for (final File file : directory.listFiles()) {
+      assertThat(file.delete(), is(true));
+    }
+    assertThat(directory.delete(), is(true));
+  }
+
+  @Test
+  public void testRollBySize() throws Exception {
+    final SegmentedMessageWriter writer = SegmentedMessageWriter.open(
+        base.toString(), 1, 0, 0, MessageFileOptions.DEFAULTS);
+    for (int i = 0; i < 3; i++) {
+      writer.write(MessageFactory.newMessage("Message " + i, session));
+      writer.commit(1);
+    }
+    writer.close();
+    final File[] segments = SegmentedMessageWriter.segments(base.toString());
+    assertThat(segments.length, is(equalTo(3)));
+    assertThat(segments[0].getName().endsWith(".000001"), is(true));
+    assertThat(segments[2].getName().endsWith(".000003"), is(true));
+    assertThat(base.exists(), is(false));
+  }
+
+  @Test
+  public void testContinueLatestSegment() throws Exception {
+    SegmentedMessageWriter writer = SegmentedMessageWriter.open(
+        base.toString(), Long.MAX_VALUE, 0, 0, MessageFileOptions.DEFAULTS);
+    writer.write(MessageFactory.newMessage("Message 1", session));
+    writer.close();
+    writer = SegmentedMessageWriter.open(
+        base.toString(), Long.MAX_VALUE, 0, 0, MessageFileOptions.DEFAULTS);
+    writer.write(MessageFactory.newMessage("Message 2", session));
+    writer.close();
+    assertThat(SegmentedMessageWriter.segments(base.toString()).length,
+        is(equalTo(1)));
+  }
+
+  @Test
+  public void testRetention() throws Exception {
+    final SegmentedMessageWriter writer = SegmentedMessageWriter.open(
+        base.toString(), 1, 0, 2, MessageFileOptions.DEFAULTS);
+    for (int i = 0; i < 5; i++) {
+      writer.write(MessageFactory.newMessage("Message " + i, session));
+    }
+    writer.close();
+    assertThat(SegmentedMessageWriter.awaitRetention(MAX_RETENTION_WAIT,
+        TimeUnit.MILLISECONDS), is(true));
+    final File[] segments = SegmentedMessageWriter.segments(base.toString());
+    assertThat(segments.length, is(equalTo(2)));
+    assertThat(segments[1].getName().endsWith(".000005"), is(true));
+  }
+
+  @Test
+  public void testFileTransportWithSegments() throws Exception {
+    final Properties properties = new Properties();
+    properties.setProperty("mail.transport.protocol", "file");
+    properties.setProperty(FileTransport.FILE_PATH, base.toString());
+    properties.setProperty(FileTransport.SEGMENT_BYTES, "1");
+    final Session session = Session.getInstance(properties);
+    final Transport transport = session.getTransport();
+    transport.connect();
+    final Message message = MessageFactory.newMessage("Message", session);
+    transport.sendMessage(message, message.getAllRecipients());
+    transport.sendMessage(message, message.getAllRecipients());
+    transport.close();
+    assertThat(SegmentedMessageWriter.segments(base.toString()).length,
+        is(equalTo(2)));
+  }
+
+}
@@ -19,10 +19,14 @@
 package org.soulwing.mail.transport;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.fail;
 
 import java.util.Properties;
+import javax.mail.MessagingException;
 
 import org.junit.Test;
 
@@ -47,4 +51,86 @@ public class SessionPropertiesTest {
         is(equalTo("somePath")));
   }
 
+  @Test
+  public void testGetDelegatePropertiesIgnoresOtherProtocols() throws Exception {
+    props.setProperty("mail.test.delegate.transport.protocol", "file");
+    props.setProperty("mail.tester.delegate.transport.protocol", "null");
+    props.setProperty("mail.test.delegat", "other");
+    props.setProperty("mail.test.path", "other");
+    Properties delegateProps = properties.getDelegateProperties("test");
+    assertThat(delegateProps.size(), is(equalTo(1)));
+    assertThat(delegateProps.getProperty("mail.transport.protocol"),
+        is(equalTo("file")));
+  }
+
+  @Test
+  public void testGetDelegatePropertiesIsCopy() throws Exception {
+    props.setProperty("mail.test.delegate.transport.protocol", "file");
+    Properties delegateProps = properties.getDelegateProperties("test");
+    delegateProps.setProperty("mail.file.path", "somePath");
+    delegateProps.putIfAbsent("mail.file.append", "false");
+    assertThat(properties.getDelegateProperties("test").size(),
+        is(equalTo(1)));
+  }
+
+  @Test
+  public void testGetDelegatePropertiesAfterChange() throws Exception {
+    props.setProperty("mail.test.delegate.transport.protocol", "file");
+    properties.getDelegateProperties("test");
+    props.setProperty("mail.test.delegate.transport.protocol", "null");
+    assertThat(properties.getDelegateProperties("test")
+        .getProperty("mail.transport.protocol"), is(equalTo("null")));
+    props.setProperty("mail.test.delegate.file.path", "somePath");
+    assertThat(properties.getDelegateProperties("test")
+        .getProperty("mail.file.path"), is(equalTo("somePath")));
+    props.remove("mail.test.delegate.file.path");
+    assertThat(properties.getDelegateProperties("test")
+        .getProperty("mail.file.path"), is(nullValue()));
+  }
+
+  @Test
+  public void testGetDelegatePropertiesAfterKeyReplaced() throws Exception {
+    props.setProperty("mail.test.delegate.a", "1");
+    props.setProperty("mail.other", "2");
+    properties.getDelegateProperties("test");
+    props.remove("mail.other");
+    props.setProperty("mail.test.delegate.b", "3");
+    final Properties delegateProps = properties.getDelegateProperties("test");
+    assertThat(delegateProps.getProperty("mail.a"), is(equalTo("1")));
+    assertThat(delegateProps.getProperty("mail.b"), is(equalTo("3")));
+  }
+
+  @Test
+  public void testGetIntProperty() throws Exception {
+    props.setProperty("mail.test.count", " 42 ");
+    assertThat(properties.getIntProperty("mail.test.count", 0),
+        is(equalTo(42)));
+    assertThat(properties.getIntProperty("mail.test.other", 7),
+        is(equalTo(7)));
+  }
+
+  @Test
+  public void testGetIntPropertyWhenNotAnInteger() throws Exception {
+    props.setProperty("mail.test.count", "many");
+    try {
+      properties.getIntProperty("mail.test.count", 0);
+      fail("expected MessagingException");
+    }
+    catch (MessagingException ex) {
+      assertThat(ex.getMessage(), containsString("mail.test.count"));
+    }
+  }
+
+  @Test(expected = MessagingException.class)
+  public void testGetLongPropertyWhenNotAnInteger() throws Exception {
+    props.setProperty("mail.test.size", "1.5");
+    properties.getLongProperty("mail.test.size", 0);
+  }
+
+  @Test(expected = MessagingException.class)
+  public void testGetDoublePropertyWhenNotANumber() throws Exception {
+    props.setProperty("mail.test.rate", "half");
+    properties.getDoubleProperty("mail.test.rate", 0);
+  }
+
 }
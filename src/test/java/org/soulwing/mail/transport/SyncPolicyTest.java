@@ -0,0 +1,101 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
+import javax.mail.MessagingException;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link SyncPolicy}.
+ *
+ * @author Carl Harris
+ */
+public class SyncPolicyTest {
+
+  private static final String PROPERTY = "sync";
+
+  @Test
+  public void testDefaultPolicy() throws Exception {
+    assertThat(SyncPolicy.forName(PROPERTY, null),
+        is(sameInstance(SyncPolicy.NONE)));
+  }
+
+  @Test
+  public void testNone() throws Exception {
+    final SyncPolicy policy = SyncPolicy.forName(PROPERTY, "none");
+    assertThat(policy.isDue(Long.MAX_VALUE, Long.MAX_VALUE), is(false));
+  }
+
+  @Test
+  public void testAlways() throws Exception {
+    final SyncPolicy policy = SyncPolicy.forName(PROPERTY, " Always ");
+    assertThat(policy.isDue(0, 0), is(false));
+    assertThat(policy.isDue(1, 0), is(true));
+  }
+
+  @Test
+  public void testInterval() throws Exception {
+    final SyncPolicy policy = SyncPolicy.forName(PROPERTY, "interval:100");
+    assertThat(policy.toString(), is(equalTo("interval:100")));
+    assertThat(policy.isDue(1, TimeUnit.MILLISECONDS.toNanos(99)), is(false));
+    assertThat(policy.isDue(1, TimeUnit.MILLISECONDS.toNanos(100)), is(true));
+  }
+
+  @Test
+  public void testBatch() throws Exception {
+    final SyncPolicy policy = SyncPolicy.forName(PROPERTY, "batch:10");
+    assertThat(policy.toString(), is(equalTo("batch:10")));
+    assertThat(policy.isDue(9, Long.MAX_VALUE), is(false));
+    assertThat(policy.isDue(10, 0), is(true));
+  }
+
+  @Test(expected = MessagingException.class)
+  public void testUnknownMode() throws Exception {
+    SyncPolicy.forName(PROPERTY, "sometimes");
+  }
+
+  @Test(expected = MessagingException.class)
+  public void testInvalidAmount() throws Exception {
+    SyncPolicy.forName(PROPERTY, "batch:0");
+  }
+
+  @Test
+  public void testMalformedAmounts() throws Exception {
+    for (final String spec : new String[] { "batch:", "batch:-1",
+        "interval:ten", "interval:1e3", "batch:9999999999999999999" }) {
+      try {
+        SyncPolicy.forName(PROPERTY, spec);
+        fail("expected MessagingException for " + spec);
+      }
+      catch (MessagingException ex) {
+        assertThat(ex.getMessage(), containsString("positive integer"));
+      }
+    }
+  }
+
+}
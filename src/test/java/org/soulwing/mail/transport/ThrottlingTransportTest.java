@@ -0,0 +1,172 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link ThrottlingTransport}.
+ *
+ * @author Carl Harris
+ */
+public class ThrottlingTransportTest {
+
+  @Test
+  public void testSendMessageWhenLimitExceeded() throws Exception {
+    final Session session = newSession(
+        ThrottlingTransport.MESSAGES_PER_SECOND, "0.1",
+        ThrottlingTransport.BURST, "2",
+        ThrottlingTransport.ON_LIMIT, "fail");
+    final Transport transport = session.getTransport();
+    final Message message = MessageFactory.newMessage("Test message", session);
+    transport.sendMessage(message, message.getAllRecipients());
+    transport.sendMessage(message, message.getAllRecipients());
+    try {
+      transport.sendMessage(message, message.getAllRecipients());
+      fail("expected MessagingException");
+    }
+    catch (MessagingException ex) {
+      assertThat(ex.getMessage(),
+          is(equalTo(ThrottlingTransport.DEFAULT_ERROR)));
+    }
+  }
+
+  @Test
+  public void testSendMessageWithCustomError() throws Exception {
+    final Session session = newSession(
+        ThrottlingTransport.MESSAGES_PER_SECOND, "0.1",
+        ThrottlingTransport.BURST, "1",
+        ThrottlingTransport.ON_LIMIT, "fail",
+        ThrottlingTransport.ERROR, "slow down");
+    final Transport transport = session.getTransport();
+    final Message message = MessageFactory.newMessage("Test message", session);
+    transport.sendMessage(message, message.getAllRecipients());
+    try {
+      transport.sendMessage(message, message.getAllRecipients());
+      fail("expected MessagingException");
+    }
+    catch (MessagingException ex) {
+      assertThat(ex.getMessage(), is(equalTo("slow down")));
+    }
+  }
+
+  @Test
+  public void testSendMessageWhenByteLimitExceeded() throws Exception {
+    final Session session = newSession(
+        ThrottlingTransport.BYTES_PER_SECOND, "1",
+        ThrottlingTransport.BYTE_BURST, "1000",
+        ThrottlingTransport.ON_LIMIT, "fail");
+    final Transport transport = session.getTransport();
+    final Message message = MessageFactory.newMessage("Test message", session);
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    message.writeTo(outputStream);
+    final int fits = 1000 / outputStream.size();
+    for (int i = 0; i < fits; i++) {
+      transport.sendMessage(message, message.getAllRecipients());
+    }
+    try {
+      transport.sendMessage(message, message.getAllRecipients());
+      fail("expected MessagingException");
+    }
+    catch (MessagingException ex) {
+      assertThat(ex.getMessage(),
+          is(equalTo(ThrottlingTransport.DEFAULT_ERROR)));
+    }
+  }
+
+  @Test
+  public void testSendMessageBlocksWhenLimitExceeded() throws Exception {
+    final Session session = newSession(
+        ThrottlingTransport.MESSAGES_PER_SECOND, "100",
+        ThrottlingTransport.BURST, "1");
+    final Transport transport = session.getTransport();
+    final Message message = MessageFactory.newMessage("Test message", session);
+    final long start = System.nanoTime();
+    for (int i = 0; i < 5; i++) {
+      transport.sendMessage(message, message.getAllRecipients());
+    }
+    final long elapsed = TimeUnit.NANOSECONDS.toMillis(
+        System.nanoTime() - start);
+    assertThat(elapsed, is(greaterThanOrEqualTo(35L)));
+  }
+
+  @Test
+  public void testSharedScope() throws Exception {
+    final Session session = newSession(
+        ThrottlingTransport.MESSAGES_PER_SECOND, "0.0125",
+        ThrottlingTransport.BURST, "1",
+        ThrottlingTransport.ON_LIMIT, "fail",
+        ThrottlingTransport.SCOPE, "shared");
+    final Message message = MessageFactory.newMessage("Test message", session);
+    session.getTransport().sendMessage(message, message.getAllRecipients());
+    try {
+      session.getTransport().sendMessage(message, message.getAllRecipients());
+      fail("expected MessagingException");
+    }
+    catch (MessagingException ex) {
+      assertThat(ex.getMessage(),
+          is(equalTo(ThrottlingTransport.DEFAULT_ERROR)));
+    }
+  }
+
+  @Test
+  public void testConnectionScope() throws Exception {
+    final Session session = newSession(
+        ThrottlingTransport.MESSAGES_PER_SECOND, "0.0125",
+        ThrottlingTransport.BURST, "1",
+        ThrottlingTransport.ON_LIMIT, "fail");
+    final Message message = MessageFactory.newMessage("Test message", session);
+    session.getTransport().sendMessage(message, message.getAllRecipients());
+    session.getTransport().sendMessage(message, message.getAllRecipients());
+  }
+
+  @Test(expected = MessagingException.class)
+  public void testInvalidOnLimit() throws Exception {
+    newSession(ThrottlingTransport.MESSAGES_PER_SECOND, "1",
+        ThrottlingTransport.ON_LIMIT, "sometimes").getTransport();
+  }
+
+  @Test(expected = MessagingException.class)
+  public void testInvalidRate() throws Exception {
+    newSession(ThrottlingTransport.MESSAGES_PER_SECOND, "0").getTransport();
+  }
+
+  private static Session newSession(String... pairs) throws Exception {
+    final Properties properties = new Properties();
+    properties.setProperty("mail.transport.protocol",
+        ThrottlingTransport.PROTOCOL);
+    properties.setProperty("mail.throttle.delegate.transport.protocol", "null");
+    return new SessionFactory(properties).newSession(pairs);
+  }
+
+}
@@ -22,6 +22,7 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import javax.mail.Address;
 import javax.mail.Message;
 import javax.mail.MessagingException;
 import javax.mail.Session;
@@ -30,7 +31,13 @@ import javax.mail.event.ConnectionEvent;
 import javax.mail.event.ConnectionListener;
 import javax.mail.event.TransportEvent;
 import javax.mail.event.TransportListener;
+import java.util.HashSet;
 import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
@@ -38,6 +45,7 @@ import java.util.concurrent.locks.ReentrantLock;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
@@ -89,6 +97,241 @@ public class TimeoutThrowingTransportTest {
     transport.sendMessage(message, message.getAllRecipients());
   }
 
+  @Test(expected = MessagingException.class)
+  public void testSendMessageWhenScheduled() throws Exception {
+    Session session = newSession(TimeoutThrowingTransport.MESSAGE_TIMEOUT, "10",
+        TimeoutThrowingTransport.MODE, "scheduled",
+        TimeoutThrowingTransport.OUTCOME, "succeed");
+    Transport transport = session.getTransport();
+    Message message = MessageFactory.newMessage("Test message", session);
+    transport.sendMessage(message, message.getAllRecipients());
+  }
+
+  @Test
+  public void testSendMessageAsyncWhenScheduled() throws Exception {
+    Session session = newSession(TimeoutThrowingTransport.MESSAGE_TIMEOUT, "10",
+        TimeoutThrowingTransport.MODE, "scheduled");
+    TimeoutThrowingTransport transport =
+        (TimeoutThrowingTransport) session.getTransport();
+    MockTransportListener listener = new MockTransportListener();
+    transport.addTransportListener(listener);
+    Message message = MessageFactory.newMessage("Test message", session);
+    transport.sendMessageAsync(message, message.getAllRecipients());
+    TransportEvent event = listener.awaitEvent(LISTENER_WAIT, MAX_LISTENER_WAIT);
+    assertThat(event, is(not(nullValue())));
+    assertThat(event.getType(),
+        is(equalTo(TransportEvent.MESSAGE_NOT_DELIVERED)));
+  }
+
+  @Test
+  public void testSendMessageAsyncWhenScheduledAndOutcomeIsSucceed()
+      throws Exception {
+    Session session = newSession(TimeoutThrowingTransport.MESSAGE_TIMEOUT, "10",
+        TimeoutThrowingTransport.MODE, "scheduled",
+        TimeoutThrowingTransport.OUTCOME, "succeed");
+    TimeoutThrowingTransport transport =
+        (TimeoutThrowingTransport) session.getTransport();
+    MockTransportListener listener = new MockTransportListener();
+    transport.addTransportListener(listener);
+    Message message = MessageFactory.newMessage("Test message", session);
+    transport.sendMessageAsync(message, message.getAllRecipients());
+    TransportEvent event = listener.awaitEvent(LISTENER_WAIT, MAX_LISTENER_WAIT);
+    assertThat(event, is(not(nullValue())));
+    assertThat(event.getType(),
+        is(equalTo(TransportEvent.MESSAGE_DELIVERED)));
+  }
+
+  @Test
+  public void testSendMessageAsyncWhenScheduledAndDelegateFails()
+      throws Exception {
+    Session session = newSession(TimeoutThrowingTransport.MESSAGE_TIMEOUT, "10",
+        TimeoutThrowingTransport.MODE, "scheduled",
+        TimeoutThrowingTransport.OUTCOME, "succeed",
+        "mail.timeout.delegate.transport.protocol", "error");
+    TimeoutThrowingTransport transport =
+        (TimeoutThrowingTransport) session.getTransport();
+    MockTransportListener listener = new MockTransportListener();
+    transport.addTransportListener(listener);
+    Message message = MessageFactory.newMessage("Test message", session);
+    transport.sendMessageAsync(message, message.getAllRecipients());
+    TransportEvent event = listener.awaitEvent(LISTENER_WAIT, MAX_LISTENER_WAIT);
+    assertThat(event, is(not(nullValue())));
+    assertThat(event.getType(),
+        is(equalTo(TransportEvent.MESSAGE_NOT_DELIVERED)));
+  }
+
+  @Test
+  public void testSendMessageAsync() throws Exception {
+    Session session = newSession(TimeoutThrowingTransport.MESSAGE_TIMEOUT, "10");
+    TimeoutThrowingTransport transport =
+        (TimeoutThrowingTransport) session.getTransport();
+    Message message = MessageFactory.newMessage("Test message", session);
+    Future<Void> future = transport.sendMessageAsync(message,
+        message.getAllRecipients());
+    try {
+      future.get(MAX_LISTENER_WAIT, TimeUnit.MILLISECONDS);
+      fail("expected ExecutionException");
+    }
+    catch (ExecutionException ex) {
+      assertThat(ex.getCause(), is(instanceOf(MessagingException.class)));
+    }
+  }
+
+  @Test
+  public void testSendMessageAsyncWhileDelegateIsSlow() throws Exception {
+    final CountDownLatch entered = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final Session slowSession = newSession(
+        TimeoutThrowingTransport.MESSAGE_TIMEOUT, "1",
+        TimeoutThrowingTransport.OUTCOME, "succeed",
+        "mail.timeout.delegate.transport.protocol", "mock");
+    DelegatingMockTransport.setDelegateMock(new Transport(slowSession, null) {
+      @Override
+      public void sendMessage(Message message, Address[] addresses)
+          throws MessagingException {
+        entered.countDown();
+        try {
+          release.await();
+        }
+        catch (InterruptedException ex) {
+          throw new MessagingException("interrupted", ex);
+        }
+      }
+    });
+    try {
+      final Message message =
+          MessageFactory.newMessage("Test message", slowSession);
+      final Future<Void> slow =
+          ((TimeoutThrowingTransport) slowSession.getTransport())
+              .sendMessageAsync(message, message.getAllRecipients());
+      assertThat(entered.await(MAX_LISTENER_WAIT, TimeUnit.MILLISECONDS),
+          is(true));
+
+      // the slow delegate must not hold up another transport's stall
+      final Session session =
+          newSession(TimeoutThrowingTransport.MESSAGE_TIMEOUT, "1");
+      final Future<Void> future =
+          ((TimeoutThrowingTransport) session.getTransport())
+              .sendMessageAsync(message, message.getAllRecipients());
+      try {
+        future.get(MAX_LISTENER_WAIT, TimeUnit.MILLISECONDS);
+        fail("expected ExecutionException");
+      }
+      catch (ExecutionException ex) {
+        assertThat(ex.getCause(), is(instanceOf(MessagingException.class)));
+      }
+      assertThat(slow.isDone(), is(false));
+      release.countDown();
+      assertThat(slow.get(MAX_LISTENER_WAIT, TimeUnit.MILLISECONDS),
+          is(nullValue()));
+    }
+    finally {
+      release.countDown();
+      DelegatingMockTransport.setDelegateMock(null);
+    }
+  }
+
+  @Test
+  public void testSendMessageAsyncWithoutTimeout() throws Exception {
+    Session session = newSession();
+    TimeoutThrowingTransport transport =
+        (TimeoutThrowingTransport) session.getTransport();
+    Message message = MessageFactory.newMessage("Test message", session);
+    Future<Void> future = transport.sendMessageAsync(message,
+        message.getAllRecipients());
+    assertThat(future.isDone(), is(true));
+    assertThat(future.get(), is(nullValue()));
+  }
+
+  @Test
+  public void testConnectAsync() throws Exception {
+    Session session = newSession(TimeoutThrowingTransport.CONNECTION_TIMEOUT,
+        "10");
+    TimeoutThrowingTransport transport =
+        (TimeoutThrowingTransport) session.getTransport();
+    try {
+      transport.connectAsync().get(MAX_LISTENER_WAIT, TimeUnit.MILLISECONDS);
+      fail("expected ExecutionException");
+    }
+    catch (ExecutionException ex) {
+      assertThat(ex.getCause(), is(instanceOf(MessagingException.class)));
+    }
+    assertThat(transport.isConnected(), is(false));
+  }
+
+  @Test
+  public void testSendMessageWhenOutcomeIsSucceed() throws Exception {
+    Session session = newSession(TimeoutThrowingTransport.MESSAGE_DELAY,
+        "uniform:1,5", TimeoutThrowingTransport.SEED, "1",
+        TimeoutThrowingTransport.OUTCOME, "succeed");
+    TimeoutThrowingTransport transport =
+        (TimeoutThrowingTransport) session.getTransport();
+    Message message = MessageFactory.newMessage("Test message", session);
+    transport.sendMessage(message, message.getAllRecipients());
+    assertThat(transport.sendMessageAsync(message, message.getAllRecipients())
+        .get(MAX_LISTENER_WAIT, TimeUnit.MILLISECONDS), is(nullValue()));
+  }
+
+  @Test(expected = MessagingException.class)
+  public void testSendMessageWithDelayDistribution() throws Exception {
+    Session session = newSession(TimeoutThrowingTransport.MESSAGE_DELAY,
+        "exponential:2");
+    Transport transport = session.getTransport();
+    Message message = MessageFactory.newMessage("Test message", session);
+    transport.sendMessage(message, message.getAllRecipients());
+  }
+
+  @Test(expected = MessagingException.class)
+  public void testInvalidOutcome() throws Exception {
+    newSession(TimeoutThrowingTransport.OUTCOME, "maybe").getTransport();
+  }
+
+  @Test(expected = MessagingException.class)
+  public void testInvalidMode() throws Exception {
+    newSession(TimeoutThrowingTransport.MODE, "sometimes").getTransport();
+  }
+
+  @Test
+  public void testSeededDelaysThroughFreshTransports() throws Exception {
+    final String spec = "uniform:0,1000";
+    final long seed = 2020;
+    Session session = newSession(TimeoutThrowingTransport.MESSAGE_DELAY, spec,
+        TimeoutThrowingTransport.SEED, Long.toString(seed));
+    final LatencyDistribution distribution =
+        LatencyDistribution.forSpec(TimeoutThrowingTransport.MESSAGE_DELAY,
+            spec);
+    final Random random = new Random(seed);
+    final Set<Long> delays = new HashSet<>();
+    for (int i = 0; i < 10; i++) {
+      final TimeoutThrowingTransport transport =
+          (TimeoutThrowingTransport) session.getTransport();
+      final long delay = transport.nextMessageDelay();
+      assertThat(delay, is(equalTo(distribution.nextDelay(random))));
+      delays.add(delay);
+    }
+    assertThat(delays.size() > 1, is(true));
+  }
+
+  @Test
+  public void testSeededDelaysInSeparateSessions() throws Exception {
+    final String[] pairs = { TimeoutThrowingTransport.MESSAGE_DELAY,
+        "uniform:0,1000", TimeoutThrowingTransport.SEED, "2021" };
+    final TimeoutThrowingTransport transport =
+        (TimeoutThrowingTransport) newSession(pairs).getTransport();
+    final long first = transport.nextMessageDelay();
+    transport.nextMessageDelay();
+    final TimeoutThrowingTransport otherTransport =
+        (TimeoutThrowingTransport) newSession(pairs).getTransport();
+    assertThat(otherTransport.nextMessageDelay(), is(equalTo(first)));
+  }
+
+  private static Session newSession(String... pairs) throws Exception {
+    final Properties properties = new Properties();
+    properties.setProperty("mail.transport.protocol", "timeout");
+    properties.setProperty("mail.timeout.delegate.transport.protocol", "null");
+    return new SessionFactory(properties).newSession(pairs);
+  }
+
 }
 
 
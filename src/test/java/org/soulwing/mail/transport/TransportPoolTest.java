@@ -0,0 +1,189 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2026 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.mail.transport;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import javax.mail.Address;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Provider;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.URLName;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link TransportPool}.
+ *
+ * @author Carl Harris
+ */
+public class TransportPoolTest {
+
+  private static final String PROTOCOL = "pooled";
+
+  private final FakeTicker ticker = new FakeTicker();
+
+  private Session session;
+
+  @Before
+  public void setUp() throws Exception {
+    final Properties properties = new Properties();
+    properties.setProperty("mail.transport.protocol", PROTOCOL);
+    session = Session.getInstance(properties);
+    session.addProvider(new Provider(Provider.Type.TRANSPORT, PROTOCOL,
+        PooledTransport.class.getName(), "test", null));
+  }
+
+  @Test
+  public void testBorrowConnectsAndReuses() throws Exception {
+    final TransportPool pool = newPool(2, 0, 0);
+    final TransportPool.Entry entry = pool.borrow();
+    assertThat(entry.getTransport().isConnected(), is(true));
+    assertThat(pool.getActiveCount(), is(equalTo(1)));
+    pool.release(entry, true);
+    assertThat(pool.getIdleCount(), is(equalTo(1)));
+    assertThat(pool.getActiveCount(), is(equalTo(0)));
+
+    final TransportPool.Entry other = pool.borrow();
+    assertThat(other, is(sameInstance(entry)));
+    pool.release(other, true);
+    assertThat(pool.getCreatedCount(), is(equalTo(1L)));
+    assertThat(pool.getBorrowCount(), is(equalTo(2L)));
+    assertThat(pool.getSize(), is(equalTo(1)));
+  }
+
+  @Test
+  public void testBorrowValidatesTransport() throws Exception {
+    final TransportPool pool = newPool(2, 0, 0);
+    final TransportPool.Entry entry = pool.borrow();
+    pool.release(entry, true);
+    entry.getTransport().close();
+
+    final TransportPool.Entry other = pool.borrow();
+    assertThat(other, is(not(sameInstance(entry))));
+    assertThat(other.getTransport().isConnected(), is(true));
+    assertThat(pool.getDestroyedCount(), is(equalTo(1L)));
+  }
+
+  @Test
+  public void testBorrowWhenIdleTooLong() throws Exception {
+    final TransportPool pool = newPool(2, 1, 0);
+    final TransportPool.Entry entry = pool.borrow();
+    pool.release(entry, true);
+    ticker.advance(1, TimeUnit.MILLISECONDS);
+    assertThat(pool.borrow(), is(not(sameInstance(entry))));
+    assertThat(entry.getTransport().isConnected(), is(false));
+  }
+
+  @Test
+  public void testReleaseAfterMaxLifetime() throws Exception {
+    final TransportPool pool = newPool(2, 0, 1);
+    final TransportPool.Entry entry = pool.borrow();
+    ticker.advance(1, TimeUnit.MILLISECONDS);
+    pool.release(entry, true);
+    assertThat(pool.getIdleCount(), is(equalTo(0)));
+    assertThat(entry.getTransport().isConnected(), is(false));
+  }
+
+  @Test
+  public void testReleaseWhenNotReusable() throws Exception {
+    final TransportPool pool = newPool(2, 0, 0);
+    final TransportPool.Entry entry = pool.borrow();
+    pool.release(entry, false);
+    assertThat(pool.getIdleCount(), is(equalTo(0)));
+    assertThat(pool.getSize(), is(equalTo(0)));
+    assertThat(entry.getTransport().isConnected(), is(false));
+  }
+
+  @Test
+  public void testBorrowWhenExhausted() throws Exception {
+    // waiting for a permit takes real time, so the pool uses the real clock
+    final TransportPool pool = new TransportPool(session, 1, 10, 0, 0);
+    pool.open();
+    pool.borrow();
+    try {
+      pool.borrow();
+      throw new AssertionError("expected MessagingException");
+    }
+    catch (MessagingException ex) {
+      assertThat(pool.getActiveCount(), is(equalTo(1)));
+      assertThat(pool.getMaxWaitTime(TimeUnit.MILLISECONDS) >= 10, is(true));
+    }
+  }
+
+  @Test
+  public void testClose() throws Exception {
+    final TransportPool pool = newPool(2, 0, 0);
+    final TransportPool.Entry idle = pool.borrow();
+    final TransportPool.Entry active = pool.borrow();
+    pool.release(idle, true);
+    pool.close();
+    assertThat(idle.getTransport().isConnected(), is(false));
+    assertThat(active.getTransport().isConnected(), is(true));
+    pool.release(active, true);
+    assertThat(active.getTransport().isConnected(), is(false));
+    assertThat(pool.getSize(), is(equalTo(0)));
+  }
+
+  @Test(expected = MessagingException.class)
+  public void testBorrowWhenClosed() throws Exception {
+    final TransportPool pool = newPool(2, 0, 0);
+    pool.close();
+    pool.borrow();
+  }
+
+  private TransportPool newPool(int maxSize, long maxIdle, long maxLifetime) {
+    final TransportPool pool = new TransportPool(session, maxSize, 10,
+        maxIdle, maxLifetime, ticker);
+    pool.open();
+    return pool;
+  }
+
+  /**
+   * A transport that discards messages.
+   */
+  public static class PooledTransport extends Transport {
+
+    public PooledTransport(Session session, URLName urlname) {
+      super(session, urlname);
+    }
+
+    @Override
+    protected boolean protocolConnect(String host, int port, String user,
+        String password) throws MessagingException {
+      return true;
+    }
+
+    @Override
+    public void sendMessage(Message message, Address[] addresses)
+        throws MessagingException {
+    }
+
+  }
+
+}